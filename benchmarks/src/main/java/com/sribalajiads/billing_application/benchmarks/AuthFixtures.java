@@ -0,0 +1,53 @@
+package com.sribalajiads.billing_application.benchmarks;
+
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.repository.UserRepository;
+import com.sribalajiads.billing_application.security.AuthMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.Set;
+
+// Test doubles shared by the benchmarks, so none of them needs a database or a Spring context
+final class AuthFixtures {
+
+    static final String EMAIL = "planner@sribalajiads.com";
+
+    private AuthFixtures() {
+    }
+
+    static User user(ERole... roles) {
+        User user = new User("Bench Planner", EMAIL, "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BaRrJ9b6hZTm0z6Qx4uXqpQyCz0e");
+        user.setId(42L);
+        user.setRoles(Set.of(roles));
+        return user;
+    }
+
+    // A UserRepository whose findByEmail always returns the given user; any other call fails loudly
+    static UserRepository repositoryReturning(User user) {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findByEmail" -> Optional.of(user);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "StubUserRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    // Real meters on an in-memory registry, so the benchmarks pay the same recording cost as the application
+    static AuthMetrics metrics() {
+        return new AuthMetrics(new SimpleMeterRegistry());
+    }
+
+    // The application wires these through field injection, so the benchmarks do the same by reflection
+    static void inject(Object target, String fieldName, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), fieldName);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
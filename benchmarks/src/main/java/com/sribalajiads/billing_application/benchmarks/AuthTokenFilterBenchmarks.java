@@ -0,0 +1,80 @@
+package com.sribalajiads.billing_application.benchmarks;
+
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.security.AuthMetrics;
+import com.sribalajiads.billing_application.security.AuthTokenFilter;
+import com.sribalajiads.billing_application.security.JwtUtils;
+import com.sribalajiads.billing_application.security.services.SecurityVersionRegistry;
+import com.sribalajiads.billing_application.security.services.TokenRevocationIndex;
+import com.sribalajiads.billing_application.security.services.UserDetailsImpl;
+import com.sribalajiads.billing_application.security.services.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One pass of AuthTokenFilter with a stubbed UserRepository, in each of the ways a request can be authenticated:
+ * from token claims alone, from the UserDetails cache, or from the (stubbed) repository every time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthTokenFilterBenchmarks {
+
+    public enum PrincipalSource { CLAIMS, USER_CACHE, REPOSITORY }
+
+    @Param({"CLAIMS", "USER_CACHE", "REPOSITORY"})
+    PrincipalSource source;
+
+    private AuthTokenFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private final FilterChain chain = (req, res) -> { };
+
+    @Setup
+    public void setUp() {
+        User user = AuthFixtures.user(ERole.ROLE_PLANNER, ERole.ROLE_RO_CREATOR);
+        AuthMetrics metrics = AuthFixtures.metrics();
+        JwtUtils jwtUtils = new JwtUtils(Duration.ofMinutes(15), 10_000, Duration.ofMinutes(10));
+        AuthFixtures.inject(jwtUtils, "revocationIndex", new TokenRevocationIndex(100_000));
+        AuthFixtures.inject(jwtUtils, "authMetrics", metrics);
+
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl(
+                source == PrincipalSource.REPOSITORY ? 0 : 10_000, Duration.ofMinutes(5));
+        AuthFixtures.inject(userDetailsService, "userRepository", AuthFixtures.repositoryReturning(user));
+        AuthFixtures.inject(userDetailsService, "meterRegistry", new SimpleMeterRegistry());
+        AuthFixtures.inject(userDetailsService, "authMetrics", metrics);
+
+        SecurityVersionRegistry versionRegistry = new SecurityVersionRegistry();
+        versionRegistry.advance(user.getId(), user.getSecurityVersion());
+
+        filter = new AuthTokenFilter();
+        AuthFixtures.inject(filter, "jwtUtils", jwtUtils);
+        AuthFixtures.inject(filter, "userDetailsService", userDetailsService);
+        AuthFixtures.inject(filter, "securityVersionRegistry", versionRegistry);
+        AuthFixtures.inject(filter, "authMetrics", metrics);
+        AuthFixtures.inject(filter, "claimsPrincipal", source == PrincipalSource.CLAIMS);
+
+        request = new MockHttpServletRequest("GET", "/api/ro");
+        request.addHeader("Authorization", "Bearer " + jwtUtils.generateJwtToken(UserDetailsImpl.build(user)));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Object doFilterInternal() throws Exception {
+        filter.doFilter(request, response, chain);
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+}
@@ -0,0 +1,30 @@
+package com.sribalajiads.billing_application.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * With no arguments, runs every benchmark with the GC profiler (allocation rate per operation)
+ * and writes the results to jmh-result.json. Any arguments are passed to the standard JMH command line,
+ * e.g. {@code java -jar benchmarks.jar JwtBenchmarks -prof gc}.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        Options options = new OptionsBuilder()
+                .include("com\\.sribalajiads\\.billing_application\\.benchmarks\\..*Benchmarks")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,51 @@
+package com.sribalajiads.billing_application.benchmarks;
+
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.security.JwtUtils;
+import com.sribalajiads.billing_application.security.services.TokenRevocationIndex;
+import com.sribalajiads.billing_application.security.services.UserDetailsImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmarks {
+
+    // 0 turns the verified-token cache off, so every call pays for the full HMAC check and claim parsing
+    @Param({"10000", "0"})
+    long verifiedCacheSize;
+
+    private JwtUtils jwtUtils;
+    private UserDetailsImpl principal;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils(Duration.ofMinutes(15), verifiedCacheSize, Duration.ofMinutes(10));
+        AuthFixtures.inject(jwtUtils, "revocationIndex", new TokenRevocationIndex(100_000));
+        AuthFixtures.inject(jwtUtils, "authMetrics", AuthFixtures.metrics());
+        principal = UserDetailsImpl.build(AuthFixtures.user(ERole.ROLE_PLANNER, ERole.ROLE_RO_CREATOR));
+        token = jwtUtils.generateJwtToken(principal);
+    }
+
+    @Benchmark
+    public String generateJwtToken() {
+        return jwtUtils.generateJwtToken(principal);
+    }
+
+    @Benchmark
+    public boolean validateJwtToken() {
+        return jwtUtils.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public String getUserNameFromJwtToken() {
+        return jwtUtils.getUserNameFromJwtToken(token);
+    }
+}
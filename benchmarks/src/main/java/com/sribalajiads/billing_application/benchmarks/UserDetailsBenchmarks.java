@@ -0,0 +1,36 @@
+package com.sribalajiads.billing_application.benchmarks;
+
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.security.services.UserDetailsImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDetailsBenchmarks {
+
+    private User singleRoleUser;
+    private User multiRoleUser;
+
+    @Setup
+    public void setUp() {
+        singleRoleUser = AuthFixtures.user(ERole.ROLE_PLANNER);
+        multiRoleUser = AuthFixtures.user(ERole.ROLE_PLANNER, ERole.ROLE_RO_CREATOR, ERole.ROLE_INVOICE_CREATOR);
+    }
+
+    @Benchmark
+    public UserDetailsImpl buildSingleRole() {
+        return UserDetailsImpl.build(singleRoleUser);
+    }
+
+    @Benchmark
+    public UserDetailsImpl buildThreeRoles() {
+        return UserDetailsImpl.build(multiRoleUser);
+    }
+}
@@ -0,0 +1,68 @@
+package com.sribalajiads.billing_application.benchmarks;
+
+import com.sribalajiads.billing_application.dto.UserSummary;
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.service.UserSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Admin user search over a synthetic directory; the target is well under a millisecond per query
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserSearchBenchmarks {
+
+    private static final String[] FIRST = {"Ravi", "Suresh", "Lakshmi", "Kiran", "Anitha", "Venkat", "Srinivas", "Padma",
+            "Ramesh", "Divya", "Naveen", "Swathi", "Mahesh", "Keerthi", "Praveen", "Sandhya", "Harish", "Madhavi"};
+    private static final String[] LAST = {"Kumar", "Reddy", "Rao", "Naidu", "Sharma", "Varma", "Goud", "Chowdary",
+            "Prasad", "Murthy", "Shetty", "Iyer", "Menon", "Patel", "Thota", "Gupta"};
+
+    @Param({"300000"})
+    public int users;
+
+    private UserSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new UserSearchIndex();
+        Random random = new Random(42);
+        ERole[] roles = ERole.values();
+        for (int id = 1; id <= users; id++) {
+            String first = FIRST[random.nextInt(FIRST.length)];
+            String last = LAST[random.nextInt(LAST.length)];
+            String email = first.toLowerCase() + "." + last.toLowerCase() + id + "@example.com";
+            index.put(id, first + " " + last, email, roles[random.nextInt(roles.length)].bit(), random.nextInt(10) > 0, 0);
+        }
+    }
+
+    @Benchmark
+    public List<UserSummary> wordPrefix() {
+        return index.search("ra", null, null, 20);
+    }
+
+    @Benchmark
+    public List<UserSummary> exactEmail() {
+        return index.search("lakshmi.rao12345@example.com", null, null, 20);
+    }
+
+    @Benchmark
+    public List<UserSummary> twoTermsWithFilters() {
+        return index.search("ravi kum", ERole.ROLE_PLANNER, true, 20);
+    }
+
+    @Benchmark
+    public List<UserSummary> emailDigits() {
+        return index.search("123456", null, null, 20);
+    }
+
+    @Benchmark
+    public List<UserSummary> fuzzyName() {
+        return index.search("sureth", null, null, 20);
+    }
+}
@@ -0,0 +1,32 @@
+package com.sribalajiads.billing_application.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.Schedules;
+
+import java.util.Set;
+
+@Configuration
+public class StartupConfig {
+
+    // Under the fast-start profile (lazy initialization) beans are only created on first use. Background work has no
+    // first use: lifecycle workers (audit flusher, e-invoice dispatcher) and pollers (availability index, user cache)
+    // must still start with the context, or they would never run.
+    @Bean
+    public static LazyInitializationExcludeFilter backgroundWorkersStayEager() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (SmartLifecycle.class.isAssignableFrom(beanType) || hasScheduledMethods(beanType));
+    }
+
+    private static boolean hasScheduledMethods(Class<?> beanType) {
+        return !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Set<Scheduled>>) method -> {
+            Set<Scheduled> scheduled = AnnotatedElementUtils.getMergedRepeatableAnnotations(method, Scheduled.class, Schedules.class);
+            return scheduled.isEmpty() ? null : scheduled;
+        }).isEmpty();
+    }
+}
@@ -1,16 +1,47 @@
 package com.sribalajiads.billing_application.controller;
 
+import com.sribalajiads.billing_application.dto.AuditPage;
+import com.sribalajiads.billing_application.dto.BulkImportReport;
 import com.sribalajiads.billing_application.dto.SignupRequest;
 import com.sribalajiads.billing_application.dto.UpdateRoleRequest;
+import com.sribalajiads.billing_application.dto.UserPage;
+import com.sribalajiads.billing_application.dto.UserSummary;
 import com.sribalajiads.billing_application.model.*;
 import com.sribalajiads.billing_application.repository.*;
+import com.sribalajiads.billing_application.security.services.UserChangeTracker;
+import com.sribalajiads.billing_application.service.AuditLog;
+import com.sribalajiads.billing_application.service.ExportService;
+import com.sribalajiads.billing_application.service.ResourceVersions;
+import com.sribalajiads.billing_application.service.ResourceVersions.Resource;
+import com.sribalajiads.billing_application.service.RoleCounterService;
+import com.sribalajiads.billing_application.service.RoleRegistry;
+import com.sribalajiads.billing_application.service.UserImportService;
+import com.sribalajiads.billing_application.service.UserSearchIndex;
+import com.sribalajiads.billing_application.util.RoleMaskMigration;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 
 @RestController
@@ -19,93 +50,220 @@ import java.util.*;
 public class AdminController {
 
     @Autowired UserRepository userRepository;
-    @Autowired RoleRepository roleRepository;
+    @Autowired RoleRegistry roleRegistry;
+    @Autowired RoleCounterService roleCounterService;
     @Autowired PasswordEncoder encoder;
+    @Autowired UserChangeTracker userChangeTracker;
+    @Autowired UserStreamRepository userStreamRepository;
+    @Autowired UserImportService userImportService;
+    @Autowired JsonMapper jsonMapper;
+    @Autowired AuditLog auditLog;
+    @Autowired AuditEventRepository auditEventRepository;
+    @Autowired ExportService exportService;
+    @Autowired UserSearchIndex userSearchIndex;
+    @Autowired ResourceVersions resourceVersions;
+    @Autowired RoleMaskMigration roleMaskMigration;
+
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     // 1. Create User
     @PostMapping("/create-user")
+    @Transactional
     public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
         if (userRepository.existsByEmail(signUpRequest.getEmail())) {
             return ResponseEntity.badRequest().body("Error: Email is already in use!");
         }
 
-        User user = new User(signUpRequest.getName(), signUpRequest.getEmail(), encoder.encode(signUpRequest.getPassword()));
         Set<String> strRoles = signUpRequest.getRole();
-        Set<Role> roles = new HashSet<>();
-
         if (strRoles == null || strRoles.isEmpty()) {
             return ResponseEntity.badRequest().body("Error: Role is mandatory!");
         }
 
-        strRoles.forEach(role -> {
-            Role userRole = roleRepository.findByName(ERole.valueOf(role))
-                    .orElseThrow(() -> new RuntimeException("Error: Role " + role + " is not found."));
-            roles.add(userRole);
-        });
+        // Resolve roles before hashing the password, so a bad role name is rejected cheaply
+        Set<ERole> roles;
+        try {
+            roles = roleRegistry.resolve(strRoles);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
 
+        User user = new User(signUpRequest.getName(), signUpRequest.getEmail(), encoder.encode(signUpRequest.getPassword()));
         user.setRoles(roles);
         userRepository.save(user);
+        roleMaskMigration.mirror(Map.of(user.getId(), roles));
+        roleCounterService.applyChange(Set.of(), false, roles, true);
+        userSearchIndex.userSaved(user);
+        resourceVersions.changed(Resource.USERS);
+        auditLog.record(AuditAction.USER_CREATED, user.getId(), user.getEmail(), true, "roles=" + roles);
         return ResponseEntity.ok("User registered successfully!");
     }
 
     // 2. Update User Roles (With Last Admin Protection)
     @PutMapping("/update-role/{id}")
+    @Transactional
     public ResponseEntity<?> updateUserRoles(@PathVariable Long id, @Valid @RequestBody UpdateRoleRequest request) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Error: User not found."));
-
-        // Check if this user is currently an Admin
-        boolean isCurrentlyAdmin = user.getRoles().stream()
-                .anyMatch(role -> role.getName().equals(ERole.ROLE_ADMIN));
+        Set<ERole> newRoles;
+        try {
+            newRoles = roleRegistry.resolve(request.getRoles());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
 
-        // Check if the new request is trying to REMOVE the Admin role
-        boolean willBeAdmin = request.getRoles().contains("ROLE_ADMIN");
+        // Lock the user row so concurrent edits of the same user can't apply the same counter change twice
+        User user = userRepository.findForUpdateById(id)
+                .orElseThrow(() -> new RuntimeException("Error: User not found."));
 
-        if (isCurrentlyAdmin && !willBeAdmin) {
-            long activeAdminCount = userRepository.countByRolesNameAndActiveTrue(ERole.ROLE_ADMIN);
-            if (activeAdminCount <= 1) {
-                return ResponseEntity.badRequest().body("Safety Alert: You cannot remove the Admin role from the last active Admin.");
-            }
+        // Moves the per-role active counters; refuses if this would remove the Admin role from the last active Admin
+        Set<ERole> oldRoleNames = user.getRoles();
+        String change = "roles " + oldRoleNames + " -> " + newRoles;
+        if (!roleCounterService.applyChange(oldRoleNames, user.isActive(), newRoles, user.isActive())) {
+            auditLog.record(AuditAction.ROLES_CHANGED, user.getId(), user.getEmail(), false, change + " refused: last active admin");
+            return ResponseEntity.badRequest().body("Safety Alert: You cannot remove the Admin role from the last active Admin.");
         }
 
         // Apply new roles
-        Set<Role> newRoles = new HashSet<>();
-        request.getRoles().forEach(roleStr -> {
-            Role role = roleRepository.findByName(ERole.valueOf(roleStr))
-                    .orElseThrow(() -> new RuntimeException("Error: Role " + roleStr + " is not found."));
-            newRoles.add(role);
-        });
-
         user.setRoles(newRoles);
+        user.bumpSecurityVersion();
         userRepository.save(user);
+        roleMaskMigration.mirror(Map.of(user.getId(), newRoles));
+        userSearchIndex.userSaved(user);
+        resourceVersions.changed(Resource.USERS);
+        userChangeTracker.userChanged(user);
+        auditLog.record(AuditAction.ROLES_CHANGED, user.getId(), user.getEmail(), true, change);
         return ResponseEntity.ok("User roles updated successfully!");
     }
 
     // 3. Toggle Status (With Last Admin Protection)
     @PatchMapping("/toggle-status/{id}")
+    @Transactional
     public ResponseEntity<?> toggleUserStatus(@PathVariable Long id) {
-        User user = userRepository.findById(id)
+        User user = userRepository.findForUpdateById(id)
                 .orElseThrow(() -> new RuntimeException("Error: User not found."));
 
-        // Check if we are trying to DEACTIVATE an Admin
-        boolean isCurrentlyAdmin = user.getRoles().stream()
-                .anyMatch(role -> role.getName().equals(ERole.ROLE_ADMIN));
-
-        if (user.isActive() && isCurrentlyAdmin) {
-            long activeAdminCount = userRepository.countByRolesNameAndActiveTrue(ERole.ROLE_ADMIN);
-            if (activeAdminCount <= 1) {
-                return ResponseEntity.badRequest().body("Safety Alert: You cannot deactivate the last active Admin.");
-            }
+        // Moves the per-role active counters; refuses if we are trying to DEACTIVATE the last active Admin
+        Set<ERole> roleNames = user.getRoles();
+        String change = "active " + user.isActive() + " -> " + !user.isActive();
+        if (!roleCounterService.applyChange(roleNames, user.isActive(), roleNames, !user.isActive())) {
+            auditLog.record(AuditAction.STATUS_CHANGED, user.getId(), user.getEmail(), false, change + " refused: last active admin");
+            return ResponseEntity.badRequest().body("Safety Alert: You cannot deactivate the last active Admin.");
         }
 
         user.setActive(!user.isActive());
+        user.bumpSecurityVersion();
         userRepository.save(user);
+        userSearchIndex.userSaved(user);
+        resourceVersions.changed(Resource.USERS);
+        userChangeTracker.userChanged(user);
+        auditLog.record(AuditAction.STATUS_CHANGED, user.getId(), user.getEmail(), true, change);
         return ResponseEntity.ok("User status updated to: " + (user.isActive() ? "Active" : "Inactive"));
     }
 
-    // 4. Get All Users
+    // 4. Get Users (keyset pagination on id: pass the previous page's nextCursor as ?after=; 304 on a matching If-None-Match)
     @GetMapping("/users")
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public ResponseEntity<UserPage> getAllUsers(@RequestParam(defaultValue = "0") long after,
+                                                @RequestParam(defaultValue = "50") int limit,
+                                                @RequestParam(required = false) ERole role,
+                                                @RequestParam(required = false) Boolean active,
+                                                WebRequest request) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return ConditionalGet.respond(request, resourceVersions.etag(Resource.USERS), () -> {
+            List<UserSummary> users = userRepository.findSummaryPage(after, active, role, Limit.of(pageSize));
+            Long nextCursor = users.size() == pageSize ? users.get(users.size() - 1).getId() : null;
+            return new UserPage(users, nextCursor);
+        });
+    }
+
+    // 5. Stream All Users as NDJSON (one JSON object per line, written as rows come off the cursor)
+    @GetMapping("/users/stream")
+    public ResponseEntity<StreamingResponseBody> streamUsers(@RequestParam(required = false) ERole role,
+                                                             @RequestParam(required = false) Boolean active) {
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream, 8192);
+            userStreamRepository.streamSummaries(active, role, summary -> {
+                try {
+                    out.write(jsonMapper.writeValueAsBytes(summary));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    // 6. Bulk Import Users (CSV: name,email,password,roles with roles separated by ';'; or a JSON array of create-user bodies)
+    @PostMapping(value = "/users/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> importUsers(@RequestHeader("Content-Type") MediaType contentType, InputStream body) throws IOException {
+        BulkImportReport report;
+        try {
+            report = MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                    ? userImportService.importJson(body)
+                    : userImportService.importCsv(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    // 7. Audit Trail (newest first; pass the previous page's nextCursor as ?before=)
+    @GetMapping("/audit")
+    public AuditPage getAuditEvents(@RequestParam(defaultValue = "" + Long.MAX_VALUE) long before,
+                                    @RequestParam(defaultValue = "50") int limit,
+                                    @RequestParam(required = false) String actor,
+                                    @RequestParam(required = false) AuditAction action,
+                                    @RequestParam(required = false) Long targetUserId,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<AuditEvent> events = auditEventRepository.findPage(before, actor, action, targetUserId, from, to, Limit.of(pageSize));
+        Long nextCursor = events.size() == pageSize ? events.get(events.size() - 1).getId() : null;
+        return new AuditPage(events, nextCursor);
+    }
+
+    // 8. Export the User Directory as CSV or XLSX (?from=&to= on creation date, ?columns=name,email,roles,...)
+    @GetMapping("/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "csv") String format,
+                                                             @RequestParam(required = false) String columns,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                             @RequestParam(required = false) Boolean active) {
+        try {
+            ExportService.Format exportFormat = ExportService.Format.parse(format);
+            StreamingResponseBody body = exportService.users(exportFormat, columns, from, to, active);
+            return ResponseEntity.ok()
+                    .contentType(exportFormat.mediaType)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                            .filename("users." + exportFormat.extension).build().toString())
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(ExportService.message(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.TEXT_PLAIN).body(ExportService.message(e.getMessage()));
+        }
+    }
+
+    // 9. Search Users (ranked matches on name and email from the in-memory index; ?q=&role=&active=&limit=)
+    @GetMapping("/users/search")
+    public ResponseEntity<?> searchUsers(@RequestParam(required = false) String q,
+                                         @RequestParam(required = false) ERole role,
+                                         @RequestParam(required = false) Boolean active,
+                                         @RequestParam(defaultValue = "20") int limit,
+                                         WebRequest request) {
+        if (q == null || q.isBlank()) {
+            return ResponseEntity.badRequest().body("Error: Search text is mandatory!");
+        }
+        int resultSize = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        return ConditionalGet.respond(request, resourceVersions.etag(Resource.USERS),
+                () -> userSearchIndex.search(q, role, active, resultSize));
+    }
+
+    // 10. Get Roles (reference data for the role pickers; 304 on a matching If-None-Match)
+    @GetMapping("/roles")
+    public ResponseEntity<List<String>> getRoles(WebRequest request) {
+        return ConditionalGet.respond(request, resourceVersions.etag(Resource.ROLES),
+                () -> roleRegistry.all().stream().map(role -> role.getName().name()).sorted().toList());
     }
-}
\ No newline at end of file
+}
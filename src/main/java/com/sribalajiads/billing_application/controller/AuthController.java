@@ -2,19 +2,33 @@ package com.sribalajiads.billing_application.controller;
 
 import com.sribalajiads.billing_application.dto.JwtResponse;
 import com.sribalajiads.billing_application.dto.LoginRequest;
+import com.sribalajiads.billing_application.dto.TokenRefreshRequest;
+import com.sribalajiads.billing_application.model.AuditAction;
+import com.sribalajiads.billing_application.security.AuthMetrics;
+import com.sribalajiads.billing_application.security.AuthMetrics.LoginOutcome;
 import com.sribalajiads.billing_application.security.JwtUtils;
+import com.sribalajiads.billing_application.security.LoginAdmission;
+import com.sribalajiads.billing_application.security.LoginRejectedException;
+import com.sribalajiads.billing_application.security.services.RefreshTokenService;
+import com.sribalajiads.billing_application.security.services.TokenRevocationIndex;
 import com.sribalajiads.billing_application.security.services.UserDetailsImpl; // <-- ADDED THIS IMPORT
+import com.sribalajiads.billing_application.service.AuditLog;
 
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -22,22 +36,40 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/auth")
 public class AuthController {
 
-    @Autowired AuthenticationManager authenticationManager;
+    @Autowired LoginAdmission loginAdmission;
     @Autowired JwtUtils jwtUtils;
+    @Autowired AuthMetrics authMetrics;
+    @Autowired AuditLog auditLog;
+    @Autowired RefreshTokenService refreshTokenService;
+    @Autowired TokenRevocationIndex revocationIndex;
 
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        long start = System.nanoTime();
 
-        // 1. Check Credentials
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
+        // 1. Check Credentials (rate limited per IP and email, then checked on the bounded hashing pool)
+        Authentication authentication;
+        try {
+            authentication = loginAdmission.authenticate(loginRequest.getEmail(), loginRequest.getPassword(), request.getRemoteAddr());
+        } catch (LoginRejectedException e) {
+            // Not audited: a credential-stuffing burst would otherwise flood the trail; see billing.auth.login.rejected
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+                    .body(e.getReason() == LoginRejectedException.Reason.BUSY
+                            ? "Error: Server is busy, please try again shortly."
+                            : "Error: Too many login attempts, please try again later.");
+        } catch (AuthenticationException e) {
+            authMetrics.recordLogin(LoginOutcome.FAILURE, start);
+            auditLog.record(loginRequest.getEmail(), AuditAction.LOGIN, null, loginRequest.getEmail(), false, e.getClass().getSimpleName());
+            throw e;
+        }
 
         // 2. Set Security Context
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        // 3. Generate JWT
-        String jwt = jwtUtils.generateJwtToken(authentication.getName());
+        // 3. Generate JWT (carries id, name, roles and security version so requests can skip the database)
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        String jwt = jwtUtils.generateJwtToken(userDetails);
 
         // 4. Extract Roles
         List<String> roles = userDetails.getAuthorities().stream()
@@ -45,6 +77,50 @@ public class AuthController {
                 .collect(Collectors.toList());
 
         // 5. Return Clean DTO
-        return ResponseEntity.ok(new JwtResponse(jwt, userDetails.getId(), userDetails.getName(), userDetails.getEmail(), roles));
+        authMetrics.recordLogin(LoginOutcome.SUCCESS, start);
+        auditLog.record(userDetails.getEmail(), AuditAction.LOGIN, userDetails.getId(), userDetails.getEmail(), true, null);
+        String refreshToken = refreshTokenService.issue(userDetails.getId());
+        return ResponseEntity.ok(tokenResponse(jwt, refreshToken, userDetails, roles));
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refreshToken(@Valid @RequestBody TokenRefreshRequest refreshRequest) {
+        // 1. Rotate (single use; a replayed token revokes its whole family)
+        Optional<RefreshTokenService.Rotation> rotation = refreshTokenService.rotate(refreshRequest.getRefreshToken());
+        if (rotation.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Error: Refresh token is invalid or expired.");
+        }
+
+        // 2. New access token from the freshly loaded user, so role and status changes apply on refresh
+        UserDetailsImpl userDetails = rotation.get().user();
+        List<String> roles = userDetails.getAuthorities().stream()
+                .map(item -> item.getAuthority())
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(tokenResponse(jwtUtils.generateJwtToken(userDetails), rotation.get().refreshToken(), userDetails, roles));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody(required = false) TokenRefreshRequest logoutRequest, HttpServletRequest request) {
+        // 1. Revoke the access token until it would have expired anyway
+        String headerAuth = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
+            Claims claims = jwtUtils.parseJwtClaims(headerAuth.substring(7));
+            if (claims != null && claims.getId() != null) {
+                revocationIndex.revoke(claims.getId(), claims.getExpiration());
+            }
+        }
+
+        // 2. End the refresh token family
+        if (logoutRequest != null && StringUtils.hasText(logoutRequest.getRefreshToken())) {
+            refreshTokenService.revoke(logoutRequest.getRefreshToken());
+        }
+
+        SecurityContextHolder.clearContext();
+        return ResponseEntity.ok("Logged out successfully!");
+    }
+
+    private JwtResponse tokenResponse(String jwt, String refreshToken, UserDetailsImpl userDetails, List<String> roles) {
+        return new JwtResponse(jwt, jwtUtils.getAccessTokenTtl().toSeconds(), refreshToken,
+                userDetails.getId(), userDetails.getName(), userDetails.getEmail(), roles);
     }
 }
\ No newline at end of file
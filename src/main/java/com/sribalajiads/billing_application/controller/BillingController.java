@@ -0,0 +1,105 @@
+package com.sribalajiads.billing_application.controller;
+
+import com.sribalajiads.billing_application.dto.BillingRunProgress;
+import com.sribalajiads.billing_application.model.InvoiceStatus;
+import com.sribalajiads.billing_application.repository.InvoiceRepository;
+import com.sribalajiads.billing_application.service.BillingRunService;
+import com.sribalajiads.billing_application.service.ExportService;
+import com.sribalajiads.billing_application.service.InvoiceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+@RestController
+@RequestMapping("/api/billing")
+@PreAuthorize("hasRole('INVOICE_CREATOR')") // Secures all endpoints in this controller
+public class BillingController {
+
+    @Autowired BillingRunService billingRunService;
+    @Autowired InvoiceRepository invoiceRepository;
+    @Autowired InvoiceService invoiceService;
+    @Autowired ExportService exportService;
+
+    // 1. Start a Billing Run for a month (?period=2026-03); runs in the background, poll its progress
+    @PostMapping("/runs")
+    public ResponseEntity<?> startRun(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth period) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(billingRunService.start(period));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 2. Run Progress
+    @GetMapping("/runs/{id}")
+    public ResponseEntity<?> getRun(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(billingRunService.progress(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // 3. Resume a Failed or Interrupted Run (only chunks without a checkpoint are processed)
+    @PostMapping("/runs/{id}/resume")
+    public ResponseEntity<?> resumeRun(@PathVariable Long id) {
+        try {
+            BillingRunProgress progress = billingRunService.resume(id);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(progress);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 4. Get Invoice
+    @GetMapping("/invoices/{id}")
+    public ResponseEntity<?> getInvoice(@PathVariable Long id) {
+        return invoiceRepository.findById(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // 5. Cancel Invoice (the release order stays billed; revenue reports drop the invoice immediately)
+    @PostMapping("/invoices/{id}/cancel")
+    public ResponseEntity<?> cancelInvoice(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(invoiceService.cancel(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // 6. Export the Invoice Register as CSV or XLSX (?from=&to= on invoice date, ?columns=invoiceNumber,totalAmount,...)
+    @GetMapping("/invoices/export")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(@RequestParam(defaultValue = "csv") String format,
+                                                                @RequestParam(required = false) String columns,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                @RequestParam(required = false) InvoiceStatus status) {
+        try {
+            ExportService.Format exportFormat = ExportService.Format.parse(format);
+            StreamingResponseBody body = exportService.invoices(exportFormat, columns, from, to, status);
+            return ResponseEntity.ok()
+                    .contentType(exportFormat.mediaType)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                            .filename("invoices." + exportFormat.extension).build().toString())
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(ExportService.message(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.TEXT_PLAIN).body(ExportService.message(e.getMessage()));
+        }
+    }
+}
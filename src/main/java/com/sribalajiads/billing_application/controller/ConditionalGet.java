@@ -0,0 +1,28 @@
+package com.sribalajiads.billing_application.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Answers a GET with a version-based ETag from ResourceVersions. When the client's If-None-Match still matches,
+ * the response is a 304 and the body supplier, which does the queries, never runs.
+ */
+final class ConditionalGet {
+
+    // Clients may keep the response but must revalidate before each use; replaces the default no-store header
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalGet() {
+    }
+
+    static <T> ResponseEntity<T> respond(WebRequest request, String etag, Supplier<T> body) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).eTag(etag).build();
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).eTag(etag).body(body.get());
+    }
+}
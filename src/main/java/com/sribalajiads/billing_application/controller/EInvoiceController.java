@@ -0,0 +1,53 @@
+package com.sribalajiads.billing_application.controller;
+
+import com.sribalajiads.billing_application.dto.EInvoiceSubmitRequest;
+import com.sribalajiads.billing_application.model.EInvoiceStatus;
+import com.sribalajiads.billing_application.repository.EInvoiceSubmissionRepository;
+import com.sribalajiads.billing_application.service.EInvoiceService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/einvoice")
+@PreAuthorize("hasRole('E_INVOICE_CREATOR')") // Secures all endpoints in this controller
+public class EInvoiceController {
+
+    @Autowired EInvoiceService eInvoiceService;
+    @Autowired EInvoiceSubmissionRepository submissionRepository;
+
+    // 1. Queue Invoices for IRN Generation (returns at once; poll the status below)
+    @PostMapping("/submissions")
+    public ResponseEntity<?> submit(@Valid @RequestBody EInvoiceSubmitRequest request) {
+        int queued = eInvoiceService.enqueue(request.getInvoiceIds());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("queued", queued));
+    }
+
+    // 2. E-Invoice Status of one Invoice (IRN and acknowledgement once registered)
+    @GetMapping("/invoices/{invoiceId}")
+    public ResponseEntity<?> getStatus(@PathVariable Long invoiceId) {
+        return submissionRepository.findByInvoiceId(invoiceId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // 3. Retry a Rejected Invoice
+    @PostMapping("/invoices/{invoiceId}/retry")
+    public ResponseEntity<?> retry(@PathVariable Long invoiceId) {
+        if (!eInvoiceService.retry(invoiceId)) {
+            return ResponseEntity.badRequest().body("Error: Invoice is not rejected.");
+        }
+        return ResponseEntity.accepted().body("Invoice queued again.");
+    }
+
+    // 4. Queue Summary (count per status)
+    @GetMapping("/summary")
+    public Map<EInvoiceStatus, Long> getSummary() {
+        return eInvoiceService.summary();
+    }
+}
@@ -0,0 +1,66 @@
+package com.sribalajiads.billing_application.controller;
+
+import com.sribalajiads.billing_application.dto.AvailabilityReport;
+import com.sribalajiads.billing_application.dto.BookedPeriod;
+import com.sribalajiads.billing_application.dto.DateRange;
+import com.sribalajiads.billing_application.service.AvailabilityIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/planner")
+@PreAuthorize("hasRole('PLANNER')") // Secures all endpoints in this controller
+public class PlannerController {
+
+    @Autowired AvailabilityIndex availabilityIndex;
+
+    private static final int MAX_RESULTS = 1000;
+
+    // 1. Availability of One Inventory (conflicting ROs and the free stretches in the range; served from memory)
+    @GetMapping("/availability")
+    public ResponseEntity<?> getAvailability(@RequestParam String inventory,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        String problem = checkRange(from, to);
+        if (problem != null) {
+            return ResponseEntity.badRequest().body(problem);
+        }
+        List<BookedPeriod> conflicts = availabilityIndex.conflicts(inventory, from, to).stream()
+                .map(b -> new BookedPeriod(b.releaseOrderId(), b.startDate(), b.endDate()))
+                .toList();
+        List<DateRange> freeRanges = availabilityIndex.freeRanges(inventory, from, to).stream()
+                .map(range -> new DateRange(range[0], range[1]))
+                .toList();
+        return ResponseEntity.ok(new AvailabilityReport(inventory, from, to, conflicts.isEmpty(), conflicts, freeRanges));
+    }
+
+    // 2. Inventories Free for the Whole Range (optionally only codes starting with ?prefix=)
+    @GetMapping("/availability/free")
+    public ResponseEntity<?> getFreeInventories(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                @RequestParam(required = false) String prefix,
+                                                @RequestParam(defaultValue = "100") int limit) {
+        String problem = checkRange(from, to);
+        if (problem != null) {
+            return ResponseEntity.badRequest().body(problem);
+        }
+        return ResponseEntity.ok(availabilityIndex.freeInventories(from, to, prefix, Math.max(1, Math.min(limit, MAX_RESULTS))));
+    }
+
+    private static String checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return "Error: 'to' is before 'from'.";
+        }
+        if (ChronoUnit.DAYS.between(from, to) > AvailabilityIndex.MAX_RANGE_DAYS) {
+            return "Error: Date range is longer than " + AvailabilityIndex.MAX_RANGE_DAYS + " days.";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,88 @@
+package com.sribalajiads.billing_application.controller;
+
+import com.sribalajiads.billing_application.dto.ReleaseOrderBatchReport;
+import com.sribalajiads.billing_application.dto.ReleaseOrderPage;
+import com.sribalajiads.billing_application.dto.ReleaseOrderRequest;
+import com.sribalajiads.billing_application.dto.ReleaseOrderResult;
+import com.sribalajiads.billing_application.model.ReleaseOrder;
+import com.sribalajiads.billing_application.repository.ReleaseOrderRepository;
+import com.sribalajiads.billing_application.service.ReleaseOrderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/ro")
+@PreAuthorize("hasRole('RO_CREATOR')") // Secures all endpoints in this controller
+public class ReleaseOrderController {
+
+    @Autowired ReleaseOrderService releaseOrderService;
+    @Autowired ReleaseOrderRepository releaseOrderRepository;
+    @Autowired AuditorAware<String> auditorProvider;
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // 1. Book One RO (201 when booked, 200 when the same key and order were already booked, so retries are safe)
+    @PostMapping
+    public ResponseEntity<?> createReleaseOrder(@RequestBody ReleaseOrderRequest request) {
+        ReleaseOrderResult result = releaseOrderService.submit(request);
+        return switch (result.getStatus()) {
+            case CREATED -> ResponseEntity.status(HttpStatus.CREATED).body(result);
+            case DUPLICATE -> ResponseEntity.ok(result);
+            case CONFLICT -> ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+            case INVALID -> ResponseEntity.badRequest().body(result);
+        };
+    }
+
+    // 2. Book Many ROs (per-order results in request order; one bad order does not reject the rest)
+    @PostMapping("/batch")
+    public ResponseEntity<?> createReleaseOrders(@RequestBody List<ReleaseOrderRequest> requests) {
+        ReleaseOrderBatchReport report;
+        try {
+            report = releaseOrderService.submitAll(requests);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    // 3. Get One of My ROs
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getReleaseOrder(@PathVariable Long id) {
+        return releaseOrderRepository.findByIdAndCreatedBy(id, currentUser())
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // 4. List My ROs (newest first; pass the previous page's nextCursor as ?before=)
+    @GetMapping
+    public ReleaseOrderPage getReleaseOrders(@RequestParam(defaultValue = "" + Long.MAX_VALUE) long before,
+                                             @RequestParam(defaultValue = "50") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<ReleaseOrder> orders = releaseOrderRepository.findPage(currentUser(), before, Limit.of(pageSize));
+        Long nextCursor = orders.size() == pageSize ? orders.get(orders.size() - 1).getId() : null;
+        return new ReleaseOrderPage(orders, nextCursor);
+    }
+
+    // 5. Cancel One of My ROs (frees its dates for planners; billed ROs cannot be cancelled)
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<?> cancelReleaseOrder(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(releaseOrderService.cancel(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private String currentUser() {
+        return auditorProvider.getCurrentAuditor().orElse("SYSTEM");
+    }
+}
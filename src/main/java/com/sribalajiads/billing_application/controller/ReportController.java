@@ -0,0 +1,67 @@
+package com.sribalajiads.billing_application.controller;
+
+import com.sribalajiads.billing_application.repository.RevenueSummaryRepository;
+import com.sribalajiads.billing_application.service.ResourceVersions;
+import com.sribalajiads.billing_application.service.ResourceVersions.Resource;
+import com.sribalajiads.billing_application.service.RevenueReadModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reports/revenue")
+@PreAuthorize("hasRole('ADMIN')") // Secures all endpoints in this controller
+public class ReportController {
+
+    @Autowired RevenueSummaryRepository summaryRepository;
+    @Autowired RevenueReadModel revenueReadModel;
+    @Autowired ResourceVersions resourceVersions;
+
+    private static final int MAX_CLIENTS = 500;
+
+    // 1. Revenue per Month, split by tax head (?from=2025-04&to=2026-03); every report answers 304 on a matching If-None-Match
+    @GetMapping("/monthly")
+    public ResponseEntity<?> getMonthly(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+                                        @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+                                        WebRequest request) {
+        return ConditionalGet.respond(request, resourceVersions.etag(Resource.REVENUE),
+                () -> summaryRepository.totalsByMonth(from.toString(), to.toString()));
+    }
+
+    // 2. Top Clients by Total Billed
+    @GetMapping("/clients")
+    public ResponseEntity<?> getClients(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+                                        @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+                                        @RequestParam(defaultValue = "50") int limit,
+                                        WebRequest request) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_CLIENTS));
+        return ConditionalGet.respond(request, resourceVersions.etag(Resource.REVENUE),
+                () -> summaryRepository.totalsByClient(from.toString(), to.toString(), Limit.of(pageSize)));
+    }
+
+    // 3. Revenue per Owner (the user who booked the release orders)
+    @GetMapping("/owners")
+    public ResponseEntity<?> getOwners(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+                                       @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+                                       WebRequest request) {
+        return ConditionalGet.respond(request, resourceVersions.etag(Resource.REVENUE),
+                () -> summaryRepository.totalsByOwner(from.toString(), to.toString()));
+    }
+
+    // 4. Rebuild the Summary from the invoices (after a data fix or restore)
+    @PostMapping("/rebuild")
+    public ResponseEntity<?> rebuild() {
+        try {
+            return ResponseEntity.ok(Map.of("rows", revenueReadModel.rebuild()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.sribalajiads.billing_application.dto;
+
+import com.sribalajiads.billing_application.model.AuditEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class AuditPage {
+    private List<AuditEvent> events;
+
+    // Pass back as ?before= to get the next (older) page; null when this is the last page
+    private Long nextCursor;
+}
@@ -0,0 +1,18 @@
+package com.sribalajiads.billing_application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class AvailabilityReport {
+    private String inventoryCode;
+    private LocalDate from;
+    private LocalDate to;
+    private boolean available;
+    private List<BookedPeriod> conflicts;
+    private List<DateRange> freeRanges;
+}
@@ -0,0 +1,22 @@
+package com.sribalajiads.billing_application.dto;
+
+import com.sribalajiads.billing_application.model.BillingRunStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class BillingRunProgress {
+    private Long id;
+    private String period;
+    private BillingRunStatus status;
+    private int totalChunks;
+    private long completedChunks;
+    private long invoices;
+    private String startedBy;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String lastError;
+}
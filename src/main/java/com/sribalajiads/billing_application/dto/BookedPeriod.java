@@ -0,0 +1,14 @@
+package com.sribalajiads.billing_application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class BookedPeriod {
+    private Long releaseOrderId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+}
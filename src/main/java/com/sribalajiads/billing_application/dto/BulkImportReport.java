@@ -0,0 +1,28 @@
+package com.sribalajiads.billing_application.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Data
+public class BulkImportReport {
+    private int created;
+    private int duplicates;
+    private int invalid;
+    private List<ImportRowResult> rows = new ArrayList<>();
+
+    public void add(ImportRowResult result) {
+        rows.add(result);
+        switch (result.getStatus()) {
+            case CREATED -> created++;
+            case DUPLICATE -> duplicates++;
+            case INVALID -> invalid++;
+        }
+    }
+
+    public void sortByRow() {
+        rows.sort(Comparator.comparingInt(ImportRowResult::getRow));
+    }
+}
@@ -0,0 +1,13 @@
+package com.sribalajiads.billing_application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class DateRange {
+    private LocalDate from;
+    private LocalDate to;
+}
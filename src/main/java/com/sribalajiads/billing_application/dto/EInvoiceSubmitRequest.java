@@ -0,0 +1,13 @@
+package com.sribalajiads.billing_application.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class EInvoiceSubmitRequest {
+    @NotEmpty @Size(max = 5000)
+    private List<Long> invoiceIds;
+}
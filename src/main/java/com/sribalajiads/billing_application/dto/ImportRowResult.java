@@ -0,0 +1,16 @@
+package com.sribalajiads.billing_application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ImportRowResult {
+    public enum Status { CREATED, DUPLICATE, INVALID }
+
+    private int row;
+    private String email;
+    private Status status;
+    private Long id;
+    private String message;
+}
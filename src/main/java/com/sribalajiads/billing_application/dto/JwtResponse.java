@@ -7,13 +7,17 @@ import java.util.List;
 public class JwtResponse {
     private String token;
     private String type = "Bearer";
+    private long expiresIn; // seconds until the access token expires
+    private String refreshToken;
     private Long id;
     private String name;
     private String email;
     private List<String> roles;
 
-    public JwtResponse(String accessToken, Long id, String name, String email, List<String> roles) {
+    public JwtResponse(String accessToken, long expiresIn, String refreshToken, Long id, String name, String email, List<String> roles) {
         this.token = accessToken;
+        this.expiresIn = expiresIn;
+        this.refreshToken = refreshToken;
         this.id = id;
         this.name = name;
         this.email = email;
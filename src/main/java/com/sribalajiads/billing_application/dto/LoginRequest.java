@@ -1,11 +1,12 @@
 package com.sribalajiads.billing_application.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Data
 public class LoginRequest {
-    @NotBlank
+    @NotBlank @Size(max = 255)
     private String email;
     @NotBlank
     private String password;
@@ -0,0 +1,30 @@
+package com.sribalajiads.billing_application.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Data
+public class ReleaseOrderBatchReport {
+    private int created;
+    private int duplicates;
+    private int conflicts;
+    private int invalid;
+    private List<ReleaseOrderResult> results = new ArrayList<>();
+
+    public void add(ReleaseOrderResult result) {
+        results.add(result);
+        switch (result.getStatus()) {
+            case CREATED -> created++;
+            case DUPLICATE -> duplicates++;
+            case CONFLICT -> conflicts++;
+            case INVALID -> invalid++;
+        }
+    }
+
+    public void sortByIndex() {
+        results.sort(Comparator.comparingInt(ReleaseOrderResult::getIndex));
+    }
+}
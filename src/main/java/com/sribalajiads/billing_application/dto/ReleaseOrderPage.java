@@ -0,0 +1,16 @@
+package com.sribalajiads.billing_application.dto;
+
+import com.sribalajiads.billing_application.model.ReleaseOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ReleaseOrderPage {
+    private List<ReleaseOrder> orders;
+
+    // Pass back as ?before= to get the next (older) page; null when this is the last page
+    private Long nextCursor;
+}
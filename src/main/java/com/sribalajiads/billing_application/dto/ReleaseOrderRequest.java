@@ -0,0 +1,37 @@
+package com.sribalajiads.billing_application.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+public class ReleaseOrderRequest {
+    @NotBlank @Size(max = 64)
+    private String idempotencyKey;
+
+    @NotBlank @Size(max = 100)
+    private String clientName;
+
+    @Pattern(regexp = "[0-9A-Z]{15}")
+    private String clientGstin;
+
+    @NotBlank @Pattern(regexp = "\\d{2}")
+    private String clientStateCode;
+
+    @NotBlank @Size(max = 64)
+    private String inventoryCode;
+
+    @Size(max = 500)
+    private String description;
+
+    @NotNull
+    private LocalDate startDate;
+
+    @NotNull
+    private LocalDate endDate;
+
+    @NotNull @DecimalMin("0.01") @Digits(integer = 12, fraction = 2)
+    private BigDecimal amount;
+}
@@ -0,0 +1,17 @@
+package com.sribalajiads.billing_application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ReleaseOrderResult {
+    // DUPLICATE: the key was seen before with the same order (a retry); CONFLICT: same key, different order
+    public enum Status { CREATED, DUPLICATE, CONFLICT, INVALID }
+
+    private int index;
+    private String idempotencyKey;
+    private Status status;
+    private Long id;
+    private String message;
+}
@@ -0,0 +1,28 @@
+package com.sribalajiads.billing_application.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// One report line: the month, client or owner it is grouped by, with totals per tax head
+@Data
+public class RevenueTotals {
+    private String key;
+    private long invoiceCount;
+    private BigDecimal taxableAmount;
+    private BigDecimal cgst;
+    private BigDecimal sgst;
+    private BigDecimal igst;
+    private BigDecimal totalAmount;
+
+    public RevenueTotals(String key, Long invoiceCount, BigDecimal taxableAmount, BigDecimal cgst, BigDecimal sgst,
+                         BigDecimal igst, BigDecimal totalAmount) {
+        this.key = key;
+        this.invoiceCount = invoiceCount == null ? 0 : invoiceCount;
+        this.taxableAmount = taxableAmount;
+        this.cgst = cgst;
+        this.sgst = sgst;
+        this.igst = igst;
+        this.totalAmount = totalAmount;
+    }
+}
@@ -0,0 +1,15 @@
+package com.sribalajiads.billing_application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class UserPage {
+    private List<UserSummary> users;
+
+    // Pass back as ?after= to get the next page; null when this is the last page
+    private Long nextCursor;
+}
@@ -0,0 +1,27 @@
+package com.sribalajiads.billing_application.dto;
+
+import com.sribalajiads.billing_application.model.ERole;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Lean view of a user for admin listings; never carries the password hash
+@Data
+@NoArgsConstructor
+public class UserSummary {
+    private Long id;
+    private String name;
+    private String email;
+    private boolean active;
+    private List<String> roles = new ArrayList<>();
+
+    public UserSummary(Long id, String name, String email, boolean active, int roleMask) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.active = active;
+        ERole.fromMask(roleMask).forEach(role -> roles.add(role.name()));
+    }
+}
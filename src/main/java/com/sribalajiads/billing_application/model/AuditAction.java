@@ -0,0 +1,8 @@
+package com.sribalajiads.billing_application.model;
+
+public enum AuditAction {
+    LOGIN,
+    USER_CREATED,
+    ROLES_CHANGED,
+    STATUS_CHANGED
+}
@@ -0,0 +1,64 @@
+package com.sribalajiads.billing_application.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Append-only audit trail of logins and admin changes; written in batches by AuditLog
+@Entity
+@Table(name = "audit_events", indexes = {
+        @Index(columnList = "occurredAt"),
+        @Index(columnList = "actor"),
+        @Index(columnList = "targetUserId")
+})
+@Data
+@NoArgsConstructor
+public class AuditEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private LocalDateTime occurredAt;
+
+    // Email of the logged-in user, the attempted email for logins, or SYSTEM
+    @Column(length = 100)
+    private String actor;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30)
+    private AuditAction action;
+
+    private Long targetUserId;
+
+    @Column(length = 100)
+    private String targetEmail;
+
+    // False for refused changes and failed logins
+    private boolean success;
+
+    @Column(length = 1000)
+    private String detail;
+
+    @Column(length = 45)
+    private String sourceIp;
+
+    // Cut to the column widths: a failed login records whatever email was typed, and one over-long value
+    // would otherwise fail the whole batch it is written in
+    public AuditEvent(String actor, AuditAction action, Long targetUserId, String targetEmail,
+                      boolean success, String detail, String sourceIp) {
+        this.occurredAt = LocalDateTime.now();
+        this.actor = truncate(actor, 100);
+        this.action = action;
+        this.targetUserId = targetUserId;
+        this.targetEmail = truncate(targetEmail, 100);
+        this.success = success;
+        this.detail = truncate(detail, 1000);
+        this.sourceIp = truncate(sourceIp, 45);
+    }
+
+    private static String truncate(String value, int length) {
+        return value != null && value.length() > length ? value.substring(0, length) : value;
+    }
+}
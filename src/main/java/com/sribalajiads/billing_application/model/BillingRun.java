@@ -0,0 +1,43 @@
+package com.sribalajiads.billing_application.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One invoice generation run over a month's release orders; progress lives in its BillingRunChunk rows
+@Entity
+@Table(name = "billing_runs", indexes = {@Index(columnList = "period")},
+        uniqueConstraints = {@UniqueConstraint(name = "uk_billing_runs_active_period", columnNames = {"activePeriod"})})
+@Data
+@NoArgsConstructor
+public class BillingRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Release orders starting in this month, as yyyy-MM
+    @Column(length = 7, nullable = false)
+    private String period;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private BillingRunStatus status = BillingRunStatus.RUNNING;
+
+    // The period while the run is RUNNING, otherwise null, so the unique key allows one running run per month
+    @Column(length = 7)
+    private String activePeriod;
+
+    private int totalChunks;
+
+    @Column(length = 100, nullable = false, updatable = false)
+    private String startedBy;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    @Column(length = 1000)
+    private String lastError;
+}
@@ -0,0 +1,37 @@
+package com.sribalajiads.billing_application.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A slice of a billing run's release orders by id range; marked done in the same transaction that writes its invoices
+@Entity
+@Table(name = "billing_run_chunks", indexes = {@Index(columnList = "runId, done")})
+@Data
+@NoArgsConstructor
+public class BillingRunChunk {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long runId;
+
+    private long firstReleaseOrderId;
+
+    private long lastReleaseOrderId;
+
+    private boolean done;
+
+    private int invoiceCount;
+
+    private LocalDateTime completedAt;
+
+    public BillingRunChunk(Long runId, long firstReleaseOrderId, long lastReleaseOrderId) {
+        this.runId = runId;
+        this.firstReleaseOrderId = firstReleaseOrderId;
+        this.lastReleaseOrderId = lastReleaseOrderId;
+    }
+}
@@ -0,0 +1,7 @@
+package com.sribalajiads.billing_application.model;
+
+public enum BillingRunStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
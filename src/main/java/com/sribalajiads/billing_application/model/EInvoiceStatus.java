@@ -0,0 +1,8 @@
+package com.sribalajiads.billing_application.model;
+
+public enum EInvoiceStatus {
+    PENDING,
+    IN_FLIGHT,
+    REGISTERED,
+    REJECTED
+}
@@ -0,0 +1,64 @@
+package com.sribalajiads.billing_application.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Durable e-invoice queue entry and state for one invoice; claimed and updated by EInvoiceDispatcher
+@Entity
+@Table(name = "einvoice_submissions",
+        uniqueConstraints = {@UniqueConstraint(name = "uk_einvoice_submissions_invoice", columnNames = "invoiceId")},
+        indexes = {
+                @Index(columnList = "status, nextAttemptAt"),
+                @Index(columnList = "claimToken")
+        })
+@Data
+@NoArgsConstructor
+public class EInvoiceSubmission {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long invoiceId;
+
+    @Column(length = 16, nullable = false)
+    private String invoiceNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private EInvoiceStatus status = EInvoiceStatus.PENDING;
+
+    private int attempts;
+
+    // Earliest time the dispatcher may send it (again)
+    private LocalDateTime nextAttemptAt;
+
+    // Set when a dispatcher claims the row; a claim older than the lease is assumed lost and released
+    @Column(length = 36)
+    private String claimToken;
+
+    private LocalDateTime claimedAt;
+
+    // Invoice Reference Number assigned by the IRP
+    @Column(length = 64)
+    private String irn;
+
+    @Column(length = 20)
+    private String ackNumber;
+
+    private LocalDateTime ackDate;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @Column(length = 100, nullable = false, updatable = false)
+    private String createdBy;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
@@ -1,9 +1,35 @@
 package com.sribalajiads.billing_application.model;
 
+import java.util.Collection;
+import java.util.EnumSet;
+
+// Stored as bits of users.role_mask (bit = ordinal), so new roles go at the end and existing ones never move
 public enum ERole {
     ROLE_PLANNER,
     ROLE_RO_CREATOR,
     ROLE_E_INVOICE_CREATOR,
     ROLE_INVOICE_CREATOR,
-    ROLE_ADMIN
-}
\ No newline at end of file
+    ROLE_ADMIN;
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public static int mask(Collection<ERole> roles) {
+        int mask = 0;
+        for (ERole role : roles) {
+            mask |= role.bit();
+        }
+        return mask;
+    }
+
+    public static EnumSet<ERole> fromMask(int mask) {
+        EnumSet<ERole> roles = EnumSet.noneOf(ERole.class);
+        for (ERole role : values()) {
+            if ((mask & role.bit()) != 0) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+}
@@ -0,0 +1,84 @@
+package com.sribalajiads.billing_application.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One tax invoice per release order; the unique releaseOrderId keeps a resumed or repeated billing run from billing twice
+@Entity
+@Table(name = "invoices",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_invoices_number", columnNames = "invoiceNumber"),
+                @UniqueConstraint(name = "uk_invoices_release_order", columnNames = "releaseOrderId")
+        },
+        indexes = {
+                @Index(columnList = "invoiceDate"),
+                @Index(columnList = "billingRunId")
+        })
+@Data
+@NoArgsConstructor
+public class Invoice {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // e.g. SBA/25-26/000042; GST caps invoice numbers at 16 characters
+    @Column(length = 16, nullable = false)
+    private String invoiceNumber;
+
+    @Column(length = 10, nullable = false)
+    private String series;
+
+    // Indian financial year, April to March, e.g. "25-26"
+    @Column(length = 5, nullable = false)
+    private String financialYear;
+
+    private long sequenceNumber;
+
+    @Column(nullable = false)
+    private LocalDate invoiceDate;
+
+    @Column(nullable = false)
+    private Long releaseOrderId;
+
+    private Long billingRunId;
+
+    @Column(length = 100, nullable = false)
+    private String clientName;
+
+    @Column(length = 15)
+    private String clientGstin;
+
+    // Place of supply; decides CGST + SGST versus IGST
+    @Column(length = 2, nullable = false)
+    private String clientStateCode;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal taxableAmount;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal cgst;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal sgst;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal igst;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal totalAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private InvoiceStatus status = InvoiceStatus.ISSUED;
+
+    @Column(length = 100, nullable = false, updatable = false)
+    private String createdBy;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,24 @@
+package com.sribalajiads.billing_application.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Next invoice number per series and financial year
+@Entity
+@Table(name = "invoice_sequences", uniqueConstraints = {@UniqueConstraint(columnNames = {"series", "financialYear"})})
+@Data
+@NoArgsConstructor
+public class InvoiceSequence {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 10, nullable = false)
+    private String series;
+
+    @Column(length = 5, nullable = false)
+    private String financialYear;
+
+    private long nextValue = 1;
+}
@@ -0,0 +1,6 @@
+package com.sribalajiads.billing_application.model;
+
+public enum InvoiceStatus {
+    ISSUED,
+    CANCELLED
+}
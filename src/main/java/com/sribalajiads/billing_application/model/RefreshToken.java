@@ -0,0 +1,41 @@
+package com.sribalajiads.billing_application.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One row per issued refresh token; only a SHA-256 of the token is stored. Rotations of one login share a family.
+@Entity
+@Table(name = "refresh_tokens", indexes = {@Index(columnList = "familyId"), @Index(columnList = "userId"), @Index(columnList = "expiresAt")})
+@Data
+@NoArgsConstructor
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 44)
+    private String tokenHash;
+
+    @Column(nullable = false, length = 36)
+    private String familyId;
+
+    private Long userId;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime expiresAt;
+
+    // Set when rotated or logged out; presenting a revoked token again revokes the whole family
+    private LocalDateTime revokedAt;
+
+    public RefreshToken(String tokenHash, String familyId, Long userId, LocalDateTime expiresAt) {
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.userId = userId;
+        this.createdAt = LocalDateTime.now();
+        this.expiresAt = expiresAt;
+    }
+}
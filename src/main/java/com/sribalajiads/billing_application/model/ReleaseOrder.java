@@ -0,0 +1,83 @@
+package com.sribalajiads.billing_application.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// A booked ad placement; inserted in batches by ReleaseOrderService, which relies on the unique key below for idempotency
+@Entity
+@Table(name = "release_orders",
+        uniqueConstraints = {@UniqueConstraint(name = "uk_release_orders_idempotency", columnNames = {"createdBy", "idempotencyKey"})},
+        indexes = {
+                @Index(columnList = "startDate"),
+                @Index(columnList = "inventoryCode, startDate"),
+                @Index(columnList = "createdBy, id"),
+                @Index(columnList = "cancelledAt")
+        })
+@Data
+@NoArgsConstructor
+public class ReleaseOrder {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Chosen by the client; a retry with the same key returns the original order instead of booking twice
+    @Column(length = 64, nullable = false)
+    private String idempotencyKey;
+
+    @Column(length = 100, nullable = false)
+    private String clientName;
+
+    @Column(length = 15)
+    private String clientGstin;
+
+    // GST state code of the client's place of supply, e.g. "36" for Telangana
+    @Column(length = 2, nullable = false)
+    private String clientStateCode;
+
+    // The publication slot or outdoor space being booked
+    @Column(length = 64, nullable = false)
+    private String inventoryCode;
+
+    @Column(length = 500)
+    private String description;
+
+    @Column(nullable = false)
+    private LocalDate startDate;
+
+    @Column(nullable = false)
+    private LocalDate endDate;
+
+    // Taxable value before GST
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private ReleaseOrderStatus status = ReleaseOrderStatus.BOOKED;
+
+    // Set when the order is cancelled; lets other nodes pick up cancellations by polling
+    private LocalDateTime cancelledAt;
+
+    // Email of the RO creator; also scopes the idempotency key
+    @Column(length = 100, nullable = false, updatable = false)
+    private String createdBy;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // SHA-256 of the submitted fields, to tell a retry from a different order reusing the key
+    @JsonIgnore
+    @Column(length = 44, nullable = false, updatable = false)
+    private String payloadHash;
+
+    // Which submission inserted the row, so a batch can tell its own inserts from earlier ones
+    @JsonIgnore
+    @Column(length = 36, nullable = false, updatable = false)
+    private String submissionId;
+}
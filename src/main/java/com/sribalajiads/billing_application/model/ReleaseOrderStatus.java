@@ -0,0 +1,7 @@
+package com.sribalajiads.billing_application.model;
+
+public enum ReleaseOrderStatus {
+    BOOKED,
+    BILLED,
+    CANCELLED
+}
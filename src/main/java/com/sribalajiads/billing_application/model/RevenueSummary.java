@@ -0,0 +1,58 @@
+package com.sribalajiads.billing_application.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Issued-invoice totals per (month, client, owner), kept in step with invoice changes inside the same transaction
+@Entity
+@Table(name = "revenue_summary",
+        uniqueConstraints = @UniqueConstraint(name = "uk_revenue_summary_key", columnNames = {"period", "clientName", "owner"}),
+        indexes = {
+                @Index(columnList = "clientName, period"),
+                @Index(columnList = "owner, period")
+        })
+@Data
+@NoArgsConstructor
+public class RevenueSummary {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Invoice month, "yyyy-MM"
+    @Column(length = 7, nullable = false)
+    private String period;
+
+    @Column(length = 100, nullable = false)
+    private String clientName;
+
+    // User who booked the release order behind the invoice
+    @Column(length = 100, nullable = false)
+    private String owner;
+
+    private long invoiceCount;
+
+    @Column(precision = 16, scale = 2, nullable = false)
+    private BigDecimal taxableAmount;
+
+    @Column(precision = 16, scale = 2, nullable = false)
+    private BigDecimal cgst;
+
+    @Column(precision = 16, scale = 2, nullable = false)
+    private BigDecimal sgst;
+
+    @Column(precision = 16, scale = 2, nullable = false)
+    private BigDecimal igst;
+
+    @Column(precision = 16, scale = 2, nullable = false)
+    private BigDecimal totalAmount;
+
+    @Column(length = 100, nullable = false)
+    private String updatedBy;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
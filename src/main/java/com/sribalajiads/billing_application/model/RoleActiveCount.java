@@ -0,0 +1,24 @@
+package com.sribalajiads.billing_application.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Number of active users holding each role, kept in step with user changes inside the same transaction
+@Entity
+@Table(name = "role_active_counts")
+@Data
+@NoArgsConstructor
+public class RoleActiveCount {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30)
+    private ERole role;
+
+    private long activeCount;
+
+    public RoleActiveCount(ERole role, long activeCount) {
+        this.role = role;
+        this.activeCount = activeCount;
+    }
+}
@@ -11,7 +11,7 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.EnumSet;
 import java.util.Set;
 
 @Entity
@@ -36,6 +36,9 @@ public class User {
 
     private boolean active = true;
 
+    // Bumped whenever roles or status change, so tokens issued before the change are detected as stale
+    private long securityVersion = 0;
+
     // --- NEW AUDITING FIELDS ---
 
     @CreatedBy
@@ -51,15 +54,25 @@ public class User {
 
     // ---------------------------
 
-    @ManyToMany(fetch = FetchType.EAGER)
-    @JoinTable(name = "user_roles",
-            joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "role_id"))
-    private Set<Role> roles = new HashSet<>();
+    // Roles as a bit set over ERole, so loading a user reads this one table (see RoleMaskMigration for the old user_roles join)
+    @Column(nullable = false)
+    private int roleMask;
 
     public User(String name, String email, String password) {
         this.name = name;
         this.email = email;
         this.password = password;
     }
+
+    public EnumSet<ERole> getRoles() {
+        return ERole.fromMask(roleMask);
+    }
+
+    public void setRoles(Set<ERole> roles) {
+        this.roleMask = ERole.mask(roles);
+    }
+
+    public void bumpSecurityVersion() {
+        this.securityVersion++;
+    }
 }
\ No newline at end of file
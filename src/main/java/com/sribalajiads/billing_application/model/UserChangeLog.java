@@ -0,0 +1,34 @@
+package com.sribalajiads.billing_application.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One row per user mutation; every node polls this table to invalidate its own caches
+@Entity
+@Table(name = "user_change_log", indexes = {@Index(columnList = "changedAt")})
+@Data
+@NoArgsConstructor
+public class UserChangeLog {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long userId;
+
+    @Column(length = 100)
+    private String email;
+
+    private long securityVersion;
+
+    private LocalDateTime changedAt;
+
+    public UserChangeLog(Long userId, String email, long securityVersion) {
+        this.userId = userId;
+        this.email = email;
+        this.securityVersion = securityVersion;
+        this.changedAt = LocalDateTime.now();
+    }
+}
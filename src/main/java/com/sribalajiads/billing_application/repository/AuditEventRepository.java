@@ -0,0 +1,26 @@
+package com.sribalajiads.billing_application.repository;
+
+import com.sribalajiads.billing_application.model.AuditAction;
+import com.sribalajiads.billing_application.model.AuditEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AuditEventRepository extends JpaRepository<AuditEvent, Long> {
+
+    // Newest first, keyset-paginated on id; null filters are ignored
+    @Query("select e from AuditEvent e where e.id < :before " +
+            "and (:actor is null or e.actor = :actor) " +
+            "and (:action is null or e.action = :action) " +
+            "and (:targetUserId is null or e.targetUserId = :targetUserId) " +
+            "and (cast(:from as LocalDateTime) is null or e.occurredAt >= :from) " +
+            "and (cast(:to as LocalDateTime) is null or e.occurredAt < :to) " +
+            "order by e.id desc")
+    List<AuditEvent> findPage(long before, String actor, AuditAction action, Long targetUserId,
+                              LocalDateTime from, LocalDateTime to, Limit limit);
+}
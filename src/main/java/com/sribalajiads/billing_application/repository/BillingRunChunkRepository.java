@@ -0,0 +1,27 @@
+package com.sribalajiads.billing_application.repository;
+
+import com.sribalajiads.billing_application.model.BillingRunChunk;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface BillingRunChunkRepository extends JpaRepository<BillingRunChunk, Long> {
+
+    // Locks the checkpoint so two workers (or nodes) resuming the same run cannot both process a chunk
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from BillingRunChunk c where c.id = :id")
+    Optional<BillingRunChunk> findForUpdateById(@Param("id") Long id);
+
+    @Query("select c.id from BillingRunChunk c where c.runId = :runId and c.done = false order by c.id")
+    List<Long> findPendingIds(@Param("runId") Long runId);
+
+    long countByRunIdAndDoneTrue(Long runId);
+
+    @Query("select coalesce(sum(c.invoiceCount), 0) from BillingRunChunk c where c.runId = :runId")
+    long sumInvoiceCount(@Param("runId") Long runId);
+}
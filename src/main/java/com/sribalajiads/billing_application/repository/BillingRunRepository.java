@@ -0,0 +1,13 @@
+package com.sribalajiads.billing_application.repository;
+
+import com.sribalajiads.billing_application.model.BillingRun;
+import com.sribalajiads.billing_application.model.BillingRunStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface BillingRunRepository extends JpaRepository<BillingRun, Long> {
+    boolean existsByPeriodAndStatus(String period, BillingRunStatus status);
+
+    List<BillingRun> findByStatus(BillingRunStatus status);
+}
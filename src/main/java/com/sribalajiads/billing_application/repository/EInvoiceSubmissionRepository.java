@@ -0,0 +1,53 @@
+package com.sribalajiads.billing_application.repository;
+
+import com.sribalajiads.billing_application.model.EInvoiceSubmission;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface EInvoiceSubmissionRepository extends JpaRepository<EInvoiceSubmission, Long> {
+
+    Optional<EInvoiceSubmission> findByInvoiceId(Long invoiceId);
+
+    List<EInvoiceSubmission> findByClaimToken(String claimToken);
+
+    @Query("select s.id from EInvoiceSubmission s " +
+            "where s.status = com.sribalajiads.billing_application.model.EInvoiceStatus.PENDING and s.nextAttemptAt <= :now " +
+            "order by s.nextAttemptAt")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Limit limit);
+
+    // Claims whichever of these rows are still pending; rows another node claimed first are skipped, not waited on
+    @Modifying
+    @Transactional
+    @Query("update EInvoiceSubmission s set s.status = com.sribalajiads.billing_application.model.EInvoiceStatus.IN_FLIGHT, " +
+            "s.claimToken = :token, s.claimedAt = :now, s.updatedAt = :now " +
+            "where s.id in :ids and s.status = com.sribalajiads.billing_application.model.EInvoiceStatus.PENDING")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now);
+
+    // Claims held past the lease belong to a dispatcher that died mid-call; the IRP answers a resend with the same IRN
+    @Modifying
+    @Transactional
+    @Query("update EInvoiceSubmission s set s.status = com.sribalajiads.billing_application.model.EInvoiceStatus.PENDING, " +
+            "s.claimToken = null, s.nextAttemptAt = :now, s.updatedAt = :now " +
+            "where s.status = com.sribalajiads.billing_application.model.EInvoiceStatus.IN_FLIGHT and s.claimedAt < :cutoff")
+    int releaseStale(@Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("update EInvoiceSubmission s set s.status = com.sribalajiads.billing_application.model.EInvoiceStatus.PENDING, " +
+            "s.attempts = 0, s.lastError = null, s.nextAttemptAt = :now, s.updatedAt = :now " +
+            "where s.invoiceId = :invoiceId and s.status = com.sribalajiads.billing_application.model.EInvoiceStatus.REJECTED")
+    int requeueRejected(@Param("invoiceId") Long invoiceId, @Param("now") LocalDateTime now);
+
+    // (status, count) pairs
+    @Query("select s.status, count(s) from EInvoiceSubmission s group by s.status")
+    List<Object[]> countByStatus();
+}
@@ -0,0 +1,22 @@
+package com.sribalajiads.billing_application.repository;
+
+import com.sribalajiads.billing_application.model.Invoice;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+    long countByBillingRunId(Long billingRunId);
+
+    List<Invoice> findByBillingRunIdOrderBySequenceNumber(Long billingRunId);
+
+    // Locked so a double-clicked cancel reverses the revenue figures only once
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Invoice i where i.id = :id")
+    Optional<Invoice> findForUpdateById(@Param("id") Long id);
+}
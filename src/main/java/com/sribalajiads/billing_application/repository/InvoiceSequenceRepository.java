@@ -0,0 +1,19 @@
+package com.sribalajiads.billing_application.repository;
+
+import com.sribalajiads.billing_application.model.InvoiceSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface InvoiceSequenceRepository extends JpaRepository<InvoiceSequence, Long> {
+    boolean existsBySeriesAndFinancialYear(String series, String financialYear);
+
+    // SELECT ... FOR UPDATE on the counter row
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from InvoiceSequence s where s.series = :series and s.financialYear = :financialYear")
+    Optional<InvoiceSequence> findForUpdate(@Param("series") String series, @Param("financialYear") String financialYear);
+}
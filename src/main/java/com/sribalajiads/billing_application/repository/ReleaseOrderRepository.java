@@ -0,0 +1,61 @@
+package com.sribalajiads.billing_application.repository;
+
+import com.sribalajiads.billing_application.model.ReleaseOrder;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReleaseOrderRepository extends JpaRepository<ReleaseOrder, Long> {
+
+    Optional<ReleaseOrder> findByIdAndCreatedBy(Long id, String createdBy);
+
+    // (id, idempotencyKey, payloadHash, submissionId) for one creator's keys; served by the unique index
+    @Query("select r.id, r.idempotencyKey, r.payloadHash, r.submissionId from ReleaseOrder r " +
+            "where r.createdBy = :createdBy and r.idempotencyKey in :keys")
+    List<Object[]> findByKeys(@Param("createdBy") String createdBy, @Param("keys") Collection<String> keys);
+
+    // Keyset page of one creator's orders, newest first
+    @Query("select r from ReleaseOrder r where r.createdBy = :createdBy and r.id < :beforeId order by r.id desc")
+    List<ReleaseOrder> findPage(@Param("createdBy") String createdBy, @Param("beforeId") long beforeId, Limit limit);
+
+    // Ids of unbilled orders starting in [from, to], for splitting a billing run into chunks
+    @Query("select r.id from ReleaseOrder r where r.status = com.sribalajiads.billing_application.model.ReleaseOrderStatus.BOOKED " +
+            "and r.startDate between :from and :to order by r.id")
+    List<Long> findIdsToBill(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Locks one chunk's unbilled orders so a concurrent cancellation waits for the chunk to commit
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from ReleaseOrder r where r.id between :firstId and :lastId " +
+            "and r.status = com.sribalajiads.billing_application.model.ReleaseOrderStatus.BOOKED " +
+            "and r.startDate between :from and :to order by r.id")
+    List<ReleaseOrder> findForUpdateToBill(@Param("firstId") long firstId, @Param("lastId") long lastId,
+                                           @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("update ReleaseOrder r set r.status = com.sribalajiads.billing_application.model.ReleaseOrderStatus.BILLED where r.id in :ids")
+    int markBilled(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from ReleaseOrder r where r.id = :id and r.createdBy = :createdBy")
+    Optional<ReleaseOrder> findForUpdateByIdAndCreatedBy(@Param("id") Long id, @Param("createdBy") String createdBy);
+
+    // (id, inventoryCode, startDate, endDate, status) of orders created after an id, for the availability index
+    @Query("select r.id, r.inventoryCode, r.startDate, r.endDate, r.status from ReleaseOrder r where r.id > :afterId order by r.id")
+    List<Object[]> findPeriodsAfter(@Param("afterId") long afterId, Limit limit);
+
+    @Query("select r.id from ReleaseOrder r where r.cancelledAt >= :since")
+    List<Long> findIdsCancelledSince(@Param("since") LocalDateTime since);
+
+    @Query("select coalesce(max(r.id), 0) from ReleaseOrder r")
+    long findMaxId();
+}
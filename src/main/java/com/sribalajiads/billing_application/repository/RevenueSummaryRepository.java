@@ -0,0 +1,29 @@
+package com.sribalajiads.billing_application.repository;
+
+import com.sribalajiads.billing_application.dto.RevenueTotals;
+import com.sribalajiads.billing_application.model.RevenueSummary;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+// Report queries group the summary rows only; they never touch the invoices table
+public interface RevenueSummaryRepository extends JpaRepository<RevenueSummary, Long> {
+
+    @Query("select new com.sribalajiads.billing_application.dto.RevenueTotals(s.period, sum(s.invoiceCount), sum(s.taxableAmount), " +
+            "sum(s.cgst), sum(s.sgst), sum(s.igst), sum(s.totalAmount)) from RevenueSummary s " +
+            "where s.period between :from and :to group by s.period order by s.period")
+    List<RevenueTotals> totalsByMonth(@Param("from") String from, @Param("to") String to);
+
+    @Query("select new com.sribalajiads.billing_application.dto.RevenueTotals(s.clientName, sum(s.invoiceCount), sum(s.taxableAmount), " +
+            "sum(s.cgst), sum(s.sgst), sum(s.igst), sum(s.totalAmount)) from RevenueSummary s " +
+            "where s.period between :from and :to group by s.clientName order by sum(s.totalAmount) desc, s.clientName")
+    List<RevenueTotals> totalsByClient(@Param("from") String from, @Param("to") String to, Limit limit);
+
+    @Query("select new com.sribalajiads.billing_application.dto.RevenueTotals(s.owner, sum(s.invoiceCount), sum(s.taxableAmount), " +
+            "sum(s.cgst), sum(s.sgst), sum(s.igst), sum(s.totalAmount)) from RevenueSummary s " +
+            "where s.period between :from and :to group by s.owner order by sum(s.totalAmount) desc, s.owner")
+    List<RevenueTotals> totalsByOwner(@Param("from") String from, @Param("to") String to);
+}
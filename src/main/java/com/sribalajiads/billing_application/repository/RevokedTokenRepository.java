@@ -0,0 +1,27 @@
+package com.sribalajiads.billing_application.repository;
+
+import com.sribalajiads.billing_application.model.RevokedToken;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+
+    List<RevokedToken> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    @Query("select coalesce(max(r.id), 0) from RevokedToken r")
+    long findMaxId();
+
+    boolean existsByJti(String jti);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RevokedToken r where r.expiresAt < :cutoff")
+    int deleteExpiredBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,20 @@
+package com.sribalajiads.billing_application.repository;
+
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.model.RoleActiveCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface RoleActiveCountRepository extends JpaRepository<RoleActiveCount, ERole> {
+
+    @Modifying
+    @Query("update RoleActiveCount c set c.activeCount = c.activeCount + :delta where c.role = :role")
+    int adjust(@Param("role") ERole role, @Param("delta") long delta);
+
+    // Row-locking conditional update: returns 0 instead of taking the count below one
+    @Modifying
+    @Query("update RoleActiveCount c set c.activeCount = c.activeCount - 1 where c.role = :role and c.activeCount > 1")
+    int decrementUnlessLast(@Param("role") ERole role);
+}
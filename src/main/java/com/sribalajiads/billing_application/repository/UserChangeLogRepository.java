@@ -0,0 +1,23 @@
+package com.sribalajiads.billing_application.repository;
+
+import com.sribalajiads.billing_application.model.UserChangeLog;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface UserChangeLogRepository extends JpaRepository<UserChangeLog, Long> {
+    List<UserChangeLog> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    @Query("select coalesce(max(c.id), 0) from UserChangeLog c")
+    long findMaxId();
+
+    @Modifying
+    @Transactional
+    @Query("delete from UserChangeLog c where c.changedAt < :cutoff")
+    int deleteOlderThan(LocalDateTime cutoff);
+}
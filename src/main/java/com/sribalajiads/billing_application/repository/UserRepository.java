@@ -1,13 +1,61 @@
 package com.sribalajiads.billing_application.repository;
 
+import com.sribalajiads.billing_application.dto.UserSummary;
 import com.sribalajiads.billing_application.model.ERole;
 import com.sribalajiads.billing_application.model.User;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     Boolean existsByEmail(String email);
 
-    long countByRolesNameAndActiveTrue(ERole roleName);
-}
\ No newline at end of file
+    // SELECT ... FOR UPDATE on the user row, for admin mutations
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from User u where u.id = :id")
+    Optional<User> findForUpdateById(@Param("id") Long id);
+
+    // bitand is a Hibernate function (& on MySQL, BITAND on H2); the cast lets H2 type the parameter
+    @Query("select count(u) from User u where u.active = true and bitand(u.roleMask, cast(:bit as Integer)) <> 0")
+    long countActiveWithRoleBit(@Param("bit") int bit);
+
+    default long countActiveByRole(ERole role) {
+        return countActiveWithRoleBit(role.bit());
+    }
+
+    // Keyset page over the primary key; selects only the listed columns, never the password. roleBit 0 means any role
+    @Query("select new com.sribalajiads.billing_application.dto.UserSummary(u.id, u.name, u.email, u.active, u.roleMask) " +
+            "from User u where u.id > :afterId " +
+            "and (:active is null or u.active = :active) " +
+            "and (:roleBit = 0 or bitand(u.roleMask, cast(:roleBit as Integer)) <> 0) " +
+            "order by u.id")
+    List<UserSummary> findSummaryPage(@Param("afterId") long afterId, @Param("active") Boolean active,
+                                      @Param("roleBit") int roleBit, Limit limit);
+
+    default List<UserSummary> findSummaryPage(long afterId, Boolean active, ERole role, Limit limit) {
+        return findSummaryPage(afterId, active, role == null ? 0 : role.bit(), limit);
+    }
+
+    // Which of these emails are already taken, in one set-based query
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("select u.id, u.email from User u where u.email in :emails")
+    List<Object[]> findIdsByEmails(@Param("emails") Collection<String> emails);
+
+    @Query("select coalesce(max(u.id), 0) from User u")
+    long findMaxId();
+
+    // (id, name, email, roleMask, active, securityVersion) of users created after an id, for the search index
+    @Query("select u.id, u.name, u.email, u.roleMask, u.active, u.securityVersion from User u where u.id > :afterId order by u.id")
+    List<Object[]> findSearchRowsAfter(@Param("afterId") long afterId, Limit limit);
+}
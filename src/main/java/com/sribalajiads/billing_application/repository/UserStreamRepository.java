@@ -0,0 +1,38 @@
+package com.sribalajiads.billing_application.repository;
+
+import com.sribalajiads.billing_application.dto.UserSummary;
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.util.StreamingQueries;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams the user directory straight off the JDBC cursor, one row per user with roles decoded from role_mask.
+ */
+@Repository
+public class UserStreamRepository {
+
+    @Autowired StreamingQueries streamingQueries;
+
+    public void streamSummaries(Boolean active, ERole role, Consumer<UserSummary> consumer) {
+        StringBuilder sql = new StringBuilder("select u.id, u.name, u.email, u.active, u.role_mask from users u where 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (active != null) {
+            sql.append(" and u.active = ?");
+            args.add(active);
+        }
+        if (role != null) {
+            // Native SQL cannot use Hibernate's bitand, so the bit is tested arithmetically
+            sql.append(" and mod(floor(u.role_mask / ").append(role.bit()).append("), 2) = 1");
+        }
+        sql.append(" order by u.id");
+
+        streamingQueries.query(sql.toString(), rs -> consumer.accept(new UserSummary(rs.getLong("id"), rs.getString("name"),
+                rs.getString("email"), rs.getBoolean("active"), rs.getInt("role_mask"))),
+                args.toArray());
+    }
+}
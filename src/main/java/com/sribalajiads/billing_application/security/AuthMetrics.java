@@ -0,0 +1,126 @@
+package com.sribalajiads.billing_application.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters for each stage of authentication. Meters are registered once up front
+ * so the hot path only records into them; every timer publishes a percentile histogram.
+ */
+@Component
+public class AuthMetrics {
+
+    public static final String FILTER = "billing.auth.filter";
+    public static final String JWT = "billing.auth.jwt";
+    public static final String JWT_INVALID = "billing.auth.jwt.invalid";
+    public static final String USER_LOAD = "billing.auth.user.load";
+    public static final String PASSWORD = "billing.auth.password";
+    public static final String LOGIN = "billing.auth.login";
+    public static final String LOGIN_REJECTED = "billing.auth.login.rejected";
+
+    // Where the filter got its principal from
+    public enum PrincipalSource { CLAIMS, DATABASE, ANONYMOUS }
+
+    public enum JwtOutcome { CACHED, VERIFIED, INVALID }
+
+    public enum UserSource { CACHE, DATABASE }
+
+    public enum PasswordOperation { MATCHES, ENCODE }
+
+    public enum LoginOutcome { SUCCESS, FAILURE }
+
+    public enum InvalidTokenReason { EXPIRED, MALFORMED, SIGNATURE, UNSUPPORTED, EMPTY, REVOKED, OTHER }
+
+    final Map<PrincipalSource, Timer> filterTimers;
+    final Map<JwtOutcome, Timer> jwtTimers;
+    final Map<UserSource, Timer> userLoadTimers;
+    final Map<PasswordOperation, Timer> passwordTimers;
+    final Map<LoginOutcome, Timer> loginTimers;
+    final Map<InvalidTokenReason, Counter> invalidTokens;
+    final Map<LoginRejectedException.Reason, Counter> rejectedLogins;
+
+    public AuthMetrics(MeterRegistry registry) {
+        filterTimers = timers(registry, FILTER, "principal", PrincipalSource.class,
+                "Time spent in the JWT filter per request");
+        jwtTimers = timers(registry, JWT, "outcome", JwtOutcome.class,
+                "JWT parse and signature verification");
+        userLoadTimers = timers(registry, USER_LOAD, "source", UserSource.class,
+                "Loading a user for authentication");
+        passwordTimers = timers(registry, PASSWORD, "operation", PasswordOperation.class,
+                "BCrypt password hashing and checks");
+        loginTimers = timers(registry, LOGIN, "outcome", LoginOutcome.class,
+                "Whole login request, credentials check and token issue");
+
+        invalidTokens = new EnumMap<>(InvalidTokenReason.class);
+        for (InvalidTokenReason reason : InvalidTokenReason.values()) {
+            invalidTokens.put(reason, Counter.builder(JWT_INVALID)
+                    .description("Rejected bearer tokens")
+                    .tag("reason", tagValue(reason))
+                    .register(registry));
+        }
+
+        rejectedLogins = new EnumMap<>(LoginRejectedException.Reason.class);
+        for (LoginRejectedException.Reason reason : LoginRejectedException.Reason.values()) {
+            rejectedLogins.put(reason, Counter.builder(LOGIN_REJECTED)
+                    .description("Logins refused before the password check: rate limited by ip or email, or hashing pool busy")
+                    .tag("reason", tagValue(reason))
+                    .register(registry));
+        }
+    }
+
+    public void recordFilter(PrincipalSource source, long startNanos) {
+        record(filterTimers.get(source), startNanos);
+    }
+
+    public void recordJwt(JwtOutcome outcome, long startNanos) {
+        record(jwtTimers.get(outcome), startNanos);
+    }
+
+    public void recordUserLoad(UserSource source, long startNanos) {
+        record(userLoadTimers.get(source), startNanos);
+    }
+
+    public void recordPassword(PasswordOperation operation, long startNanos) {
+        record(passwordTimers.get(operation), startNanos);
+    }
+
+    public void recordLogin(LoginOutcome outcome, long startNanos) {
+        record(loginTimers.get(outcome), startNanos);
+    }
+
+    public void invalidToken(InvalidTokenReason reason) {
+        invalidTokens.get(reason).increment();
+    }
+
+    public void loginRejected(LoginRejectedException.Reason reason) {
+        rejectedLogins.get(reason).increment();
+    }
+
+    private static void record(Timer timer, long startNanos) {
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static <E extends Enum<E>> Map<E, Timer> timers(MeterRegistry registry, String name, String tag,
+                                                            Class<E> values, String description) {
+        Map<E, Timer> timers = new EnumMap<>(values);
+        for (E value : values.getEnumConstants()) {
+            timers.put(value, Timer.builder(name)
+                    .description(description)
+                    .tag(tag, tagValue(value))
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        return timers;
+    }
+
+    static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase();
+    }
+}
@@ -0,0 +1,118 @@
+package com.sribalajiads.billing_application.security;
+
+import com.sribalajiads.billing_application.security.AuthMetrics.JwtOutcome;
+import com.sribalajiads.billing_application.security.AuthMetrics.PasswordOperation;
+import com.sribalajiads.billing_application.security.AuthMetrics.UserSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /actuator/authperf: where authentication time goes since startup.
+ * The breakdown splits the filter and login time into crypto (HMAC and BCrypt), database user loads,
+ * cache hits and the remainder spent in the filter chain itself; per-stage percentiles cover the last few minutes.
+ */
+@Component
+@Endpoint(id = "authperf")
+public class AuthPerformanceEndpoint {
+
+    @Autowired AuthMetrics authMetrics;
+    @Autowired MeterRegistry meterRegistry;
+
+    @ReadOperation
+    public Map<String, Object> authPerformance() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("breakdown", breakdown());
+        report.put("filter", stats(authMetrics.filterTimers));
+        report.put("jwt", stats(authMetrics.jwtTimers));
+        report.put("userLoad", stats(authMetrics.userLoadTimers));
+        report.put("password", stats(authMetrics.passwordTimers));
+        report.put("login", stats(authMetrics.loginTimers));
+
+        Map<String, Double> invalidTokens = new LinkedHashMap<>();
+        authMetrics.invalidTokens.forEach((reason, counter) -> invalidTokens.put(AuthMetrics.tagValue(reason), counter.count()));
+        report.put("invalidTokens", invalidTokens);
+
+        Map<String, Double> rejectedLogins = new LinkedHashMap<>();
+        authMetrics.rejectedLogins.forEach((reason, counter) -> rejectedLogins.put(AuthMetrics.tagValue(reason), counter.count()));
+        report.put("rejectedLogins", rejectedLogins);
+
+        report.put("adminOperations", adminOperations());
+        return report;
+    }
+
+    private Map<String, Object> breakdown() {
+        double total = totalMs(authMetrics.filterTimers) + totalMs(authMetrics.loginTimers);
+        double crypto = totalMs(authMetrics.jwtTimers.get(JwtOutcome.VERIFIED))
+                + totalMs(authMetrics.jwtTimers.get(JwtOutcome.INVALID))
+                + totalMs(authMetrics.passwordTimers.get(PasswordOperation.MATCHES));
+        double database = totalMs(authMetrics.userLoadTimers.get(UserSource.DATABASE));
+        double cache = totalMs(authMetrics.jwtTimers.get(JwtOutcome.CACHED))
+                + totalMs(authMetrics.userLoadTimers.get(UserSource.CACHE));
+        double filterChain = Math.max(0, total - crypto - database - cache);
+
+        Map<String, Object> breakdown = new LinkedHashMap<>();
+        breakdown.put("totalMs", total);
+        breakdown.put("crypto", share(crypto, total));
+        breakdown.put("database", share(database, total));
+        breakdown.put("cache", share(cache, total));
+        breakdown.put("filterChain", share(filterChain, total));
+        return breakdown;
+    }
+
+    // http.server.requests for /api/admin/**, one entry per method, uri and status
+    private Map<String, Object> adminOperations() {
+        Map<String, Object> operations = new TreeMap<>();
+        for (Timer timer : meterRegistry.find("http.server.requests").timers()) {
+            String uri = timer.getId().getTag("uri");
+            if (uri != null && uri.startsWith("/api/admin")) {
+                operations.put(timer.getId().getTag("method") + " " + uri + " " + timer.getId().getTag("status"), stats(timer));
+            }
+        }
+        return operations;
+    }
+
+    private static Map<String, Object> stats(Map<? extends Enum<?>, Timer> timers) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        timers.forEach((tag, timer) -> stats.put(AuthMetrics.tagValue(tag), stats(timer)));
+        return stats;
+    }
+
+    private static Map<String, Object> stats(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", snapshot.count());
+        stats.put("totalMs", snapshot.total(TimeUnit.MILLISECONDS));
+        stats.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+        stats.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            stats.put("p" + Math.round(percentile.percentile() * 100) + "Ms", percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return stats;
+    }
+
+    private static Map<String, Object> share(double ms, double total) {
+        Map<String, Object> share = new LinkedHashMap<>();
+        share.put("ms", ms);
+        share.put("percent", total > 0 ? 100 * ms / total : 0);
+        return share;
+    }
+
+    private static double totalMs(Map<?, Timer> timers) {
+        return timers.values().stream().mapToDouble(AuthPerformanceEndpoint::totalMs).sum();
+    }
+
+    private static double totalMs(Timer timer) {
+        return timer.totalTime(TimeUnit.MILLISECONDS);
+    }
+}
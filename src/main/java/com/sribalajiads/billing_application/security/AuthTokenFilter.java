@@ -1,6 +1,11 @@
 package com.sribalajiads.billing_application.security;
 
+import com.sribalajiads.billing_application.security.AuthMetrics.PrincipalSource;
+import com.sribalajiads.billing_application.security.services.RoleAuthorities;
+import com.sribalajiads.billing_application.security.services.SecurityVersionRegistry;
+import com.sribalajiads.billing_application.security.services.UserDetailsImpl;
 import com.sribalajiads.billing_application.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,7 +13,9 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -16,6 +23,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 public class AuthTokenFilter extends OncePerRequestFilter {
 
@@ -25,35 +33,87 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private SecurityVersionRegistry securityVersionRegistry;
+
+    @Autowired
+    private AuthMetrics authMetrics;
+
+    // When enabled, the principal is rebuilt from the token claims and the database is only hit for stale tokens
+    @Value("${billing.security.jwt.claims-principal:true}")
+    private boolean claimsPrincipal;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        long start = System.nanoTime();
+        PrincipalSource source = PrincipalSource.ANONYMOUS;
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-
-                // Extract email from token
-                String email = jwtUtils.getUserNameFromJwtToken(jwt);
+            // Parse and verify the token once; repeat tokens come from the verified-token cache
+            Claims claims = jwt != null ? jwtUtils.parseJwtClaims(jwt) : null;
+            if (claims != null) {
 
-                // Load the user from database
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                // Build the user from the token, or load it from the database if the token can't be trusted alone
+                UserDetails userDetails = principalFromClaims(claims);
+                source = PrincipalSource.CLAIMS;
+                if (userDetails == null) {
+                    userDetails = loadFromDatabase(claims.getSubject());
+                    source = PrincipalSource.DATABASE;
+                }
 
-                // Authenticate the user in Spring Security context
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
+                if (userDetails != null) {
+                    // Authenticate the user in Spring Security context
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
 
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                } else {
+                    source = PrincipalSource.ANONYMOUS;
+                }
             }
         } catch (Exception e) {
+            source = PrincipalSource.ANONYMOUS;
             logger.error("Cannot set user authentication: {}", e.getMessage());
         }
+        // Only this filter's own work; the rest of the chain and the controller are timed by http.server.requests
+        authMetrics.recordFilter(source, start);
 
         filterChain.doFilter(request, response);
     }
 
+    // Returns null for legacy tokens without claims, or when the user's security version has moved on
+    private UserDetailsImpl principalFromClaims(Claims claims) {
+        if (!claimsPrincipal || !claims.containsKey(JwtUtils.CLAIM_SECURITY_VERSION)) {
+            return null;
+        }
+
+        Long userId = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+        long version = claims.get(JwtUtils.CLAIM_SECURITY_VERSION, Long.class);
+        if (userId == null || securityVersionRegistry.isStale(userId, version)) {
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<String> roles = claims.get(JwtUtils.CLAIM_ROLES, List.class);
+        List<GrantedAuthority> authorities = RoleAuthorities.ofNames(roles);
+
+        // A deactivation bumps the version, so a token that is not stale belongs to an active user
+        return new UserDetailsImpl(userId, claims.get(JwtUtils.CLAIM_NAME, String.class), claims.getSubject(),
+                null, true, version, authorities);
+    }
+
+    private UserDetails loadFromDatabase(String email) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(email);
+        securityVersionRegistry.advance(userDetails.getId(), userDetails.getSecurityVersion());
+
+        // Deactivated users keep a valid signature until expiry, so refuse them here
+        return userDetails.isEnabled() ? userDetails : null;
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
@@ -63,4 +123,4 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         }
         return null;
     }
-}
\ No newline at end of file
+}
@@ -1,46 +1,179 @@
 package com.sribalajiads.billing_application.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.sribalajiads.billing_application.security.AuthMetrics.InvalidTokenReason;
+import com.sribalajiads.billing_application.security.AuthMetrics.JwtOutcome;
+import com.sribalajiads.billing_application.security.services.TokenRevocationIndex;
+import com.sribalajiads.billing_application.security.services.UserDetailsImpl;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    // Claims that let the filter rebuild the principal without a database round trip
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_NAME = "name";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_SECURITY_VERSION = "ver";
+
     private final String jwtSecret = "sribalajiads_very_secret_key_for_billing_app_1234567890";
-    private final int jwtExpirationMs = 86400000; // 24 hours
+    // Short-lived; clients renew through /api/auth/refresh
+    private final Duration accessTokenTtl;
+
+    // The signing key and parser are immutable and thread-safe, so build them once for the life of the app
+    private final Key key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+    @Autowired
+    private AuthMetrics authMetrics;
+
+    @Autowired
+    private TokenRevocationIndex revocationIndex;
+
+    // Recently verified tokens, keyed by SHA-256 digest, so repeat calls from the same client skip the HMAC check
+    private final Cache<String, Claims> verifiedTokens;
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    public JwtUtils(@Value("${billing.security.jwt.access-ttl:15m}") Duration accessTokenTtl,
+                    @Value("${billing.security.jwt.verified-cache.max-size:10000}") long maxSize,
+                    @Value("${billing.security.jwt.verified-cache.max-ttl:10m}") Duration maxTtl) {
+        this.accessTokenTtl = accessTokenTtl;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.<String, Claims>creating((digest, claims) -> timeToLive(claims, maxTtl)))
+                .build();
     }
 
     public String generateJwtToken(String email) {
         return Jwts.builder()
                 .setSubject(email)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date((new Date()).getTime() + accessTokenTtl.toMillis()))
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    public String generateJwtToken(UserDetailsImpl userPrincipal) {
+        List<String> roles = userPrincipal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+
+        return Jwts.builder()
+                .setId(UUID.randomUUID().toString()) // jti, so this token can be revoked on logout
+                .setSubject(userPrincipal.getEmail())
+                .claim(CLAIM_USER_ID, userPrincipal.getId())
+                .claim(CLAIM_NAME, userPrincipal.getName())
+                .claim(CLAIM_ROLES, roles)
+                .claim(CLAIM_SECURITY_VERSION, userPrincipal.getSecurityVersion())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date((new Date()).getTime() + accessTokenTtl.toMillis()))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    public Duration getAccessTokenTtl() {
+        return accessTokenTtl;
+    }
+
+    /**
+     * Verifies the token once and returns its claims, or null if the token is invalid or revoked.
+     * Tokens verified earlier are served from the cache until they expire; revocation is checked every time.
+     */
+    public Claims parseJwtClaims(String authToken) {
+        long start = System.nanoTime();
+        String digest = digest(authToken);
+        Claims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && !isExpired(cached)) {
+            return notRevoked(cached, JwtOutcome.CACHED, start);
+        }
+
+        try {
+            Claims claims = parser.parseClaimsJws(authToken).getBody();
+            verifiedTokens.put(digest, claims);
+            return notRevoked(claims, JwtOutcome.VERIFIED, start);
+        } catch (Exception e) {
+            // Counted by reason under billing.auth.jwt.invalid; bad tokens are client errors, not server faults
+            authMetrics.recordJwt(JwtOutcome.INVALID, start);
+            authMetrics.invalidToken(reasonFor(e));
+            logger.debug("Invalid JWT token: {}", e.getMessage());
+        }
+        return null;
+    }
+
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        Claims claims = parseJwtClaims(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
     public boolean validateJwtToken(String authToken) {
+        return parseJwtClaims(authToken) != null;
+    }
+
+    private Claims notRevoked(Claims claims, JwtOutcome outcome, long start) {
+        if (revocationIndex.isRevoked(claims.getId())) {
+            authMetrics.recordJwt(JwtOutcome.INVALID, start);
+            authMetrics.invalidToken(InvalidTokenReason.REVOKED);
+            return null;
+        }
+        authMetrics.recordJwt(outcome, start);
+        return claims;
+    }
+
+    private static InvalidTokenReason reasonFor(Exception e) {
+        if (e instanceof ExpiredJwtException) {
+            return InvalidTokenReason.EXPIRED;
+        } else if (e instanceof MalformedJwtException) {
+            return InvalidTokenReason.MALFORMED;
+        } else if (e instanceof SignatureException) {
+            return InvalidTokenReason.SIGNATURE;
+        } else if (e instanceof UnsupportedJwtException) {
+            return InvalidTokenReason.UNSUPPORTED;
+        } else if (e instanceof IllegalArgumentException) {
+            return InvalidTokenReason.EMPTY;
+        }
+        return InvalidTokenReason.OTHER;
+    }
+
+    private static boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
+
+    private static Duration timeToLive(Claims claims, Duration maxTtl) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            return maxTtl;
+        }
+        Duration remaining = Duration.ofMillis(expiration.getTime() - System.currentTimeMillis());
+        return remaining.compareTo(maxTtl) < 0 ? remaining : maxTtl;
+    }
+
+    private static String digest(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
-        } catch (Exception e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
-        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+package com.sribalajiads.billing_application.security;
+
+import com.sribalajiads.billing_application.security.LoginRejectedException.Reason;
+import com.sribalajiads.billing_application.util.KeyedRateLimiter;
+import com.sribalajiads.billing_application.util.StripedRateLimiter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gatekeeper in front of the BCrypt check at login. Attempts are first rate limited per client IP and per email,
+ * then the credentials check runs on a small fixed pool with a bounded queue; when the queue is full the attempt is
+ * refused straight away, so a login burst can only ever occupy that pool and not every core.
+ */
+@Component
+public class LoginAdmission {
+
+    @Autowired AuthenticationManager authenticationManager;
+    @Autowired AuthMetrics authMetrics;
+
+    private static final Duration BUSY_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final StripedRateLimiter byIp;
+    // Exact per email: with shared stripes, a flood of made-up emails could lock real accounts out
+    private final KeyedRateLimiter byEmail;
+    private final ThreadPoolExecutor hashingPool;
+
+    public LoginAdmission(@Value("${billing.security.login.stripes:4096}") int stripes,
+                          @Value("${billing.security.login.ip.capacity:30}") int ipCapacity,
+                          @Value("${billing.security.login.ip.refill-per-minute:60}") int ipRefillPerMinute,
+                          @Value("${billing.security.login.email.capacity:5}") int emailCapacity,
+                          @Value("${billing.security.login.email.refill-per-minute:10}") int emailRefillPerMinute,
+                          @Value("${billing.security.login.email.max-tracked:100000}") long emailMaxTracked,
+                          @Value("${billing.security.login.hash-threads:0}") int hashThreads,
+                          @Value("${billing.security.login.queue-depth:64}") int queueDepth) {
+        this.byIp = new StripedRateLimiter(stripes, ipCapacity, ipRefillPerMinute);
+        this.byEmail = new KeyedRateLimiter(emailCapacity, emailRefillPerMinute, emailMaxTracked);
+
+        // BCrypt is pure CPU work; by default leave one core for everything else
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.hashingPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth), runnable -> {
+                    Thread thread = new Thread(runnable, "login-hash");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Runs the credentials check if the caller is within its limits and there is room in the hashing queue.
+     * Throws LoginRejectedException without touching BCrypt otherwise; AuthenticationExceptions pass through.
+     */
+    public Authentication authenticate(String email, String password, String clientIp) {
+        admit(byIp.tryAcquire(clientIp != null ? clientIp : "unknown"), Reason.IP);
+        admit(byEmail.tryAcquire(email.trim().toLowerCase(Locale.ROOT)), Reason.EMAIL);
+        return authenticate(UsernamePasswordAuthenticationToken.unauthenticated(email, password));
+    }
+
+    private Authentication authenticate(UsernamePasswordAuthenticationToken credentials) {
+        Future<Authentication> result;
+        try {
+            result = hashingPool.submit(() -> authenticationManager.authenticate(credentials));
+        } catch (RejectedExecutionException e) {
+            authMetrics.loginRejected(Reason.BUSY);
+            throw new LoginRejectedException(Reason.BUSY, BUSY_RETRY_AFTER);
+        }
+
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking credentials", e);
+        }
+    }
+
+    // waitNanos is what the limiter returned: 0 when a token was taken
+    private void admit(long waitNanos, Reason reason) {
+        if (waitNanos > 0) {
+            authMetrics.loginRejected(reason);
+            // Round up so clients never retry a moment too early
+            throw new LoginRejectedException(reason, Duration.ofSeconds(TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashingPool.shutdown();
+    }
+}
@@ -0,0 +1,26 @@
+package com.sribalajiads.billing_application.security;
+
+import java.time.Duration;
+
+// A login turned away before the password was checked; AuthController answers it with 429 and Retry-After
+public class LoginRejectedException extends RuntimeException {
+
+    public enum Reason { IP, EMAIL, BUSY }
+
+    private final Reason reason;
+    private final Duration retryAfter;
+
+    public LoginRejectedException(Reason reason, Duration retryAfter) {
+        super("Login rejected: " + reason);
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,41 @@
+package com.sribalajiads.billing_application.security;
+
+import com.sribalajiads.billing_application.security.AuthMetrics.PasswordOperation;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// Times every hash and check of the wrapped encoder under billing.auth.password
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final AuthMetrics authMetrics;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, AuthMetrics authMetrics) {
+        this.delegate = delegate;
+        this.authMetrics = authMetrics;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        long start = System.nanoTime();
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            authMetrics.recordPassword(PasswordOperation.ENCODE, start);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        try {
+            return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            authMetrics.recordPassword(PasswordOperation.MATCHES, start);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,110 @@
+package com.sribalajiads.billing_application.security.services;
+
+import com.sribalajiads.billing_application.model.RefreshToken;
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.repository.RefreshTokenRepository;
+import com.sribalajiads.billing_application.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Opaque, single-use refresh tokens. Each refresh revokes the presented token and issues its successor in the
+ * same family; presenting an already-used token means it was copied, so the whole family is revoked.
+ */
+@Service
+public class RefreshTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    @Autowired RefreshTokenRepository refreshTokenRepository;
+    @Autowired UserRepository userRepository;
+
+    @Value("${billing.security.jwt.refresh-ttl:7d}")
+    private Duration refreshTokenTtl;
+
+    private final SecureRandom random = new SecureRandom();
+
+    // The successor token and the user it belongs to, reloaded so new access tokens carry current roles
+    public record Rotation(String refreshToken, UserDetailsImpl user) {
+    }
+
+    // Starts a new family at login
+    @Transactional
+    public String issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    // Empty if the token is unknown, expired, already used, or its user is gone or deactivated
+    @Transactional
+    public Optional<Rotation> rotate(String rawToken) {
+        Optional<RefreshToken> found = refreshTokenRepository.findForUpdateByTokenHash(hash(rawToken));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+
+        RefreshToken token = found.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (token.getRevokedAt() != null) {
+            int revoked = refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            logger.warn("Reused refresh token for user {}; revoked {} tokens in its family", token.getUserId(), revoked);
+            return Optional.empty();
+        }
+        if (token.getExpiresAt().isBefore(now)) {
+            return Optional.empty();
+        }
+
+        token.setRevokedAt(now);
+        Optional<User> user = userRepository.findById(token.getUserId()).filter(User::isActive);
+        if (user.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Rotation(issue(token.getUserId(), token.getFamilyId()), UserDetailsImpl.build(user.get())));
+    }
+
+    // Logout: ends the whole login session, including tokens already rotated away
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findForUpdateByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+    }
+
+    @Scheduled(cron = "${billing.security.jwt.refresh-cleanup:0 45 3 * * *}")
+    public void pruneExpired() {
+        int removed = refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now());
+        logger.info("Pruned {} expired refresh tokens", removed);
+    }
+
+    private String issue(Long userId, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(new RefreshToken(hash(rawToken), familyId, userId, LocalDateTime.now().plus(refreshTokenTtl)));
+        return rawToken;
+    }
+
+    // Tokens are 256 random bits, so a plain SHA-256 is enough to make a leaked table useless
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.sribalajiads.billing_application.security.services;
+
+import com.sribalajiads.billing_application.model.ERole;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * One immutable authority list per role combination, built once. With five roles there are only 32
+ * combinations, so building a principal is an array lookup and allocates no authority objects.
+ */
+public final class RoleAuthorities {
+
+    private static final List<GrantedAuthority> EMPTY = List.of();
+    private static final List<List<GrantedAuthority>> BY_MASK;
+
+    static {
+        ERole[] roles = ERole.values();
+        GrantedAuthority[] single = new GrantedAuthority[roles.length];
+        for (ERole role : roles) {
+            single[role.ordinal()] = new SimpleGrantedAuthority(role.name());
+        }
+        List<List<GrantedAuthority>> byMask = new ArrayList<>(1 << roles.length);
+        for (int mask = 0; mask < 1 << roles.length; mask++) {
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            for (ERole role : roles) {
+                if ((mask & role.bit()) != 0) {
+                    authorities.add(single[role.ordinal()]);
+                }
+            }
+            byMask.add(List.copyOf(authorities));
+        }
+        BY_MASK = List.copyOf(byMask);
+    }
+
+    private RoleAuthorities() {
+    }
+
+    public static List<GrantedAuthority> of(int roleMask) {
+        return roleMask >= 0 && roleMask < BY_MASK.size() ? BY_MASK.get(roleMask) : EMPTY;
+    }
+
+    // For role names carried in a token; names that are not roles are ignored
+    public static List<GrantedAuthority> ofNames(Collection<String> names) {
+        int mask = 0;
+        for (String name : names) {
+            for (ERole role : ERole.values()) {
+                if (role.name().equals(name)) {
+                    mask |= role.bit();
+                    break;
+                }
+            }
+        }
+        return of(mask);
+    }
+}
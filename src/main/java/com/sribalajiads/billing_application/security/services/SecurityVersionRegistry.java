@@ -0,0 +1,34 @@
+package com.sribalajiads.billing_application.security.services;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the latest known security version of each user, so the token filter can trust the
+ * claims inside a JWT without asking the database. A token is only re-checked against the
+ * database when its version is older than the one recorded here, or when the user is unknown.
+ */
+@Component
+public class SecurityVersionRegistry {
+
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    // True when the token must be re-checked against the database
+    public boolean isStale(Long userId, long tokenVersion) {
+        Long known = versions.get(userId);
+        return known == null || tokenVersion < known;
+    }
+
+    // Versions only ever move forward, whichever update arrives first
+    public void advance(Long userId, long version) {
+        versions.merge(userId, version, Math::max);
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        advance(event.userId(), event.securityVersion());
+    }
+}
@@ -0,0 +1,140 @@
+package com.sribalajiads.billing_application.security.services;
+
+import com.sribalajiads.billing_application.model.RevokedToken;
+import com.sribalajiads.billing_application.repository.RevokedTokenRepository;
+import com.sribalajiads.billing_application.util.BloomFilter;
+import com.sribalajiads.billing_application.util.IdWatermark;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory set of revoked access-token ids (jti), checked on every authenticated request.
+ * A Bloom filter answers the common "not revoked" case with a few bit reads; only a possible hit
+ * falls through to the exact map. Entries are dropped once the token would have expired anyway,
+ * and the filter is rebuilt without them. The revoked_tokens table is the durable copy: it is loaded
+ * at startup and polled so revocations made on other nodes arrive within a poll interval.
+ */
+@Service
+public class TokenRevocationIndex {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationIndex.class);
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Autowired RevokedTokenRepository revokedTokenRepository;
+
+    private final long expectedRevocations;
+
+    // jti -> expiry in epoch millis
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+
+    // Writers only; readers never lock
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final IdWatermark watermark = new IdWatermark(1000);
+
+    public TokenRevocationIndex(@Value("${billing.security.jwt.revocation.expected-size:100000}") long expectedRevocations) {
+        this.expectedRevocations = expectedRevocations;
+        this.filter = new BloomFilter(expectedRevocations, FALSE_POSITIVE_RATE);
+    }
+
+    @PostConstruct
+    void load() {
+        writeLock.lock();
+        try {
+            watermark.reset(revokedTokenRepository.findMaxId());
+            for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now())) {
+                add(token.getJti(), toMillis(token.getExpiresAt()));
+            }
+            logger.info("Loaded {} revoked tokens", revoked.size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isRevoked(String jti) {
+        return jti != null && filter.mightContain(jti) && revoked.containsKey(jti);
+    }
+
+    // Takes effect on this node at once; other nodes see it on their next poll
+    public void revoke(String jti, Date expiresAt) {
+        LocalDateTime expiry = LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault());
+        if (!revokedTokenRepository.existsByJti(jti)) {
+            try {
+                revokedTokenRepository.save(new RevokedToken(jti, expiry));
+            } catch (DataIntegrityViolationException e) {
+                // Revoked concurrently by another logout of the same token
+            }
+        }
+        writeLock.lock();
+        try {
+            add(jti, expiresAt.getTime());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${billing.security.jwt.revocation.poll-interval:2s}")
+    public void pollRevocations() {
+        writeLock.lock();
+        try {
+            watermark.poll((afterId, limit) -> revokedTokenRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit)),
+                    RevokedToken::getId, token -> add(token.getJti(), toMillis(token.getExpiresAt())));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Forget expired tokens and rebuild the filter from what is left, so it never fills up
+    @Scheduled(fixedDelayString = "${billing.security.jwt.revocation.prune-interval:5m}")
+    public void prune() {
+        writeLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            if (revoked.values().removeIf(expiry -> expiry <= now)) {
+                BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, 2L * revoked.size()), FALSE_POSITIVE_RATE);
+                revoked.keySet().forEach(rebuilt::put);
+                filter = rebuilt;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Scheduled(cron = "${billing.security.jwt.revocation.cleanup:0 30 3 * * *}")
+    public void pruneTable() {
+        int removed = revokedTokenRepository.deleteExpiredBefore(LocalDateTime.now());
+        logger.info("Pruned {} expired revoked tokens", removed);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    private void add(String jti, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        // Exact set first: a reader that sees the filter bit then always finds the entry
+        revoked.put(jti, expiresAtMillis);
+        filter.put(jti);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
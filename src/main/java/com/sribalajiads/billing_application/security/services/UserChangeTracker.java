@@ -0,0 +1,91 @@
+package com.sribalajiads.billing_application.security.services;
+
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.model.UserChangeLog;
+import com.sribalajiads.billing_application.repository.UserChangeLogRepository;
+import com.sribalajiads.billing_application.util.IdWatermark;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Spreads user changes across the cluster without a message broker.
+ * Each mutation writes a row to the user_change_log table and is applied locally straight away;
+ * every node then polls the table and replays rows written by the other nodes.
+ */
+@Service
+public class UserChangeTracker {
+    private static final Logger logger = LoggerFactory.getLogger(UserChangeTracker.class);
+
+    @Autowired UserChangeLogRepository changeLogRepository;
+    @Autowired ApplicationEventPublisher eventPublisher;
+
+    @Value("${billing.security.user-cache.change-log-retention:1d}")
+    private Duration retention;
+
+    private final IdWatermark watermark = new IdWatermark(500);
+    private final Set<Long> appliedIds = new LinkedHashSet<>();
+    private final ReentrantLock pollLock = new ReentrantLock();
+
+    // Call after the user has been saved
+    public void userChanged(User user) {
+        UserChangeLog entry = changeLogRepository.save(new UserChangeLog(user.getId(), user.getEmail(), user.getSecurityVersion()));
+        UserChangedEvent event = new UserChangedEvent(user.getId(), user.getEmail(), user.getSecurityVersion());
+
+        // Apply on this node once the change is visible to everyone else
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eventPublisher.publishEvent(event);
+                }
+            });
+        } else {
+            eventPublisher.publishEvent(event);
+        }
+        logger.debug("Recorded change {} for user {}", entry.getId(), user.getId());
+    }
+
+    @Scheduled(fixedDelayString = "${billing.security.user-cache.poll-interval:2s}")
+    public void pollChanges() {
+        pollLock.lock();
+        try {
+            if (!watermark.isSet()) {
+                // Caches start empty, so there is nothing older to replay
+                watermark.reset(changeLogRepository.findMaxId());
+                return;
+            }
+
+            watermark.poll((afterId, limit) -> changeLogRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit)),
+                    UserChangeLog::getId, entry -> {
+                        if (appliedIds.add(entry.getId())) {
+                            eventPublisher.publishEvent(new UserChangedEvent(entry.getUserId(), entry.getEmail(), entry.getSecurityVersion()));
+                        }
+                    });
+
+            // Events are not idempotent, so remember what was replayed until it drops out of the window
+            appliedIds.removeIf(id -> id <= watermark.windowStart());
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    @Scheduled(cron = "${billing.security.user-cache.change-log-cleanup:0 0 3 * * *}")
+    public void pruneChangeLog() {
+        int removed = changeLogRepository.deleteOlderThan(LocalDateTime.now().minus(retention));
+        logger.info("Pruned {} user change log entries", removed);
+    }
+}
@@ -0,0 +1,8 @@
+package com.sribalajiads.billing_application.security.services;
+
+/**
+ * Published whenever a user's roles or status change, on this node or (via the change log) on another one.
+ * Listeners drop whatever they cached about the user.
+ */
+public record UserChangedEvent(Long userId, String email, long securityVersion) {
+}
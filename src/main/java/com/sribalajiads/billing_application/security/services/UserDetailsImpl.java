@@ -3,12 +3,9 @@ package com.sribalajiads.billing_application.security.services;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.sribalajiads.billing_application.model.User;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.List;
-import java.util.stream.Collectors;
 
 public class UserDetailsImpl implements UserDetails {
     private static final long serialVersionUID = 1L;
@@ -21,30 +18,34 @@ public class UserDetailsImpl implements UserDetails {
     private String password;
 
     private boolean active;
+    private long securityVersion;
     private Collection<? extends GrantedAuthority> authorities;
 
     public UserDetailsImpl(Long id, String name, String email, String password, boolean active,
                            Collection<? extends GrantedAuthority> authorities) {
+        this(id, name, email, password, active, 0, authorities);
+    }
+
+    public UserDetailsImpl(Long id, String name, String email, String password, boolean active,
+                           long securityVersion, Collection<? extends GrantedAuthority> authorities) {
         this.id = id;
         this.name = name;
         this.email = email;
         this.password = password;
         this.active = active;
+        this.securityVersion = securityVersion;
         this.authorities = authorities;
     }
 
     public static UserDetailsImpl build(User user) {
-        List<GrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName().name()))
-                .collect(Collectors.toList());
-
         return new UserDetailsImpl(
                 user.getId(),
                 user.getName(),
                 user.getEmail(),
                 user.getPassword(),
                 user.isActive(),
-                authorities);
+                user.getSecurityVersion(),
+                RoleAuthorities.of(user.getRoleMask()));
     }
 
     @Override
@@ -64,6 +65,10 @@ public class UserDetailsImpl implements UserDetails {
         return email;
     }
 
+    public long getSecurityVersion() {
+        return securityVersion;
+    }
+
     @Override
     public String getPassword() {
         return password;
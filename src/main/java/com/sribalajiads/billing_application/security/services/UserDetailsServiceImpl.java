@@ -1,23 +1,96 @@
 package com.sribalajiads.billing_application.security.services;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.sribalajiads.billing_application.model.User;
 import com.sribalajiads.billing_application.repository.UserRepository;
+import com.sribalajiads.billing_application.security.AuthMetrics;
+import com.sribalajiads.billing_application.security.AuthMetrics.UserSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    AuthMetrics authMetrics;
+
+    @Autowired
+    UserChangeTracker userChangeTracker;
+
+    // Recently loaded users by lower-cased email (the database matches emails without case, so every spelling of
+    // one address must share an entry, or a change would evict only one of them); evicted on every UserChangedEvent, so a deactivation takes effect at once.
+    // Async so the database load runs outside the cache's internal map lock (a synchronized bin that would
+    // pin a virtual thread for the whole query), while concurrent lookups still share one load.
+    private final AsyncCache<String, UserDetailsImpl> cache;
+
+    public UserDetailsServiceImpl(@Value("${billing.security.user-cache.max-size:10000}") long maxSize,
+                                  @Value("${billing.security.user-cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    @PostConstruct
+    void bindMetrics() {
+        // Publishes cache.gets (hit/miss), cache.evictions and cache.size under cache=userDetails
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
+
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        long start = System.nanoTime();
+        CompletableFuture<UserDetailsImpl> loading = new CompletableFuture<>();
+        String key = cacheKey(email);
+        CompletableFuture<UserDetailsImpl> entry = cache.get(key, (k, executor) -> loading);
+        // Callers that wait on another thread's query count as database time, since that is what they paid for
+        UserSource source = entry != loading && entry.isDone() ? UserSource.CACHE : UserSource.DATABASE;
+
+        // Only the caller that installed the entry runs the query; a failed load is dropped from the cache
+        if (entry == loading) {
+            try {
+                loading.complete(loadFromDatabase(key));
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return entry.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            authMetrics.recordUserLoad(source, start);
+        }
+    }
+
+    private UserDetailsImpl loadFromDatabase(String email) {
         // Fetches the user from the database using their email
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + email));
@@ -25,4 +98,27 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         // Converts it to the UserDetailsImpl object above
         return UserDetailsImpl.build(user);
     }
-}
\ No newline at end of file
+
+    // Called by DaoAuthenticationProvider after a successful login when the stored hash uses an outdated BCrypt cost
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        userRepository.save(user);
+
+        // Same password, so tokens stay valid; this only drops cached copies of the old hash on every node
+        userChangeTracker.userChanged(user);
+        return UserDetailsImpl.build(user);
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        cache.synchronous().invalidate(cacheKey(event.email()));
+    }
+
+    private static String cacheKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
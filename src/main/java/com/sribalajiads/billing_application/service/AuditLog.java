@@ -0,0 +1,260 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.model.AuditAction;
+import com.sribalajiads.billing_application.model.AuditEvent;
+import com.sribalajiads.billing_application.util.MpscRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind audit trail. Request threads only capture the event and put it on a lock-free ring buffer;
+ * a single flusher thread batch-inserts into audit_events. When the buffer is full the caller waits briefly
+ * for room and then writes its own event synchronously, so the trail slows down instead of losing entries.
+ * Events raised inside a transaction are only queued once it commits.
+ */
+@Service
+public class AuditLog implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final String INSERT_SQL = "insert into audit_events " +
+            "(occurred_at, actor, action, target_user_id, target_email, success, detail, source_ip) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final long RETRY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int SHUTDOWN_ATTEMPTS = 3;
+
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired AuditorAware<String> auditorProvider;
+    @Autowired MeterRegistry meterRegistry;
+
+    private final MpscRingBuffer<AuditEvent> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long backpressureTimeoutNanos;
+
+    private volatile boolean running;
+    private volatile boolean writing;
+    private volatile Thread flusher;
+    private Counter synchronousWrites;
+    private TransactionTemplate insertTransaction;
+
+    public AuditLog(@Value("${billing.audit.buffer-size:8192}") int bufferSize,
+                    @Value("${billing.audit.batch-size:500}") int batchSize,
+                    @Value("${billing.audit.flush-interval:200ms}") Duration flushInterval,
+                    @Value("${billing.audit.backpressure-timeout:50ms}") Duration backpressureTimeout) {
+        this.buffer = new MpscRingBuffer<>(bufferSize);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.backpressureTimeoutNanos = backpressureTimeout.toNanos();
+    }
+
+    @PostConstruct
+    void init() {
+        // A new transaction even when called from afterCommit, where the caller's finished transaction is still bound
+        insertTransaction = new TransactionTemplate(transactionManager);
+        insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Gauge.builder("billing.audit.buffer.size", buffer, MpscRingBuffer::size)
+                .description("Audit events waiting to be written")
+                .register(meterRegistry);
+        synchronousWrites = Counter.builder("billing.audit.synchronous.writes")
+                .description("Audit events written on the caller's thread because the buffer was full or stopped")
+                .register(meterRegistry);
+    }
+
+    // Change made by the current user (or SYSTEM) to another user
+    public void record(AuditAction action, Long targetUserId, String targetEmail, boolean success, String detail) {
+        record(auditorProvider.getCurrentAuditor().orElse("SYSTEM"), action, targetUserId, targetEmail, success, detail);
+    }
+
+    public void record(String actor, AuditAction action, Long targetUserId, String targetEmail, boolean success, String detail) {
+        AuditEvent event = new AuditEvent(actor, action, targetUserId, targetEmail, success, detail, currentSourceIp());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+
+    // Blocks until everything queued so far is in the database
+    public void flush() {
+        while (running && (!buffer.isEmpty() || writing)) {
+            LockSupport.unpark(flusher);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+    }
+
+    private void enqueue(AuditEvent event) {
+        if (running && buffer.offer(event)) {
+            if (buffer.size() >= batchSize) {
+                LockSupport.unpark(flusher);
+            }
+            return;
+        }
+
+        // Full: wake the flusher and wait a little for room before paying for the insert ourselves
+        long deadline = System.nanoTime() + backpressureTimeoutNanos;
+        while (running && System.nanoTime() < deadline) {
+            LockSupport.unpark(flusher);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            if (buffer.offer(event)) {
+                return;
+            }
+        }
+
+        synchronousWrites.increment();
+        try {
+            insert(List.of(event));
+        } catch (DataAccessException e) {
+            logger.error("Could not write audit event {}: {}", event, e.getMessage());
+        }
+    }
+
+    private void runFlusher() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            writing = true;
+            buffer.drainTo(batch, batchSize);
+            if (!batch.isEmpty()) {
+                writeWithRetry(batch);
+            }
+            writing = false;
+
+            // A full batch means more is probably waiting; otherwise let events accumulate for a while
+            if (batch.size() < batchSize && running) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            batch.clear();
+        }
+    }
+
+    // Keeps retrying while the app is up, so a database outage backs up into the buffer instead of dropping events
+    private void writeWithRetry(List<AuditEvent> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                insert(batch);
+                return;
+            } catch (DataAccessException e) {
+                if (isRefused(e)) {
+                    // Retrying cannot help when the database refuses a row, and that row would hold up the whole trail
+                    writeOneByOne(batch);
+                    return;
+                }
+                if (!running && attempt >= SHUTDOWN_ATTEMPTS) {
+                    logger.error("Dropping {} audit events after {} failed attempts at shutdown: {}", batch.size(), attempt, batch);
+                    return;
+                }
+                logger.error("Could not write {} audit events, retrying: {}", batch.size(), e.getMessage());
+                LockSupport.parkNanos(this, RETRY_DELAY_NANOS);
+            }
+        }
+    }
+
+    private void writeOneByOne(List<AuditEvent> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            AuditEvent event = batch.get(i);
+            try {
+                insert(List.of(event));
+            } catch (DataAccessException e) {
+                if (!isRefused(e)) {
+                    // The database went away halfway; back to retrying what is left
+                    writeWithRetry(batch.subList(i, batch.size()));
+                    return;
+                }
+                logger.error("Dropping audit event {} refused by the database: {}", event, e.getMessage());
+            }
+        }
+    }
+
+    // A row the database rejects (constraint, data too long), as opposed to the database being unreachable
+    private static boolean isRefused(DataAccessException e) {
+        return e instanceof NonTransientDataAccessException && !(e instanceof DataAccessResourceFailureException);
+    }
+
+    // One transaction per batch: a driver may go on after a failed row, and a retry must not write the others twice
+    private void insert(List<AuditEvent> events) {
+        insertTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(event.getOccurredAt()));
+            ps.setString(2, event.getActor());
+            ps.setString(3, event.getAction().name());
+            ps.setObject(4, event.getTargetUserId());
+            ps.setString(5, event.getTargetEmail());
+            ps.setBoolean(6, event.isSuccess());
+            ps.setString(7, event.getDetail());
+            ps.setString(8, event.getSourceIp());
+        }));
+    }
+
+    private static String currentSourceIp() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest().getRemoteAddr() : null;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::runFlusher, "audit-flusher");
+        thread.setDaemon(true);
+        flusher = thread;
+        thread.start();
+    }
+
+    // Drains whatever is still buffered before the DataSource goes away
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = flusher;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            logger.error("Audit flusher did not finish; {} events may not have been written", buffer.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stops after the web server (which stops in a much higher phase), so no request can still be producing events
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
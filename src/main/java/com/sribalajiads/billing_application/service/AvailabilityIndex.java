@@ -0,0 +1,257 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.model.ReleaseOrderStatus;
+import com.sribalajiads.billing_application.repository.ReleaseOrderRepository;
+import com.sribalajiads.billing_application.util.DayOccupancy;
+import com.sribalajiads.billing_application.util.IdWatermark;
+import com.sribalajiads.billing_application.util.StreamingQueries;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory index of booked release-order periods per inventory code, for planner availability questions.
+ * Each inventory has a DayOccupancy bitset for range checks and a start-ordered set of bookings for conflicts;
+ * readers take an optimistic StampedLock read, so queries do not block each other. The index is loaded from
+ * release_orders at startup, updated directly by bookings and cancellations on this node, and polls the table
+ * for those made on other nodes. Cancelled orders free their days; billed orders stay booked.
+ */
+@Service
+public class AvailabilityIndex {
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    // Longest span a booking or a planner query may cover; calendars keep a counter per day
+    public static final int MAX_RANGE_DAYS = 3660;
+
+    // Cancellation times come from each node's clock, so polls overlap by this much
+    private static final Duration CANCEL_LOOKBACK = Duration.ofMinutes(1);
+
+    private static final Comparator<Booking> BY_START =
+            Comparator.comparingLong(Booking::startDay).thenComparingLong(Booking::releaseOrderId);
+
+    public record Booking(long releaseOrderId, String inventoryCode, long startDay, long endDay) {
+        public LocalDate startDate() {
+            return LocalDate.ofEpochDay(startDay);
+        }
+
+        public LocalDate endDate() {
+            return LocalDate.ofEpochDay(endDay);
+        }
+    }
+
+    @Autowired ReleaseOrderRepository releaseOrderRepository;
+    @Autowired StreamingQueries streamingQueries;
+    @Autowired MeterRegistry meterRegistry;
+
+    private final Duration history;
+
+    private final ConcurrentSkipListMap<String, Calendar> calendars = new ConcurrentSkipListMap<>();
+    private final Map<Long, Booking> bookings = new ConcurrentHashMap<>();
+
+    // Pollers only
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private final IdWatermark watermark = new IdWatermark(1000);
+    private LocalDateTime lastCancelCheck;
+
+    public AvailabilityIndex(@Value("${billing.availability.history:400d}") Duration history) {
+        this.history = history;
+    }
+
+    @PostConstruct
+    void load() {
+        pollLock.lock();
+        try {
+            // Watermarks first: anything written during the load is picked up again by the first poll
+            watermark.reset(releaseOrderRepository.findMaxId());
+            lastCancelCheck = LocalDateTime.now();
+            streamingQueries.query("select id, inventory_code, start_date, end_date from release_orders " +
+                            "where status <> ? and end_date >= ?",
+                    rs -> add(rs.getLong(1), rs.getString(2), rs.getDate(3).toLocalDate(), rs.getDate(4).toLocalDate()),
+                    ReleaseOrderStatus.CANCELLED.name(), Date.valueOf(LocalDate.now().minusDays(history.toDays())));
+            logger.info("Loaded {} bookings over {} inventories into the availability index", bookings.size(), calendars.size());
+        } finally {
+            pollLock.unlock();
+        }
+        Gauge.builder("billing.availability.bookings", bookings, Map::size)
+                .description("Release-order periods held in the availability index")
+                .register(meterRegistry);
+    }
+
+    // Idempotent, so a booking seen both directly and by the poller counts once. The bookings map changes under
+    // the calendar's write lock, so an add and a remove of one order always apply to the calendar in the same order
+    public void add(long releaseOrderId, String inventoryCode, LocalDate startDate, LocalDate endDate) {
+        Booking booking = new Booking(releaseOrderId, inventoryCode, startDate.toEpochDay(), endDate.toEpochDay());
+        Calendar calendar = calendars.computeIfAbsent(inventoryCode, code -> new Calendar());
+        long stamp = calendar.lock.writeLock();
+        try {
+            if (bookings.putIfAbsent(releaseOrderId, booking) != null) {
+                return;
+            }
+            calendar.days.add(booking.startDay(), booking.endDay());
+            calendar.bookings.add(booking);
+            calendar.maxLength = Math.max(calendar.maxLength, booking.endDay() - booking.startDay());
+        } finally {
+            calendar.lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(long releaseOrderId) {
+        Booking booking = bookings.get(releaseOrderId);
+        if (booking == null) {
+            return;
+        }
+        Calendar calendar = calendars.get(booking.inventoryCode());
+        long stamp = calendar.lock.writeLock();
+        try {
+            // Another remove may have got here first
+            if (!bookings.remove(releaseOrderId, booking)) {
+                return;
+            }
+            calendar.days.remove(booking.startDay(), booking.endDay());
+            calendar.bookings.remove(booking);
+        } finally {
+            calendar.lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean isAvailable(String inventoryCode, LocalDate from, LocalDate to) {
+        Calendar calendar = calendars.get(inventoryCode);
+        return calendar == null || calendar.read(days -> days.firstOccupied(from.toEpochDay(), to.toEpochDay())) < 0;
+    }
+
+    // Bookings overlapping [from, to], by start date
+    public List<Booking> conflicts(String inventoryCode, LocalDate from, LocalDate to) {
+        Calendar calendar = calendars.get(inventoryCode);
+        if (calendar == null) {
+            return List.of();
+        }
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        long stamp = calendar.lock.readLock();
+        try {
+            // Only bookings starting at most maxLength days before the range can reach into it
+            Booking low = new Booking(Long.MIN_VALUE, inventoryCode, fromDay - calendar.maxLength, 0);
+            Booking high = new Booking(Long.MAX_VALUE, inventoryCode, toDay, 0);
+            List<Booking> overlapping = new ArrayList<>();
+            for (Booking booking : calendar.bookings.subSet(low, true, high, true)) {
+                if (booking.endDay() >= fromDay) {
+                    overlapping.add(booking);
+                }
+            }
+            return overlapping;
+        } finally {
+            calendar.lock.unlockRead(stamp);
+        }
+    }
+
+    // Free stretches of one inventory inside [from, to]
+    public List<LocalDate[]> freeRanges(String inventoryCode, LocalDate from, LocalDate to) {
+        Calendar calendar = calendars.get(inventoryCode);
+        if (calendar == null) {
+            return List.<LocalDate[]>of(new LocalDate[]{from, to});
+        }
+        long stamp = calendar.lock.readLock();
+        try {
+            List<LocalDate[]> ranges = new ArrayList<>();
+            for (long[] range : calendar.days.freeRanges(from.toEpochDay(), to.toEpochDay())) {
+                ranges.add(new LocalDate[]{LocalDate.ofEpochDay(range[0]), LocalDate.ofEpochDay(range[1])});
+            }
+            return ranges;
+        } finally {
+            calendar.lock.unlockRead(stamp);
+        }
+    }
+
+    // Known inventory codes (optionally starting with prefix) with no booking in [from, to], in code order
+    public List<String> freeInventories(LocalDate from, LocalDate to, String prefix, int limit) {
+        NavigableMap<String, Calendar> candidates = prefix == null || prefix.isEmpty()
+                ? calendars : calendars.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        List<String> free = new ArrayList<>();
+        for (Map.Entry<String, Calendar> entry : candidates.entrySet()) {
+            if (entry.getValue().read(days -> days.firstOccupied(fromDay, toDay)) < 0) {
+                free.add(entry.getKey());
+                if (free.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return free;
+    }
+
+    @Scheduled(fixedDelayString = "${billing.availability.poll-interval:2s}")
+    public void poll() {
+        pollLock.lock();
+        try {
+            // 1. Orders booked on any node (a row already cancelled is dropped instead)
+            watermark.poll((afterId, limit) -> releaseOrderRepository.findPeriodsAfter(afterId, Limit.of(limit)),
+                    row -> (Long) row[0], row -> {
+                        if (row[4] == ReleaseOrderStatus.CANCELLED) {
+                            remove((Long) row[0]);
+                        } else {
+                            add((Long) row[0], (String) row[1], (LocalDate) row[2], (LocalDate) row[3]);
+                        }
+                    });
+
+            // 2. Cancellations on any node; also heals a booking the poller added just before it was cancelled
+            LocalDateTime now = LocalDateTime.now();
+            for (Long id : releaseOrderRepository.findIdsCancelledSince(lastCancelCheck.minus(CANCEL_LOOKBACK))) {
+                remove(id);
+            }
+            lastCancelCheck = now;
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    public int size() {
+        return bookings.size();
+    }
+
+    private static class Calendar {
+        final StampedLock lock = new StampedLock();
+        final DayOccupancy days = new DayOccupancy();
+        final TreeSet<Booking> bookings = new TreeSet<>(BY_START);
+        long maxLength;
+
+        // Optimistic read; a writer growing the arrays mid-read can make it fail, so retry under the read lock
+        long read(ToLongFunction<DayOccupancy> query) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    long result = query.applyAsLong(days);
+                    if (lock.validate(stamp)) {
+                        return result;
+                    }
+                } catch (RuntimeException inconsistent) {
+                    // Fall through to a locked read
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return query.applyAsLong(days);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+}
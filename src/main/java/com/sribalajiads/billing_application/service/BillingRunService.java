@@ -0,0 +1,313 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.dto.BillingRunProgress;
+import com.sribalajiads.billing_application.model.*;
+import com.sribalajiads.billing_application.repository.BillingRunChunkRepository;
+import com.sribalajiads.billing_application.repository.BillingRunRepository;
+import com.sribalajiads.billing_application.repository.ReleaseOrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Month-end invoice generation. A run splits the period's unbilled release orders into id-range chunks, then
+ * bills the chunks in parallel on a worker pool. Each chunk writes its invoices, marks its orders billed and
+ * sets its own done flag in one transaction, so that flag is the checkpoint: a run stopped by a crash or
+ * failure is resumed by processing only the chunks that are not done. Runs left RUNNING are resumed at startup.
+ */
+@Service
+public class BillingRunService {
+    private static final Logger logger = LoggerFactory.getLogger(BillingRunService.class);
+
+    private static final String INSERT_SQL = "insert into invoices " +
+            "(invoice_number, series, financial_year, sequence_number, invoice_date, release_order_id, billing_run_id, " +
+            "client_name, client_gstin, client_state_code, taxable_amount, cgst, sgst, igst, total_amount, status, created_by, created_at) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 200;
+    // Unique key on BillingRun.activePeriod; a clash on it means another run for the month is RUNNING
+    private static final String ACTIVE_PERIOD_KEY = "uk_billing_runs_active_period";
+
+    @Autowired BillingRunRepository billingRunRepository;
+    @Autowired BillingRunChunkRepository chunkRepository;
+    @Autowired ReleaseOrderRepository releaseOrderRepository;
+    @Autowired InvoiceNumberService invoiceNumberService;
+    @Autowired GstCalculator gstCalculator;
+    @Autowired RevenueReadModel revenueReadModel;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired AuditorAware<String> auditorProvider;
+    @Autowired MeterRegistry meterRegistry;
+
+    private final int chunkSize;
+    private final String series;
+    private final boolean resumeOnStartup;
+    private final ExecutorService workers;
+
+    // Runs being executed by this node
+    private final Set<Long> activeRuns = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopping;
+
+    private Timer chunkTimer;
+    private Counter invoicesCreated;
+
+    public BillingRunService(@Value("${billing.run.chunk-size:500}") int chunkSize,
+                             @Value("${billing.run.threads:4}") int threads,
+                             @Value("${billing.invoice.series:SBA}") String series,
+                             @Value("${billing.run.resume-on-startup:true}") boolean resumeOnStartup) {
+        this.chunkSize = chunkSize;
+        this.series = series;
+        this.resumeOnStartup = resumeOnStartup;
+        // Each worker holds a connection for its chunk, so keep this below the connection pool size
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "billing-run-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    void bindMetrics() {
+        chunkTimer = Timer.builder("billing.run.chunk")
+                .description("Time to bill one chunk of release orders, including waiting for locks")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        invoicesCreated = Counter.builder("billing.run.invoices")
+                .description("Invoices created by billing runs")
+                .register(meterRegistry);
+    }
+
+    public BillingRunProgress start(YearMonth period) {
+        if (billingRunRepository.existsByPeriodAndStatus(period.toString(), BillingRunStatus.RUNNING)) {
+            throw new IllegalStateException("Error: A billing run for " + period + " is already in progress.");
+        }
+        invoiceNumberService.ensureSequence(series, InvoiceNumberService.financialYear(period.atEndOfMonth()));
+        String auditor = auditorProvider.getCurrentAuditor().orElse("SYSTEM");
+
+        // Plan, committed with the run
+        BillingRun run;
+        try {
+            run = transactionTemplate.execute(status -> plan(period, auditor));
+        } catch (DataIntegrityViolationException e) {
+            // Another start for this month got past the check above first; any other violation is a real failure
+            if (isActivePeriodClash(e)) {
+                throw new IllegalStateException("Error: A billing run for " + period + " is already in progress.");
+            }
+            throw e;
+        }
+
+        logger.info("Billing run {} for {} planned with {} chunks", run.getId(), period, run.getTotalChunks());
+        launch(run);
+        return progress(run.getId());
+    }
+
+    // One chunk per chunkSize orders, by id range; the run row takes the period's unique active slot
+    private BillingRun plan(YearMonth period, String auditor) {
+        List<Long> ids = releaseOrderRepository.findIdsToBill(period.atDay(1), period.atEndOfMonth());
+        BillingRun newRun = new BillingRun();
+        newRun.setPeriod(period.toString());
+        newRun.setActivePeriod(period.toString());
+        newRun.setStartedBy(auditor);
+        newRun.setStartedAt(LocalDateTime.now());
+        newRun.setTotalChunks((ids.size() + chunkSize - 1) / chunkSize);
+        billingRunRepository.save(newRun);
+
+        List<BillingRunChunk> chunks = new ArrayList<>(newRun.getTotalChunks());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, ids.size()) - 1;
+            chunks.add(new BillingRunChunk(newRun.getId(), ids.get(from), ids.get(to)));
+        }
+        chunkRepository.saveAll(chunks);
+        return newRun;
+    }
+
+    public BillingRunProgress resume(Long runId) {
+        BillingRun run = billingRunRepository.findById(runId)
+                .orElseThrow(() -> new IllegalArgumentException("Error: Billing run not found."));
+        if (run.getStatus() == BillingRunStatus.COMPLETED) {
+            throw new IllegalStateException("Error: Billing run is already complete.");
+        }
+        if (run.getStatus() == BillingRunStatus.FAILED) {
+            run.setStatus(BillingRunStatus.RUNNING);
+            run.setActivePeriod(run.getPeriod());
+            run.setLastError(null);
+            run.setFinishedAt(null);
+            try {
+                billingRunRepository.save(run);
+            } catch (DataIntegrityViolationException e) {
+                if (isActivePeriodClash(e)) {
+                    throw new IllegalStateException("Error: Another billing run for " + run.getPeriod() + " is in progress.");
+                }
+                throw e;
+            }
+        }
+        launch(run);
+        return progress(runId);
+    }
+
+    private static boolean isActivePeriodClash(DataIntegrityViolationException e) {
+        return e.getCause() instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(ACTIVE_PERIOD_KEY);
+    }
+
+    public BillingRunProgress progress(Long runId) {
+        BillingRun run = billingRunRepository.findById(runId)
+                .orElseThrow(() -> new IllegalArgumentException("Error: Billing run not found."));
+        return new BillingRunProgress(run.getId(), run.getPeriod(), run.getStatus(), run.getTotalChunks(),
+                chunkRepository.countByRunIdAndDoneTrue(runId), chunkRepository.sumInvoiceCount(runId),
+                run.getStartedBy(), run.getStartedAt(), run.getFinishedAt(), run.getLastError());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void resumeInterruptedRuns() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        for (BillingRun run : billingRunRepository.findByStatus(BillingRunStatus.RUNNING)) {
+            logger.info("Resuming billing run {} for {}", run.getId(), run.getPeriod());
+            launch(run);
+        }
+    }
+
+    private void launch(BillingRun run) {
+        if (!activeRuns.add(run.getId())) {
+            return;
+        }
+        YearMonth period = YearMonth.parse(run.getPeriod());
+        CompletableFuture<?>[] chunks = chunkRepository.findPendingIds(run.getId()).stream()
+                .map(chunkId -> CompletableFuture.runAsync(() -> processWithRetry(run, period, chunkId), workers))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(chunks).whenComplete((ignored, error) -> finish(run.getId(), error));
+    }
+
+    private void processWithRetry(BillingRun run, YearMonth period, Long chunkId) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                chunkTimer.record(() -> processChunk(run, period, chunkId));
+                return;
+            } catch (TransientDataAccessException e) {
+                // Deadlocks and lock timeouts between parallel chunks; anything else fails the chunk at once
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                logger.warn("Billing run {} chunk {} failed (attempt {}), retrying", run.getId(), chunkId, attempt, e);
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void processChunk(BillingRun run, YearMonth period, Long chunkId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // 1. Claim the checkpoint; another worker or node may have finished it already
+            BillingRunChunk chunk = chunkRepository.findForUpdateById(chunkId).orElseThrow();
+            if (chunk.isDone()) {
+                return;
+            }
+
+            // 2. Orders still unbilled in this id range (some may have been cancelled since planning)
+            List<ReleaseOrder> orders = releaseOrderRepository.findForUpdateToBill(chunk.getFirstReleaseOrderId(),
+                    chunk.getLastReleaseOrderId(), period.atDay(1), period.atEndOfMonth());
+
+            // 3. Invoices, numbered by the allocator (from its in-memory block, or the locked counter for gap-free series)
+            if (!orders.isEmpty()) {
+                LocalDate invoiceDate = period.atEndOfMonth();
+                String financialYear = InvoiceNumberService.financialYear(invoiceDate);
+                long[] numbers = invoiceNumberService.allocate(series, financialYear, orders.size());
+                insertInvoices(run, orders, invoiceDate, financialYear, numbers);
+                releaseOrderRepository.markBilled(orders.stream().map(ReleaseOrder::getId).toList());
+            }
+
+            // 4. Checkpoint, committed with the invoices
+            chunk.setDone(true);
+            chunk.setInvoiceCount(orders.size());
+            chunk.setCompletedAt(LocalDateTime.now());
+        });
+    }
+
+    private void insertInvoices(BillingRun run, List<ReleaseOrder> orders, LocalDate invoiceDate, String financialYear, long[] numbers) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(orders.size());
+        List<RevenueReadModel.Delta> revenue = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            ReleaseOrder order = orders.get(i);
+            long number = numbers[i];
+            GstCalculator.Breakdown gst = gstCalculator.calculate(order.getAmount(), order.getClientStateCode());
+            rows.add(new Object[]{
+                    InvoiceNumberService.format(series, financialYear, number), series, financialYear, number,
+                    Date.valueOf(invoiceDate), order.getId(), run.getId(),
+                    order.getClientName(), order.getClientGstin(), order.getClientStateCode(),
+                    order.getAmount(), gst.cgst(), gst.sgst(), gst.igst(), gst.total(),
+                    InvoiceStatus.ISSUED.name(), run.getStartedBy(), now});
+            revenue.add(RevenueReadModel.Delta.issued(invoiceDate, order.getClientName(), order.getCreatedBy(),
+                    order.getAmount(), gst.cgst(), gst.sgst(), gst.igst(), gst.total()));
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        revenueReadModel.apply(revenue, run.getStartedBy());
+        invoicesCreated.increment(rows.size());
+    }
+
+    private void finish(Long runId, Throwable error) {
+        try {
+            if (stopping) {
+                return; // Left RUNNING so the next start resumes it
+            }
+            BillingRun run = billingRunRepository.findById(runId).orElseThrow();
+            run.setFinishedAt(LocalDateTime.now());
+            run.setActivePeriod(null);
+            if (error == null) {
+                run.setStatus(BillingRunStatus.COMPLETED);
+                logger.info("Billing run {} for {} completed", runId, run.getPeriod());
+            } else {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                run.setStatus(BillingRunStatus.FAILED);
+                String message = String.valueOf(cause.getMessage());
+                run.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+                logger.error("Billing run {} for {} failed; resume it to retry the remaining chunks", runId, run.getPeriod(), cause);
+            }
+            billingRunRepository.save(run);
+        } finally {
+            activeRuns.remove(runId);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Chunks in flight roll back; the run stays RUNNING and is resumed on the next start
+        stopping = true;
+        workers.shutdownNow();
+    }
+}
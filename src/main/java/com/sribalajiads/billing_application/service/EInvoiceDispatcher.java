@@ -0,0 +1,304 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.model.EInvoiceStatus;
+import com.sribalajiads.billing_application.model.EInvoiceSubmission;
+import com.sribalajiads.billing_application.model.Invoice;
+import com.sribalajiads.billing_application.repository.EInvoiceSubmissionRepository;
+import com.sribalajiads.billing_application.repository.InvoiceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sends queued e-invoices to the IRP. One dispatcher thread claims due rows from einvoice_submissions in batches
+ * and hands each batch to a virtual thread for the HTTP call; a semaphore caps the calls in flight, so a slow
+ * portal only slows the dispatcher and never the request threads that queued the work. Failed calls are retried
+ * with exponential backoff and jitter until max-attempts, after which the invoice is REJECTED.
+ */
+@Service
+public class EInvoiceDispatcher implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(EInvoiceDispatcher.class);
+
+    private static final String UPDATE_SQL = "update einvoice_submissions set status = ?, attempts = ?, next_attempt_at = ?, " +
+            "claim_token = null, irn = ?, ack_number = ?, ack_date = ?, last_error = ?, updated_at = ? " +
+            "where id = ? and claim_token = ?";
+
+    @Autowired EInvoiceSubmissionRepository submissionRepository;
+    @Autowired InvoiceRepository invoiceRepository;
+    @Autowired IrpClient irpClient;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired MeterRegistry meterRegistry;
+
+    private final int batchSize;
+    private final int maxInFlight;
+    private final long pollIntervalNanos;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+    private final String sellerGstin;
+
+    private final Semaphore inFlight;
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile boolean running;
+    private volatile Thread dispatcher;
+    private Timer callTimer;
+    private final Map<EInvoiceStatus, Counter> outcomes = new EnumMap<>(EInvoiceStatus.class);
+
+    public EInvoiceDispatcher(@Value("${billing.einvoice.batch-size:100}") int batchSize,
+                              @Value("${billing.einvoice.max-in-flight:4}") int maxInFlight,
+                              @Value("${billing.einvoice.poll-interval:1s}") Duration pollInterval,
+                              @Value("${billing.einvoice.lease:5m}") Duration lease,
+                              @Value("${billing.einvoice.max-attempts:8}") int maxAttempts,
+                              @Value("${billing.einvoice.backoff:5s}") Duration backoff,
+                              @Value("${billing.einvoice.max-backoff:15m}") Duration maxBackoff,
+                              @Value("${billing.company.gstin:36AAACS1234A1Z5}") String sellerGstin) {
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.pollIntervalNanos = pollInterval.toNanos();
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+        this.sellerGstin = sellerGstin;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    @PostConstruct
+    void bindMetrics() {
+        Gauge.builder("billing.einvoice.inflight", inFlight, s -> maxInFlight - s.availablePermits())
+                .description("IRP batch calls in progress")
+                .register(meterRegistry);
+        callTimer = Timer.builder("billing.einvoice.irp.call")
+                .description("IRP batch call latency")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        for (EInvoiceStatus status : EInvoiceStatus.values()) {
+            outcomes.put(status, Counter.builder("billing.einvoice.attempts")
+                    .description("E-invoice send attempts, by resulting status")
+                    .tag("status", status.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    // Called after queueing so new work does not wait for the next poll
+    public void wake() {
+        LockSupport.unpark(dispatcher);
+    }
+
+    private void runDispatcher() {
+        long nextStaleCheck = System.nanoTime();
+        while (running) {
+            boolean acquired = false;
+            try {
+                if (System.nanoTime() - nextStaleCheck >= 0) {
+                    LocalDateTime now = LocalDateTime.now();
+                    int released = submissionRepository.releaseStale(now.minus(lease), now);
+                    if (released > 0) {
+                        logger.warn("Released {} e-invoice submissions whose claim outlived the lease", released);
+                    }
+                    nextStaleCheck = System.nanoTime() + lease.toNanos() / 2;
+                }
+
+                // Wait for a free call slot before claiming, so claimed rows are sent straight away
+                acquired = inFlight.tryAcquire(pollIntervalNanos, TimeUnit.NANOSECONDS);
+                if (!acquired) {
+                    continue;
+                }
+                String token = UUID.randomUUID().toString();
+                List<EInvoiceSubmission> batch = claim(token);
+                if (batch.isEmpty()) {
+                    inFlight.release();
+                    acquired = false;
+                    LockSupport.parkNanos(this, pollIntervalNanos);
+                    continue;
+                }
+                callers.execute(() -> {
+                    try {
+                        send(batch, token);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+                acquired = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (DataAccessException e) {
+                logger.error("E-invoice dispatcher could not reach the database: {}", e.getMessage());
+                LockSupport.parkNanos(this, pollIntervalNanos);
+            } catch (RuntimeException e) {
+                // E.g. the caller pool refusing work while stopping; a claimed batch is released when its lease runs out
+                logger.error("E-invoice dispatcher hit an unexpected error", e);
+                LockSupport.parkNanos(this, pollIntervalNanos);
+            } finally {
+                if (acquired) {
+                    inFlight.release();
+                }
+            }
+        }
+    }
+
+    private List<EInvoiceSubmission> claim(String token) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> due = submissionRepository.findDueIds(now, Limit.of(batchSize));
+        if (due.isEmpty() || submissionRepository.claim(due, token, now) == 0) {
+            return List.of();
+        }
+        return submissionRepository.findByClaimToken(token);
+    }
+
+    private void send(List<EInvoiceSubmission> batch, String token) {
+        Map<Long, Invoice> invoices = invoiceRepository.findAllById(batch.stream().map(EInvoiceSubmission::getInvoiceId).toList())
+                .stream().collect(Collectors.toMap(Invoice::getId, Function.identity()));
+        List<IrpClient.Document> documents = batch.stream()
+                .map(submission -> invoices.get(submission.getInvoiceId()))
+                .filter(Objects::nonNull)
+                .map(this::document)
+                .toList();
+
+        // 1. One call for the whole batch; any transport or server error retries all of it
+        Map<String, IrpClient.Result> results = Map.of();
+        String callError = null;
+        long start = System.nanoTime();
+        try {
+            if (!documents.isEmpty()) {
+                results = irpClient.register(documents).stream()
+                        .collect(Collectors.toMap(IrpClient.Result::docNo, Function.identity(), (a, b) -> a));
+            }
+        } catch (RuntimeException e) {
+            callError = e.getClass().getSimpleName() + ": " + e.getMessage();
+            logger.warn("IRP call for {} invoices failed: {}", documents.size(), callError);
+        } finally {
+            callTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        // 2. Per-invoice outcome
+        LocalDateTime now = LocalDateTime.now();
+        for (EInvoiceSubmission submission : batch) {
+            submission.setAttempts(submission.getAttempts() + 1);
+            IrpClient.Result result = results.get(submission.getInvoiceNumber());
+            if (!invoices.containsKey(submission.getInvoiceId())) {
+                reject(submission, "Invoice no longer exists");
+            } else if (result != null && result.irn() != null) {
+                // A 2150 duplicate carries the IRN from the first registration, e.g. after a lost response
+                submission.setStatus(EInvoiceStatus.REGISTERED);
+                submission.setIrn(result.irn());
+                submission.setAckNumber(result.ackNo());
+                submission.setAckDate(result.ackDate());
+                submission.setLastError(null);
+            } else if (result != null) {
+                reject(submission, result.errorCode() + ": " + result.errorMessage());
+            } else {
+                retryLater(submission, callError != null ? callError : "No result for this invoice from the IRP", now);
+            }
+            outcomes.get(submission.getStatus()).increment();
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (ps, s) -> {
+            ps.setString(1, s.getStatus().name());
+            ps.setInt(2, s.getAttempts());
+            ps.setTimestamp(3, s.getNextAttemptAt() != null ? Timestamp.valueOf(s.getNextAttemptAt()) : null);
+            ps.setString(4, s.getIrn());
+            ps.setString(5, s.getAckNumber());
+            ps.setTimestamp(6, s.getAckDate() != null ? Timestamp.valueOf(s.getAckDate()) : null);
+            ps.setString(7, truncate(s.getLastError()));
+            ps.setTimestamp(8, Timestamp.valueOf(now));
+            ps.setLong(9, s.getId());
+            ps.setString(10, token);
+        });
+    }
+
+    private void retryLater(EInvoiceSubmission submission, String error, LocalDateTime now) {
+        if (submission.getAttempts() >= maxAttempts) {
+            reject(submission, "Gave up after " + submission.getAttempts() + " attempts: " + error);
+            return;
+        }
+        // backoff * 2^(attempts-1), capped, with the upper half jittered so retries from one outage spread out
+        long delay = Math.min(maxBackoff.toMillis(), backoff.toMillis() << Math.min(submission.getAttempts() - 1, 20));
+        delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        submission.setStatus(EInvoiceStatus.PENDING);
+        submission.setNextAttemptAt(now.plus(Duration.ofMillis(delay)));
+        submission.setLastError(error);
+    }
+
+    private static void reject(EInvoiceSubmission submission, String error) {
+        submission.setStatus(EInvoiceStatus.REJECTED);
+        submission.setLastError(error);
+    }
+
+    private IrpClient.Document document(Invoice invoice) {
+        return new IrpClient.Document(invoice.getInvoiceNumber(), invoice.getInvoiceDate(), sellerGstin,
+                invoice.getClientGstin(), invoice.getClientName(), invoice.getClientStateCode(),
+                invoice.getTaxableAmount(), invoice.getCgst(), invoice.getSgst(), invoice.getIgst(), invoice.getTotalAmount());
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > 500 ? error.substring(0, 500) : error;
+    }
+
+    @Override
+    public void start() {
+        if (!irpClient.isConfigured()) {
+            logger.error("E-invoice dispatcher not started: set billing.einvoice.irp-url or billing.einvoice.stub.enabled=true; "
+                    + "queued invoices stay PENDING until then");
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::runDispatcher, "einvoice-dispatcher");
+        thread.setDaemon(true);
+        dispatcher = thread;
+        thread.start();
+    }
+
+    // Lets calls in flight finish; anything still claimed after that is released by the lease
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = dispatcher;
+        LockSupport.unpark(thread);
+        callers.shutdown();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+            callers.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stops after the web server, like the audit log
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
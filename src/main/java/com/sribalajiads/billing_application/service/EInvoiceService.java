@@ -0,0 +1,66 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.model.EInvoiceStatus;
+import com.sribalajiads.billing_application.repository.EInvoiceSubmissionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Queues invoices for IRP registration. Queueing is a single set-based insert into einvoice_submissions and
+ * returns at once; EInvoiceDispatcher does the sending in the background.
+ */
+@Service
+public class EInvoiceService {
+
+    private static final String ENQUEUE_SQL = "insert ignore into einvoice_submissions " +
+            "(invoice_id, invoice_number, status, attempts, next_attempt_at, created_by, created_at, updated_at) " +
+            "select id, invoice_number, 'PENDING', 0, :now, :createdBy, :now, :now from invoices " +
+            "where id in (:ids) and status = 'ISSUED'";
+
+    @Autowired NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    @Autowired EInvoiceSubmissionRepository submissionRepository;
+    @Autowired EInvoiceDispatcher dispatcher;
+    @Autowired AuditorAware<String> auditorProvider;
+
+    // Number of invoices newly queued; unknown, cancelled and already queued invoices are skipped
+    public int enqueue(Collection<Long> invoiceIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", invoiceIds)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()))
+                .addValue("createdBy", auditorProvider.getCurrentAuditor().orElse("SYSTEM"));
+        int queued = namedParameterJdbcTemplate.update(ENQUEUE_SQL, params);
+        if (queued > 0) {
+            dispatcher.wake();
+        }
+        return queued;
+    }
+
+    // Sends a rejected invoice again, e.g. after its data was corrected
+    public boolean retry(Long invoiceId) {
+        boolean requeued = submissionRepository.requeueRejected(invoiceId, LocalDateTime.now()) > 0;
+        if (requeued) {
+            dispatcher.wake();
+        }
+        return requeued;
+    }
+
+    public Map<EInvoiceStatus, Long> summary() {
+        Map<EInvoiceStatus, Long> counts = new EnumMap<>(EInvoiceStatus.class);
+        for (EInvoiceStatus status : EInvoiceStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (Object[] row : submissionRepository.countByStatus()) {
+            counts.put((EInvoiceStatus) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+}
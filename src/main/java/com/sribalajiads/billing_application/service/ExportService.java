@@ -0,0 +1,224 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.model.InvoiceStatus;
+import com.sribalajiads.billing_application.util.CsvTableWriter;
+import com.sribalajiads.billing_application.util.StreamingQueries;
+import com.sribalajiads.billing_application.util.TableWriter;
+import com.sribalajiads.billing_application.util.XlsxTableWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Invoice register and user directory exports. Rows go from a forward-only cursor (StreamingQueries) through a
+ * fixed-size buffer to the response, so memory stays flat however many rows there are. Columns come from a
+ * fixed catalogue, so a ?columns= selection never reaches the SQL as text. Each export holds a connection for
+ * its whole run, so only a few may run at once. A client that disconnects fails the next write; the query is
+ * then cancelled rather than read to the end.
+ */
+@Service
+public class ExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    public enum Format {
+        CSV("csv", MediaType.parseMediaType("text/csv; charset=UTF-8")),
+        XLSX("xlsx", MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+
+        public final String extension;
+        public final MediaType mediaType;
+
+        Format(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        // Accepts ?format=csv as well as CSV
+        public static Format parse(String name) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Error: Unknown export format '" + name + "'; use csv or xlsx.");
+        }
+    }
+
+    private static final Map<String, String> INVOICE_COLUMNS = new LinkedHashMap<>();
+    private static final Map<String, String> USER_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        INVOICE_COLUMNS.put("invoiceNumber", "i.invoice_number");
+        INVOICE_COLUMNS.put("invoiceDate", "i.invoice_date");
+        INVOICE_COLUMNS.put("financialYear", "i.financial_year");
+        INVOICE_COLUMNS.put("releaseOrderId", "i.release_order_id");
+        INVOICE_COLUMNS.put("clientName", "i.client_name");
+        INVOICE_COLUMNS.put("clientGstin", "i.client_gstin");
+        INVOICE_COLUMNS.put("clientStateCode", "i.client_state_code");
+        INVOICE_COLUMNS.put("taxableAmount", "i.taxable_amount");
+        INVOICE_COLUMNS.put("cgst", "i.cgst");
+        INVOICE_COLUMNS.put("sgst", "i.sgst");
+        INVOICE_COLUMNS.put("igst", "i.igst");
+        INVOICE_COLUMNS.put("totalAmount", "i.total_amount");
+        INVOICE_COLUMNS.put("status", "i.status");
+        INVOICE_COLUMNS.put("createdBy", "i.created_by");
+        INVOICE_COLUMNS.put("createdAt", "i.created_at");
+
+        USER_COLUMNS.put("id", "u.id");
+        USER_COLUMNS.put("name", "u.name");
+        USER_COLUMNS.put("email", "u.email");
+        USER_COLUMNS.put("active", "u.active");
+        USER_COLUMNS.put("roles", "u.role_mask");
+        USER_COLUMNS.put("createdBy", "u.created_by");
+        USER_COLUMNS.put("createdAt", "u.created_at");
+        USER_COLUMNS.put("updatedAt", "u.updated_at");
+    }
+
+    @Autowired StreamingQueries streamingQueries;
+    @Autowired MeterRegistry meterRegistry;
+
+    private final Semaphore running;
+    private final int bufferSize;
+
+    public ExportService(@Value("${billing.export.max-concurrent:2}") int maxConcurrent,
+                         @Value("${billing.export.buffer-size:16384}") int bufferSize) {
+        this.running = new Semaphore(maxConcurrent);
+        this.bufferSize = bufferSize;
+    }
+
+    // Invoice register ordered by invoice date; from/to filter the invoice date and are both optional
+    public StreamingResponseBody invoices(Format format, String columns, LocalDate from, LocalDate to, InvoiceStatus status) {
+        List<String> selected = select(INVOICE_COLUMNS, columns);
+        StringBuilder sql = new StringBuilder("select ").append(expressions(INVOICE_COLUMNS, selected))
+                .append(" from invoices i where 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (from != null) {
+            sql.append(" and i.invoice_date >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            sql.append(" and i.invoice_date <= ?");
+            args.add(to);
+        }
+        if (status != null) {
+            sql.append(" and i.status = ?");
+            args.add(status.name());
+        }
+        sql.append(" order by i.invoice_date, i.id");
+        return export("invoices", format, selected, sql.toString(), args.toArray());
+    }
+
+    // User directory in id order; from/to filter the creation date
+    public StreamingResponseBody users(Format format, String columns, LocalDate from, LocalDate to, Boolean active) {
+        List<String> selected = select(USER_COLUMNS, columns);
+        StringBuilder sql = new StringBuilder("select ").append(expressions(USER_COLUMNS, selected))
+                .append(" from users u where 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (from != null) {
+            sql.append(" and u.created_at >= ?");
+            args.add(from.atStartOfDay());
+        }
+        if (to != null) {
+            sql.append(" and u.created_at < ?");
+            args.add(to.plusDays(1).atStartOfDay());
+        }
+        if (active != null) {
+            sql.append(" and u.active = ?");
+            args.add(active);
+        }
+        sql.append(" order by u.id");
+        return export("users", format, selected, sql.toString(), args.toArray());
+    }
+
+    private StreamingResponseBody export(String dataset, Format format, List<String> columns, String sql, Object[] args) {
+        if (!running.tryAcquire()) {
+            throw new IllegalStateException("Error: Too many exports are running; try again shortly.");
+        }
+        return outputStream -> {
+            long[] rows = {0};
+            try {
+                TableWriter writer = format == Format.XLSX
+                        ? new XlsxTableWriter(outputStream, bufferSize)
+                        : new CsvTableWriter(outputStream, bufferSize);
+                writer.header(columns);
+                Object[] values = new Object[columns.size()];
+                int rolesAt = dataset.equals("users") ? columns.indexOf("roles") : -1;
+                streamingQueries.query(sql, rs -> {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = rs.getObject(i + 1);
+                    }
+                    if (rolesAt >= 0) {
+                        values[rolesAt] = roleNames(rs.getInt(rolesAt + 1));
+                    }
+                    try {
+                        writer.row(values);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    rows[0]++;
+                }, args);
+                writer.finish();
+                meterRegistry.counter("billing.export.rows", "dataset", dataset, "outcome", "completed").increment(rows[0]);
+            } catch (UncheckedIOException | IOException e) {
+                // Client went away; the query has already been cancelled
+                meterRegistry.counter("billing.export.rows", "dataset", dataset, "outcome", "aborted").increment(rows[0]);
+                logger.info("Export of {} aborted after {} rows: {}", dataset, rows[0], e.getMessage());
+            } finally {
+                running.release();
+            }
+        };
+    }
+
+    // Body for an error response from an endpoint whose declared body type has to be StreamingResponseBody
+    public static StreamingResponseBody message(String text) {
+        return out -> out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // role_mask as the role names, ';'-separated
+    private static String roleNames(int roleMask) {
+        StringBuilder names = new StringBuilder();
+        for (ERole role : ERole.fromMask(roleMask)) {
+            if (!names.isEmpty()) {
+                names.append(';');
+            }
+            names.append(role.name());
+        }
+        return names.toString();
+    }
+
+    private static List<String> select(Map<String, String> catalogue, String columns) {
+        if (columns == null || columns.isBlank()) {
+            return List.copyOf(catalogue.keySet());
+        }
+        List<String> selected = new ArrayList<>();
+        for (String column : columns.split(",")) {
+            String name = column.trim();
+            if (!catalogue.containsKey(name)) {
+                throw new IllegalArgumentException("Error: Unknown column '" + name + "'. Available: " + String.join(",", catalogue.keySet()));
+            }
+            if (!selected.contains(name)) {
+                selected.add(name);
+            }
+        }
+        return selected;
+    }
+
+    private static String expressions(Map<String, String> catalogue, List<String> columns) {
+        return String.join(", ", columns.stream().map(catalogue::get).toList());
+    }
+}
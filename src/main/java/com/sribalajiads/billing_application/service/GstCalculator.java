@@ -0,0 +1,45 @@
+package com.sribalajiads.billing_application.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * GST on advertising services. Supplies within our own state pay CGST and SGST at half the rate each;
+ * supplies to any other state pay IGST at the full rate.
+ */
+@Component
+public class GstCalculator {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final String companyStateCode;
+    private final BigDecimal rate;
+    private final BigDecimal halfRate;
+
+    public GstCalculator(@Value("${billing.company.state-code:36}") String companyStateCode,
+                         @Value("${billing.gst.rate:18}") BigDecimal ratePercent) {
+        this.companyStateCode = companyStateCode;
+        this.rate = ratePercent.divide(HUNDRED);
+        this.halfRate = rate.divide(BigDecimal.valueOf(2));
+    }
+
+    public record Breakdown(BigDecimal cgst, BigDecimal sgst, BigDecimal igst, BigDecimal total) {
+    }
+
+    public Breakdown calculate(BigDecimal taxable, String placeOfSupply) {
+        BigDecimal zero = BigDecimal.ZERO.setScale(2);
+        if (companyStateCode.equals(placeOfSupply)) {
+            BigDecimal half = round(taxable.multiply(halfRate));
+            return new Breakdown(half, half, zero, taxable.add(half).add(half));
+        }
+        BigDecimal igst = round(taxable.multiply(rate));
+        return new Breakdown(zero, zero, igst, taxable.add(igst));
+    }
+
+    private static BigDecimal round(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,211 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.model.InvoiceSequence;
+import com.sribalajiads.billing_application.repository.InvoiceSequenceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Allocates invoice numbers, unique and increasing per series and financial year.
+ * <p>
+ * By default each node reserves a block of numbers with one short UPDATE on the counter row and hands them out
+ * from memory with a compare-and-set, so parallel billing workers never queue on the row lock. Numbers left in a
+ * block when the node stops, or taken by a transaction that rolls back, are skipped, and numbers from different
+ * nodes interleave. Series listed in billing.invoice.gap-free-series instead take numbers from the counter row
+ * locked until the caller commits: no gaps, at the cost of serialising invoice creation in that series.
+ */
+@Service
+public class InvoiceNumberService {
+
+    @Autowired InvoiceSequenceRepository invoiceSequenceRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired MeterRegistry meterRegistry;
+
+    private final int blockSize;
+    private final Set<String> gapFreeSeries;
+
+    // (series, financial year) -> block currently being handed out on this node
+    private final Map<String, BlockSequence> sequences = new ConcurrentHashMap<>();
+
+    private TransactionTemplate requiresNew;
+    private Counter blockNumbers;
+    private Counter gapFreeNumbers;
+    private Timer blockReservations;
+    private Timer gapFreeReservations;
+
+    public InvoiceNumberService(@Value("${billing.invoice.block-size:100}") int blockSize,
+                                @Value("${billing.invoice.gap-free-series:}") String gapFreeSeries) {
+        this.blockSize = blockSize;
+        this.gapFreeSeries = Arrays.stream(gapFreeSeries.split(","))
+                .map(String::trim)
+                .filter(series -> !series.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @PostConstruct
+    void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        blockNumbers = Counter.builder("billing.invoice.numbers.allocated")
+                .description("Invoice numbers handed out")
+                .tag("mode", "block")
+                .register(meterRegistry);
+        gapFreeNumbers = Counter.builder("billing.invoice.numbers.allocated")
+                .description("Invoice numbers handed out")
+                .tag("mode", "gap-free")
+                .register(meterRegistry);
+        blockReservations = Timer.builder("billing.invoice.numbers.reserve")
+                .description("Time to take numbers from the counter row, including waiting for its lock")
+                .tag("mode", "block")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        gapFreeReservations = Timer.builder("billing.invoice.numbers.reserve")
+                .description("Time to take numbers from the counter row, including waiting for its lock")
+                .tag("mode", "gap-free")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    // Indian financial year (April to March) of a date, e.g. 2026-03-31 -> "25-26"
+    public static String financialYear(LocalDate date) {
+        int start = date.getMonthValue() >= 4 ? date.getYear() : date.getYear() - 1;
+        return String.format("%02d-%02d", start % 100, (start + 1) % 100);
+    }
+
+    public static String format(String series, String financialYear, long number) {
+        return String.format("%s/%s/%06d", series, financialYear, number);
+    }
+
+    public boolean isGapFree(String series) {
+        return gapFreeSeries.contains(series);
+    }
+
+    // Creates the counter in its own transaction, so callers never take a lock on a row they just inserted
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void ensureSequence(String series, String financialYear) {
+        if (invoiceSequenceRepository.existsBySeriesAndFinancialYear(series, financialYear)) {
+            return;
+        }
+        // Ignored if another caller created it concurrently
+        jdbcTemplate.update("insert ignore into invoice_sequences (series, financial_year, next_value) values (?, ?, 1)",
+                series, financialYear);
+    }
+
+    /**
+     * {@code count} new numbers in increasing order. Gap-free series must be called inside the transaction that
+     * stores the invoices, and their numbers are consecutive; block numbers need no transaction and may have gaps.
+     */
+    public long[] allocate(String series, String financialYear, int count) {
+        if (isGapFree(series)) {
+            return allocateGapFree(series, financialYear, count);
+        }
+        BlockSequence sequence = sequences.computeIfAbsent(series + "/" + financialYear,
+                key -> new BlockSequence(series, financialYear));
+        long[] numbers = new long[count];
+        for (int i = 0; i < count; i++) {
+            numbers[i] = sequence.next();
+        }
+        blockNumbers.increment(count);
+        return numbers;
+    }
+
+    private long[] allocateGapFree(String series, String financialYear, int count) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Gap-free series " + series + " must be numbered inside the invoice transaction");
+        }
+        long start = System.nanoTime();
+        InvoiceSequence sequence = invoiceSequenceRepository.findForUpdate(series, financialYear)
+                .orElseThrow(() -> new IllegalStateException("No invoice sequence for " + series + " " + financialYear));
+        long first = sequence.getNextValue();
+        sequence.setNextValue(first + count);
+        gapFreeReservations.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        gapFreeNumbers.increment(count);
+
+        long[] numbers = new long[count];
+        for (int i = 0; i < count; i++) {
+            numbers[i] = first + i;
+        }
+        return numbers;
+    }
+
+    // [start, start + blockSize) taken from the counter row in a transaction of its own
+    private long reserveBlock(String series, String financialYear) {
+        return blockReservations.record(() -> requiresNew.execute(status -> {
+            String update = "update invoice_sequences set next_value = next_value + ? where series = ? and financial_year = ?";
+            if (jdbcTemplate.update(update, blockSize, series, financialYear) == 0) {
+                jdbcTemplate.update("insert ignore into invoice_sequences (series, financial_year, next_value) values (?, ?, 1)",
+                        series, financialYear);
+                jdbcTemplate.update(update, blockSize, series, financialYear);
+            }
+            Long next = jdbcTemplate.queryForObject("select next_value from invoice_sequences " +
+                    "where series = ? and financial_year = ?", Long.class, series, financialYear);
+            return next - blockSize;
+        }));
+    }
+
+    private class BlockSequence {
+        final String series;
+        final String financialYear;
+        final ReentrantLock refillLock = new ReentrantLock();
+        volatile Block current = new Block(0, 0);
+
+        BlockSequence(String series, String financialYear) {
+            this.series = series;
+            this.financialYear = financialYear;
+        }
+
+        long next() {
+            while (true) {
+                Block block = current;
+                long number = block.next.getAndIncrement();
+                if (number < block.end) {
+                    return number;
+                }
+                // Exhausted: one thread reserves the next block while the others wait for it
+                refillLock.lock();
+                try {
+                    if (current == block) {
+                        long start = reserveBlock(series, financialYear);
+                        current = new Block(start, start + blockSize);
+                    }
+                } finally {
+                    refillLock.unlock();
+                }
+            }
+        }
+    }
+
+    private static class Block {
+        final AtomicLong next;
+        final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.model.Invoice;
+import com.sribalajiads.billing_application.model.InvoiceStatus;
+import com.sribalajiads.billing_application.model.ReleaseOrder;
+import com.sribalajiads.billing_application.repository.InvoiceRepository;
+import com.sribalajiads.billing_application.repository.ReleaseOrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+public class InvoiceService {
+
+    @Autowired InvoiceRepository invoiceRepository;
+    @Autowired ReleaseOrderRepository releaseOrderRepository;
+    @Autowired RevenueReadModel revenueReadModel;
+
+    // Cancels an issued invoice and takes it out of the revenue figures in the same transaction
+    @Transactional
+    public Invoice cancel(Long id) {
+        Invoice invoice = invoiceRepository.findForUpdateById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Error: Invoice not found."));
+        if (invoice.getStatus() == InvoiceStatus.CANCELLED) {
+            return invoice;
+        }
+        invoice.setStatus(InvoiceStatus.CANCELLED);
+        revenueReadModel.apply(List.of(revenue(invoice).negate()), null);
+        return invoice;
+    }
+
+    private RevenueReadModel.Delta revenue(Invoice invoice) {
+        String owner = releaseOrderRepository.findById(invoice.getReleaseOrderId())
+                .map(ReleaseOrder::getCreatedBy)
+                .orElse(invoice.getCreatedBy());
+        return RevenueReadModel.Delta.issued(invoice.getInvoiceDate(), invoice.getClientName(), owner,
+                invoice.getTaxableAmount(), invoice.getCgst(), invoice.getSgst(), invoice.getIgst(), invoice.getTotalAmount());
+    }
+}
@@ -0,0 +1,88 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.util.IrpStubServer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.math.BigDecimal;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * HTTP client for the e-invoice registration portal (IRP), through a GSP-style bulk endpoint that takes a batch
+ * of documents and answers per document. Without billing.einvoice.irp-url it talks to the local IrpStubServer.
+ */
+@Component
+public class IrpClient {
+
+    // The IRP answers a document it has already registered with this code and the original IRN
+    public static final String DUPLICATE_IRN = "2150";
+
+    public record Document(String docNo, LocalDate docDate, String sellerGstin, String buyerGstin, String buyerName,
+                           String placeOfSupply, BigDecimal taxable, BigDecimal cgst, BigDecimal sgst, BigDecimal igst,
+                           BigDecimal total) {
+    }
+
+    // Either irn (and the acknowledgement) or errorCode is set
+    public record Result(String docNo, String irn, String ackNo, LocalDateTime ackDate, String errorCode, String errorMessage) {
+    }
+
+    private final String irpUrl;
+    private final Duration connectTimeout;
+    private final Duration callTimeout;
+    private final ObjectProvider<IrpStubServer> stubServer;
+    private volatile RestClient restClient;
+
+    public IrpClient(@Value("${billing.einvoice.irp-url:}") String irpUrl,
+                     @Value("${billing.einvoice.connect-timeout:5s}") Duration connectTimeout,
+                     @Value("${billing.einvoice.call-timeout:30s}") Duration callTimeout,
+                     ObjectProvider<IrpStubServer> stubServer) {
+        this.irpUrl = irpUrl;
+        this.connectTimeout = connectTimeout;
+        this.callTimeout = callTimeout;
+        this.stubServer = stubServer;
+    }
+
+    // Without either the dispatcher stays off, so queued invoices wait for configuration instead of failing their retries
+    public boolean isConfigured() {
+        return !irpUrl.isBlank() || stubServer.getIfAvailable() != null;
+    }
+
+    // Throws on timeouts, connection failures and non-2xx responses; the whole batch is then retried
+    public List<Result> register(List<Document> documents) {
+        return client().post()
+                .uri("/einvoice/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(documents)
+                .retrieve()
+                .body(new ParameterizedTypeReference<List<Result>>() { });
+    }
+
+    private RestClient client() {
+        RestClient client = restClient;
+        if (client == null) {
+            String baseUrl = irpUrl;
+            if (baseUrl.isBlank()) {
+                IrpStubServer stub = stubServer.getIfAvailable();
+                if (stub == null) {
+                    throw new IllegalStateException("billing.einvoice.irp-url is not set and the IRP stub is disabled");
+                }
+                baseUrl = stub.getBaseUrl();
+            }
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(
+                    HttpClient.newBuilder().connectTimeout(connectTimeout).build());
+            requestFactory.setReadTimeout(callTimeout);
+            client = RestClient.builder().baseUrl(baseUrl).requestFactory(requestFactory).build();
+            restClient = client;
+        }
+        return client;
+    }
+}
@@ -0,0 +1,285 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.dto.ReleaseOrderBatchReport;
+import com.sribalajiads.billing_application.dto.ReleaseOrderRequest;
+import com.sribalajiads.billing_application.dto.ReleaseOrderResult;
+import com.sribalajiads.billing_application.model.ReleaseOrder;
+import com.sribalajiads.billing_application.model.ReleaseOrderStatus;
+import com.sribalajiads.billing_application.repository.ReleaseOrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Books release orders in bulk. Valid orders are written in chunks, each with one batched INSERT IGNORE in its own
+ * short transaction; the unique (created_by, idempotency_key) index drops repeats, so there is no read-before-write.
+ * One indexed lookup per chunk then tells new rows (stamped with this submission's id) from earlier ones.
+ * Keys are matched the way MySQL's default collation compares them, ignoring case and accents.
+ */
+@Service
+public class ReleaseOrderService {
+
+    private static final String INSERT_SQL = "insert ignore into release_orders " +
+            "(idempotency_key, client_name, client_gstin, client_state_code, inventory_code, description, " +
+            "start_date, end_date, amount, status, created_by, created_at, payload_hash, submission_id) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Bookings are for real campaigns; anything outside this window is a typo
+    private static final LocalDate EARLIEST_DATE = LocalDate.of(2000, 1, 1);
+    private static final LocalDate LATEST_DATE = LocalDate.of(2099, 12, 31);
+
+    @Autowired ReleaseOrderRepository releaseOrderRepository;
+    @Autowired Validator validator;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired AuditorAware<String> auditorProvider;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired AvailabilityIndex availabilityIndex;
+
+    private final int chunkSize;
+    private final int maxBatchSize;
+
+    private final Map<ReleaseOrderResult.Status, Counter> outcomes = new EnumMap<>(ReleaseOrderResult.Status.class);
+    private Timer chunkTimer;
+
+    public ReleaseOrderService(@Value("${billing.ro.chunk-size:500}") int chunkSize,
+                               @Value("${billing.ro.max-batch-size:5000}") int maxBatchSize) {
+        this.chunkSize = chunkSize;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @PostConstruct
+    void bindMetrics() {
+        for (ReleaseOrderResult.Status status : ReleaseOrderResult.Status.values()) {
+            outcomes.put(status, Counter.builder("billing.ro.submitted")
+                    .description("Release orders submitted, by outcome")
+                    .tag("outcome", status.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        chunkTimer = Timer.builder("billing.ro.insert.chunk")
+                .description("Time to insert and reconcile one chunk of release orders")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public ReleaseOrderResult submit(ReleaseOrderRequest request) {
+        return submitAll(List.of(request)).getResults().get(0);
+    }
+
+    public ReleaseOrderBatchReport submitAll(List<ReleaseOrderRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Error: A batch may hold at most " + maxBatchSize + " release orders.");
+        }
+        String auditor = auditorProvider.getCurrentAuditor().orElse("SYSTEM");
+        ReleaseOrderBatchReport report = new ReleaseOrderBatchReport();
+
+        // 1. Validate, and resolve repeats of a key inside this batch against its first use
+        Map<String, Row> firstByKey = new HashMap<>();
+        List<Row> candidates = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            ReleaseOrderRequest request = requests.get(i);
+            String problem = validate(request);
+            if (problem != null) {
+                add(report, new ReleaseOrderResult(i, request != null ? request.getIdempotencyKey() : null,
+                        ReleaseOrderResult.Status.INVALID, null, problem));
+                continue;
+            }
+            Row row = new Row(i, request, payloadHash(request));
+            Row first = firstByKey.putIfAbsent(row.key, row);
+            if (first == null) {
+                candidates.add(row);
+            } else {
+                first.repeats.add(row);
+            }
+        }
+
+        // 2. Insert chunk by chunk
+        for (int from = 0; from < candidates.size(); from += chunkSize) {
+            List<Row> chunk = candidates.subList(from, Math.min(from + chunkSize, candidates.size()));
+            chunkTimer.record(() -> insert(chunk, auditor, report));
+        }
+
+        report.sortByIndex();
+        return report;
+    }
+
+    private void insert(List<Row> chunk, String auditor, ReleaseOrderBatchReport report) {
+        String submissionId = UUID.randomUUID().toString();
+        List<Object[]> stored = transactionTemplate.execute(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(INSERT_SQL, chunk, chunk.size(), (ps, row) -> {
+                ReleaseOrderRequest r = row.request;
+                ps.setString(1, r.getIdempotencyKey());
+                ps.setString(2, r.getClientName());
+                ps.setString(3, r.getClientGstin());
+                ps.setString(4, r.getClientStateCode());
+                ps.setString(5, r.getInventoryCode());
+                ps.setString(6, r.getDescription());
+                ps.setDate(7, Date.valueOf(r.getStartDate()));
+                ps.setDate(8, Date.valueOf(r.getEndDate()));
+                ps.setBigDecimal(9, r.getAmount());
+                ps.setString(10, ReleaseOrderStatus.BOOKED.name());
+                ps.setString(11, auditor);
+                ps.setTimestamp(12, now);
+                ps.setString(13, row.payloadHash);
+                ps.setString(14, submissionId);
+            });
+
+            // Update counts from a rewritten batch don't say which rows were ignored, so read the keys back
+            return releaseOrderRepository.findByKeys(auditor, chunk.stream().map(row -> row.request.getIdempotencyKey()).toList());
+        });
+
+        // The database compares keys without case, so a row can come back under another spelling of its key
+        Map<String, Object[]> byKey = new HashMap<>();
+        Map<String, Object[]> byMatchKey = new HashMap<>();
+        for (Object[] r : stored) {
+            byKey.put((String) r[1], r);
+            byMatchKey.putIfAbsent(matchKey((String) r[1]), r);
+        }
+        for (Row row : chunk) {
+            Object[] r = byKey.getOrDefault(row.request.getIdempotencyKey(), byMatchKey.get(row.key));
+            if (r == null) {
+                // The database folded this key onto a stored one in a way matchKey does not
+                reportUnmatched(report, row);
+                continue;
+            }
+            Long id = (Long) r[0];
+            boolean samePayload = row.payloadHash.equals(r[2]);
+            if (submissionId.equals(r[3])) {
+                add(report, result(row, ReleaseOrderResult.Status.CREATED, id, null));
+                availabilityIndex.add(id, row.request.getInventoryCode(), row.request.getStartDate(), row.request.getEndDate());
+            } else if (samePayload) {
+                add(report, result(row, ReleaseOrderResult.Status.DUPLICATE, id, "Already booked with this idempotency key."));
+            } else {
+                add(report, result(row, ReleaseOrderResult.Status.CONFLICT, id, "Error: Idempotency key was already used for a different release order."));
+            }
+            for (Row repeat : row.repeats) {
+                add(report, repeat.payloadHash.equals(r[2])
+                        ? result(repeat, ReleaseOrderResult.Status.DUPLICATE, id, "Idempotency key appears earlier in this batch.")
+                        : result(repeat, ReleaseOrderResult.Status.CONFLICT, id, "Error: Idempotency key appears earlier in this batch with a different order."));
+            }
+        }
+    }
+
+    private void reportUnmatched(ReleaseOrderBatchReport report, Row row) {
+        String message = "Error: Idempotency key clashes with an existing key that differs only in spelling.";
+        add(report, result(row, ReleaseOrderResult.Status.CONFLICT, null, message));
+        for (Row repeat : row.repeats) {
+            add(report, result(repeat, ReleaseOrderResult.Status.CONFLICT, null, message));
+        }
+    }
+
+    // Frees the booked days; billed orders cannot be cancelled here
+    @Transactional
+    public ReleaseOrder cancel(Long id) {
+        String auditor = auditorProvider.getCurrentAuditor().orElse("SYSTEM");
+        ReleaseOrder order = releaseOrderRepository.findForUpdateByIdAndCreatedBy(id, auditor)
+                .orElseThrow(() -> new IllegalArgumentException("Error: Release order not found."));
+        if (order.getStatus() == ReleaseOrderStatus.BILLED) {
+            throw new IllegalStateException("Error: Release order is already billed.");
+        }
+        if (order.getStatus() == ReleaseOrderStatus.BOOKED) {
+            order.setStatus(ReleaseOrderStatus.CANCELLED);
+            order.setCancelledAt(LocalDateTime.now());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    availabilityIndex.remove(id);
+                }
+            });
+        }
+        return order;
+    }
+
+    private String validate(ReleaseOrderRequest request) {
+        if (request == null) {
+            return "Error: Release order is empty.";
+        }
+        Set<ConstraintViolation<ReleaseOrderRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<ReleaseOrderRequest> violation = violations.iterator().next();
+            return "Error: " + violation.getPropertyPath() + " " + violation.getMessage();
+        }
+        if (request.getEndDate().isBefore(request.getStartDate())) {
+            return "Error: endDate is before startDate.";
+        }
+        if (request.getStartDate().isBefore(EARLIEST_DATE) || request.getEndDate().isAfter(LATEST_DATE)) {
+            return "Error: Dates must fall between " + EARLIEST_DATE + " and " + LATEST_DATE + ".";
+        }
+        if (ChronoUnit.DAYS.between(request.getStartDate(), request.getEndDate()) > AvailabilityIndex.MAX_RANGE_DAYS) {
+            return "Error: A release order may run for at most " + AvailabilityIndex.MAX_RANGE_DAYS + " days.";
+        }
+        return null;
+    }
+
+    private void add(ReleaseOrderBatchReport report, ReleaseOrderResult result) {
+        report.add(result);
+        outcomes.get(result.getStatus()).increment();
+    }
+
+    private static ReleaseOrderResult result(Row row, ReleaseOrderResult.Status status, Long id, String message) {
+        return new ReleaseOrderResult(row.index, row.request.getIdempotencyKey(), status, id, message);
+    }
+
+    // Lower-cased with accents stripped, as the _ci/_ai collation of the unique index compares keys
+    private static String matchKey(String idempotencyKey) {
+        String decomposed = Normalizer.normalize(idempotencyKey, Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+
+    // Amount is normalised so 100 and 100.00 count as the same order
+    private static String payloadHash(ReleaseOrderRequest r) {
+        String canonical = String.join("\u001f",
+                r.getClientName(), Objects.toString(r.getClientGstin(), ""), r.getClientStateCode(),
+                r.getInventoryCode(), Objects.toString(r.getDescription(), ""),
+                r.getStartDate().toString(), r.getEndDate().toString(), r.getAmount().setScale(2).toPlainString());
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static class Row {
+        final int index;
+        final ReleaseOrderRequest request;
+        final String payloadHash;
+        final String key;
+        final List<Row> repeats = new ArrayList<>(0);
+
+        Row(int index, ReleaseOrderRequest request, String payloadHash) {
+            this.index = index;
+            this.request = request;
+            this.payloadHash = payloadHash;
+            this.key = matchKey(request.getIdempotencyKey());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.security.services.UserChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.SecureRandom;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A change counter per read-heavy resource, for strong ETags on its GET endpoints. Every write that can change what
+ * those endpoints return bumps the counter once it commits, so an unchanged resource can be answered with a 304
+ * without a query. Read the ETag before reading the data: a change in between then only costs one extra download.
+ *
+ * Counters live on this node only and start again at zero, so each ETag carries a random epoch picked at startup;
+ * a client moving to another node or across a restart gets a full response instead of a wrong 304.
+ * Changes made on other nodes arrive through the same polls that keep this node's caches fresh.
+ */
+@Component
+public class ResourceVersions {
+
+    public enum Resource {
+        USERS("users"),
+        ROLES("roles"), // Seeded at startup and never changed at runtime, so only the epoch moves it
+        REVENUE("revenue");
+
+        private final String tag;
+
+        Resource(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final String epoch = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+    private final Map<Resource, AtomicLong> versions = new EnumMap<>(Resource.class);
+
+    public ResourceVersions() {
+        for (Resource resource : Resource.values()) {
+            versions.put(resource, new AtomicLong());
+        }
+    }
+
+    public String etag(Resource resource) {
+        return "\"" + resource.tag + "-" + epoch + "-" + versions.get(resource).get() + "\"";
+    }
+
+    // Inside a transaction the bump waits for the commit, so no reader can pair the new ETag with the data from before it
+    public void changed(Resource resource) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.get(resource).incrementAndGet();
+                }
+            });
+        } else {
+            versions.get(resource).incrementAndGet();
+        }
+    }
+
+    // Role or status changed here or on another node; for local changes this is a second, harmless bump
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        changed(Resource.USERS);
+    }
+}
@@ -0,0 +1,169 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.model.BillingRunStatus;
+import com.sribalajiads.billing_application.model.InvoiceStatus;
+import com.sribalajiads.billing_application.repository.BillingRunRepository;
+import com.sribalajiads.billing_application.repository.RevenueSummaryRepository;
+import com.sribalajiads.billing_application.service.ResourceVersions.Resource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps revenue_summary in step with invoice changes. Callers hand over signed deltas inside the transaction
+ * that writes the invoices; they are merged per (month, client, owner) and applied as one batched upsert in
+ * key order, so concurrent billing chunks lock the summary rows in the same order. An amendment is a
+ * reversal of the old figures plus the new ones. rebuild() recomputes everything from the invoices table.
+ */
+@Service
+public class RevenueReadModel {
+    private static final Logger logger = LoggerFactory.getLogger(RevenueReadModel.class);
+
+    private static final String UPSERT_SQL = "insert into revenue_summary " +
+            "(period, client_name, owner, invoice_count, taxable_amount, cgst, sgst, igst, total_amount, updated_by, updated_at) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) on duplicate key update " +
+            "invoice_count = invoice_count + values(invoice_count), taxable_amount = taxable_amount + values(taxable_amount), " +
+            "cgst = cgst + values(cgst), sgst = sgst + values(sgst), igst = igst + values(igst), " +
+            "total_amount = total_amount + values(total_amount), updated_by = values(updated_by), updated_at = values(updated_at)";
+
+    // Owner is the release order's creator; invoices whose order is gone fall back to the invoice creator
+    private static final String REBUILD_SQL = "insert into revenue_summary " +
+            "(period, client_name, owner, invoice_count, taxable_amount, cgst, sgst, igst, total_amount, updated_by, updated_at) " +
+            "select substring(cast(i.invoice_date as char(10)), 1, 7), i.client_name, coalesce(r.created_by, i.created_by), " +
+            "count(*), sum(i.taxable_amount), sum(i.cgst), sum(i.sgst), sum(i.igst), sum(i.total_amount), ?, ? " +
+            "from invoices i left join release_orders r on r.id = i.release_order_id where i.status = ? " +
+            "group by substring(cast(i.invoice_date as char(10)), 1, 7), i.client_name, coalesce(r.created_by, i.created_by)";
+
+    @Autowired RevenueSummaryRepository summaryRepository;
+    @Autowired BillingRunRepository billingRunRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired AuditorAware<String> auditorProvider;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired ResourceVersions resourceVersions;
+
+    private Counter rowsUpserted;
+    private String lastSeenState; // Poller only
+
+    public record Key(String period, String clientName, String owner) {
+        private static final Comparator<Key> ORDER = Comparator.comparing(Key::period)
+                .thenComparing(Key::clientName).thenComparing(Key::owner);
+    }
+
+    // Signed change to one summary row: +1 and the invoice figures when issued, -1 and negated figures when cancelled
+    public record Delta(Key key, long invoiceCount, BigDecimal taxableAmount, BigDecimal cgst, BigDecimal sgst,
+                        BigDecimal igst, BigDecimal totalAmount) {
+
+        public static Delta issued(LocalDate invoiceDate, String clientName, String owner, BigDecimal taxableAmount,
+                                   BigDecimal cgst, BigDecimal sgst, BigDecimal igst, BigDecimal totalAmount) {
+            return new Delta(new Key(YearMonth.from(invoiceDate).toString(), clientName, owner),
+                    1, taxableAmount, cgst, sgst, igst, totalAmount);
+        }
+
+        public Delta negate() {
+            return new Delta(key, -invoiceCount, taxableAmount.negate(), cgst.negate(), sgst.negate(), igst.negate(), totalAmount.negate());
+        }
+
+        Delta plus(Delta other) {
+            return new Delta(key, invoiceCount + other.invoiceCount, taxableAmount.add(other.taxableAmount),
+                    cgst.add(other.cgst), sgst.add(other.sgst), igst.add(other.igst), totalAmount.add(other.totalAmount));
+        }
+    }
+
+    @PostConstruct
+    void bindMetrics() {
+        rowsUpserted = Counter.builder("billing.revenue.summary.upserts")
+                .description("Revenue summary rows changed by invoice writes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Applies the deltas to the summary rows. Must run inside the transaction that writes the invoices.
+     * actor is recorded as the rows' updatedBy; null means the current user from the auditor provider.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Collection<Delta> deltas, String actor) {
+        Map<Key, Delta> merged = new TreeMap<>(Key.ORDER);
+        for (Delta delta : deltas) {
+            merged.merge(delta.key(), delta, Delta::plus);
+        }
+        if (merged.isEmpty()) {
+            return;
+        }
+        String updatedBy = actor != null ? actor : auditorProvider.getCurrentAuditor().orElse("SYSTEM");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(merged.size());
+        for (Delta d : merged.values()) {
+            rows.add(new Object[]{d.key().period(), d.key().clientName(), d.key().owner(), d.invoiceCount(),
+                    d.taxableAmount(), d.cgst(), d.sgst(), d.igst(), d.totalAmount(), updatedBy, now});
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+        rowsUpserted.increment(rows.size());
+        resourceVersions.changed(Resource.REVENUE);
+    }
+
+    /**
+     * Recomputes every summary row from the issued invoices, attributed to the current user.
+     * Refused while a billing run is writing invoices; cancellations meanwhile wait on the rows it reads.
+     */
+    @Transactional
+    public int rebuild() {
+        if (!billingRunRepository.findByStatus(BillingRunStatus.RUNNING).isEmpty()) {
+            throw new IllegalStateException("Error: A billing run is in progress; rebuild the revenue summary once it finishes.");
+        }
+        String actor = auditorProvider.getCurrentAuditor().orElse("SYSTEM");
+        jdbcTemplate.update("delete from revenue_summary");
+        int rows = jdbcTemplate.update(REBUILD_SQL, actor, Timestamp.valueOf(LocalDateTime.now()), InvoiceStatus.ISSUED.name());
+        logger.info("Revenue summary rebuilt by {}: {} rows", actor, rows);
+        resourceVersions.changed(Resource.REVENUE);
+        return rows;
+    }
+
+    // Writes from other nodes only show up in the table: a new row count or latest update moves the report ETags
+    @Scheduled(fixedDelayString = "${billing.revenue.summary.poll-interval:5s}")
+    public void pollForChanges() {
+        String state = jdbcTemplate.queryForObject("select count(*), max(updated_at) from revenue_summary",
+                (rs, rowNum) -> rs.getLong(1) + "/" + rs.getTimestamp(2));
+        if (!state.equals(lastSeenState)) {
+            lastSeenState = state;
+            resourceVersions.changed(Resource.REVENUE);
+        }
+    }
+
+    // Fills an empty summary from existing invoices, e.g. the first start after this table was added
+    @EventListener(ApplicationReadyEvent.class)
+    void seedIfEmpty() {
+        if (summaryRepository.count() > 0 || jdbcTemplate.queryForList("select id from invoices limit 1").isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> rebuild());
+        } catch (IllegalStateException e) {
+            logger.warn("Revenue summary is empty but was not seeded: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.repository.RoleActiveCountRepository;
+import com.sribalajiads.billing_application.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps role_active_counts in step with user changes. The last-admin check is a conditional update
+ * on the ROLE_ADMIN row, so it costs one indexed write and stays correct when two admins are demoted
+ * at the same moment: the second update waits for the first row lock and then finds the count at one.
+ */
+@Service
+public class RoleCounterService {
+
+    @Autowired RoleActiveCountRepository countRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    /**
+     * Applies the counter changes for one user going from (oldRoles, oldActive) to (newRoles, newActive).
+     * Returns false, having changed nothing, if it would leave no active admin.
+     * Must run inside the transaction that saves the user.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean applyChange(Set<ERole> oldRoles, boolean oldActive, Set<ERole> newRoles, boolean newActive) {
+        Map<ERole, Long> deltas = new EnumMap<>(ERole.class);
+        if (oldActive) {
+            oldRoles.forEach(role -> deltas.merge(role, -1L, Long::sum));
+        }
+        if (newActive) {
+            newRoles.forEach(role -> deltas.merge(role, 1L, Long::sum));
+        }
+
+        // The admin row always goes first and the rest follow in enum order, so every transaction locks rows in the same order
+        long adminDelta = deltas.getOrDefault(ERole.ROLE_ADMIN, 0L);
+        if (adminDelta < 0 && countRepository.decrementUnlessLast(ERole.ROLE_ADMIN) == 0) {
+            return false;
+        } else if (adminDelta > 0) {
+            countRepository.adjust(ERole.ROLE_ADMIN, adminDelta);
+        }
+
+        deltas.forEach((role, delta) -> {
+            if (role != ERole.ROLE_ADMIN && delta != 0) {
+                countRepository.adjust(role, delta);
+            }
+        });
+        return true;
+    }
+
+    // Bulk variant for newly created active users: one update per role, in the same lock order as above
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addActive(Map<ERole, Long> newUsersPerRole) {
+        Long admins = newUsersPerRole.get(ERole.ROLE_ADMIN);
+        if (admins != null) {
+            countRepository.adjust(ERole.ROLE_ADMIN, admins);
+        }
+        new EnumMap<>(newUsersPerRole).forEach((role, count) -> {
+            if (role != ERole.ROLE_ADMIN) {
+                countRepository.adjust(role, count);
+            }
+        });
+    }
+
+    // Creates any missing counter row from the current data. Startup cost is one count when every row exists,
+    // otherwise a single insert-select for all roles; existing rows keep their value.
+    @Transactional
+    public void seedMissing() {
+        if (countRepository.count() == ERole.values().length) {
+            return;
+        }
+        // Plain SQL has no portable bit-and, so the role bit is tested arithmetically
+        String counts = Arrays.stream(ERole.values())
+                .map(role -> "select '" + role.name() + "', (select count(*) from users where active = true " +
+                        "and mod(floor(role_mask / " + role.bit() + "), 2) = 1)")
+                .collect(Collectors.joining(" union all "));
+        jdbcTemplate.update("insert ignore into role_active_counts (role, active_count) " + counts);
+    }
+}
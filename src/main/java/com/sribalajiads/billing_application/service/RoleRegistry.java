@@ -0,0 +1,75 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.model.Role;
+import com.sribalajiads.billing_application.repository.RoleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Every Role row, loaded once at startup in the same pass that seeds missing roles.
+ * ERole is a closed enum, so role lookups during requests never need a query.
+ */
+@Component
+public class RoleRegistry {
+
+    @Autowired RoleRepository roleRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    private volatile Map<ERole, Role> roles = Collections.emptyMap();
+
+    // Called by DataInitializer on startup: one select, and only if a role is missing, one insert for all of them and a reload
+    @Transactional
+    public void seed() {
+        Map<ERole, Role> seeded = load();
+        if (seeded.size() < ERole.values().length) {
+            // Idempotent: names already present hit the unique key and are skipped, so concurrent starts cannot clash
+            String values = Arrays.stream(ERole.values())
+                    .map(role -> "('" + role.name() + "')")
+                    .collect(Collectors.joining(", "));
+            jdbcTemplate.update("insert ignore into roles (name) values " + values);
+            seeded = load();
+        }
+        roles = Collections.unmodifiableMap(seeded);
+    }
+
+    private Map<ERole, Role> load() {
+        Map<ERole, Role> loaded = new EnumMap<>(ERole.class);
+        roleRepository.findAll().forEach(role -> loaded.put(role.getName(), role));
+        return loaded;
+    }
+
+    public Role get(ERole name) {
+        Role role = roles.get(name);
+        if (role == null) {
+            throw new IllegalStateException("Role registry has not been seeded yet");
+        }
+        return role;
+    }
+
+    // Resolves role names from a request; an unknown name is the caller's mistake, so it surfaces as IllegalArgumentException
+    public EnumSet<ERole> resolve(Collection<String> names) {
+        EnumSet<ERole> resolved = EnumSet.noneOf(ERole.class);
+        for (String name : names) {
+            resolved.add(parse(name));
+        }
+        return resolved;
+    }
+
+    public static ERole parse(String name) {
+        try {
+            return ERole.valueOf(name);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Error: Role " + name + " is not found.");
+        }
+    }
+
+    public Collection<Role> all() {
+        return roles.values();
+    }
+}
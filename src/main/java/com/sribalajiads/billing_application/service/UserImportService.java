@@ -0,0 +1,328 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.dto.BulkImportReport;
+import com.sribalajiads.billing_application.dto.ImportRowResult;
+import com.sribalajiads.billing_application.dto.SignupRequest;
+import com.sribalajiads.billing_application.model.AuditAction;
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.repository.UserRepository;
+import com.sribalajiads.billing_application.service.ResourceVersions.Resource;
+import com.sribalajiads.billing_application.util.CsvLineParser;
+import com.sribalajiads.billing_application.util.RoleMaskMigration;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Creates users in bulk from a CSV or JSON array body. Rows are read as a stream and handled in chunks:
+ * each chunk is validated, checked for taken emails with one query, hashed in parallel across cores
+ * and inserted with JDBC batches in its own transaction.
+ *
+ * Emails are compared lower-cased, matching the case-insensitive unique key on users.email; the spelling given
+ * in the file is what gets stored.
+ */
+@Service
+public class UserImportService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    @Autowired UserRepository userRepository;
+    @Autowired RoleRegistry roleRegistry;
+    @Autowired RoleCounterService roleCounterService;
+    @Autowired RoleMaskMigration roleMaskMigration;
+    @Autowired PasswordEncoder encoder;
+    @Autowired Validator validator;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired UserSearchIndex userSearchIndex;
+    @Autowired AuditorAware<String> auditorProvider;
+    @Autowired JsonMapper jsonMapper;
+    @Autowired AuditLog auditLog;
+    @Autowired ResourceVersions resourceVersions;
+
+    // BCrypt is pure CPU work, so one thread per core is all that helps
+    private final ExecutorService hashingPool = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "user-import-hash");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    // CSV columns: name,email,password,roles (roles separated by ';'); a header row is skipped
+    public BulkImportReport importCsv(InputStream body) throws IOException {
+        BulkImportReport report = new BulkImportReport();
+        ImportState state = new ImportState();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+
+        List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        String line;
+        int rowNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            rowNumber++;
+            List<String> fields = CsvLineParser.parse(line);
+            if (rowNumber == 1 && fields.get(0).equalsIgnoreCase("name")) {
+                continue;
+            }
+            chunk.add(ImportRow.fromCsv(rowNumber, fields));
+            if (chunk.size() == CHUNK_SIZE) {
+                processChunk(chunk, report, state);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        processChunk(chunk, report, state);
+        report.sortByRow();
+        return report;
+    }
+
+    // JSON body: an array of SignupRequest objects, read one element at a time. Malformed JSON stops the import with
+    // an IllegalArgumentException; users from chunks before it stay created
+    public BulkImportReport importJson(InputStream body) {
+        BulkImportReport report = new BulkImportReport();
+        ImportState state = new ImportState();
+
+        ObjectReader rowReader = jsonMapper.readerFor(SignupRequest.class)
+                .without(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+
+        int rowNumber = 0;
+        try (JsonParser parser = jsonMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Error: Expected a JSON array of users.");
+            }
+            List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                rowNumber++;
+                chunk.add(new ImportRow(rowNumber, rowReader.readValue(parser), null));
+                if (chunk.size() == CHUNK_SIZE) {
+                    processChunk(chunk, report, state);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            processChunk(chunk, report, state);
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Error: Malformed JSON near user " + rowNumber + ": " + e.getOriginalMessage()
+                    + " (" + report.getCreated() + " users before it were created)");
+        }
+        report.sortByRow();
+        return report;
+    }
+
+    private void processChunk(List<ImportRow> chunk, BulkImportReport report, ImportState state) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        // 1. Validate each row and drop repeats within the same file
+        List<ImportRow> candidates = new ArrayList<>();
+        for (ImportRow row : chunk) {
+            String problem = validate(row);
+            if (problem != null) {
+                report.add(result(row, ImportRowResult.Status.INVALID, null, problem));
+            } else if (!state.seenEmails.add(row.emailKey())) {
+                report.add(result(row, ImportRowResult.Status.DUPLICATE, null, "Error: Email appears earlier in this import."));
+            } else {
+                candidates.add(row);
+            }
+        }
+
+        // 2. One query for every email in the chunk that is already taken
+        candidates = dropExisting(candidates, report);
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        // 3. Hash passwords in parallel
+        CompletableFuture.allOf(candidates.stream()
+                .map(row -> CompletableFuture.runAsync(
+                        () -> row.passwordHash = encoder.encode(row.request.getPassword()), hashingPool))
+                .toArray(CompletableFuture[]::new)).join();
+
+        // 4. Batch insert; if another request took an email in the meantime, re-check and retry once, then row by row
+        Map<String, Long> ids;
+        try {
+            ids = insert(candidates, state.auditor);
+        } catch (DuplicateKeyException e) {
+            candidates = dropExisting(candidates, report);
+            try {
+                ids = insert(candidates, state.auditor);
+            } catch (DuplicateKeyException again) {
+                ids = new HashMap<>();
+                List<ImportRow> inserted = new ArrayList<>(candidates.size());
+                for (ImportRow row : candidates) {
+                    try {
+                        ids.putAll(insert(List.of(row), state.auditor));
+                        inserted.add(row);
+                    } catch (DuplicateKeyException taken) {
+                        report.add(result(row, ImportRowResult.Status.DUPLICATE, null, "Error: Email is already in use!"));
+                    }
+                }
+                candidates = inserted;
+            }
+        }
+
+        for (ImportRow row : candidates) {
+            Long id = ids.get(row.emailKey());
+            report.add(result(row, ImportRowResult.Status.CREATED, id, null));
+            userSearchIndex.put(id, row.request.getName(), row.request.getEmail(), ERole.mask(row.roles), true, 0);
+            auditLog.record(AuditAction.USER_CREATED, id, row.request.getEmail(), true, "bulk import row " + row.rowNumber);
+        }
+        if (!candidates.isEmpty()) {
+            resourceVersions.changed(Resource.USERS);
+        }
+    }
+
+    private String validate(ImportRow row) {
+        if (row.parseError != null) {
+            return row.parseError;
+        }
+        Set<ConstraintViolation<SignupRequest>> violations = validator.validate(row.request);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<SignupRequest> violation = violations.iterator().next();
+            return "Error: " + violation.getPropertyPath() + " " + violation.getMessage();
+        }
+        if (row.request.getRole() == null || row.request.getRole().isEmpty()) {
+            return "Error: Role is mandatory!";
+        }
+        try {
+            row.roles = roleRegistry.resolve(row.request.getRole());
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    private List<ImportRow> dropExisting(List<ImportRow> rows, BulkImportReport report) {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        Set<String> existing = userRepository.findExistingEmails(rows.stream().map(row -> row.request.getEmail()).toList())
+                .stream().map(email -> email.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+
+        List<ImportRow> remaining = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            if (existing.contains(row.emailKey())) {
+                report.add(result(row, ImportRowResult.Status.DUPLICATE, null, "Error: Email is already in use!"));
+            } else {
+                remaining.add(row);
+            }
+        }
+        return remaining;
+    }
+
+    private Map<String, Long> insert(List<ImportRow> rows, String auditor) {
+        if (rows.isEmpty()) {
+            return Map.of();
+        }
+        return transactionTemplate.execute(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(
+                    "insert into users (name, email, password, active, security_version, role_mask, created_by, created_at, updated_at) " +
+                            "values (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    rows, rows.size(), (ps, row) -> {
+                        ps.setString(1, row.request.getName());
+                        ps.setString(2, row.request.getEmail());
+                        ps.setString(3, row.passwordHash);
+                        ps.setBoolean(4, true);
+                        ps.setLong(5, 0);
+                        ps.setInt(6, ERole.mask(row.roles));
+                        ps.setString(7, auditor);
+                        ps.setTimestamp(8, now);
+                        ps.setTimestamp(9, now);
+                    });
+
+            // Generated keys are not reliable across drivers for batches, so read them back in one query
+            Map<String, Long> ids = userRepository.findIdsByEmails(rows.stream().map(row -> row.request.getEmail()).toList())
+                    .stream().collect(Collectors.toMap(r -> ((String) r[1]).toLowerCase(Locale.ROOT), r -> (Long) r[0]));
+
+            Map<Long, Set<ERole>> rolesByUser = new HashMap<>();
+            Map<ERole, Long> newUsersPerRole = new EnumMap<>(ERole.class);
+            for (ImportRow row : rows) {
+                rolesByUser.put(ids.get(row.emailKey()), row.roles);
+                for (ERole role : row.roles) {
+                    newUsersPerRole.merge(role, 1L, Long::sum);
+                }
+            }
+            roleMaskMigration.mirror(rolesByUser);
+            roleCounterService.addActive(newUsersPerRole);
+            return ids;
+        });
+    }
+
+    private static ImportRowResult result(ImportRow row, ImportRowResult.Status status, Long id, String message) {
+        String email = row.request != null ? row.request.getEmail() : null;
+        return new ImportRowResult(row.rowNumber, email, status, id, message);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashingPool.shutdown();
+    }
+
+    // Per-import state that spans chunks
+    private class ImportState {
+        final Set<String> seenEmails = new HashSet<>(); // Lower-cased
+        final String auditor = auditorProvider.getCurrentAuditor().orElse("SYSTEM");
+    }
+
+    private static class ImportRow {
+        final int rowNumber;
+        final SignupRequest request;
+        final String parseError;
+        Set<ERole> roles;
+        volatile String passwordHash;
+
+        ImportRow(int rowNumber, SignupRequest request, String parseError) {
+            this.rowNumber = rowNumber;
+            this.request = request;
+            this.parseError = parseError;
+        }
+
+        // Only called on rows that passed validation, so the email is present
+        String emailKey() {
+            return request.getEmail().toLowerCase(Locale.ROOT);
+        }
+
+        static ImportRow fromCsv(int rowNumber, List<String> fields) {
+            if (fields.size() != 4) {
+                return new ImportRow(rowNumber, null, "Error: Expected 4 columns (name,email,password,roles) but found " + fields.size() + ".");
+            }
+            SignupRequest request = new SignupRequest();
+            request.setName(fields.get(0));
+            request.setEmail(fields.get(1));
+            request.setPassword(fields.get(2));
+            request.setRole(Arrays.stream(fields.get(3).split(";"))
+                    .map(String::trim)
+                    .filter(role -> !role.isEmpty())
+                    .collect(Collectors.toSet()));
+            return new ImportRow(rowNumber, request, null);
+        }
+    }
+}
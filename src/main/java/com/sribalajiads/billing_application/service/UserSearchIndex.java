@@ -0,0 +1,418 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.dto.UserSummary;
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.repository.UserRepository;
+import com.sribalajiads.billing_application.security.services.UserChangedEvent;
+import com.sribalajiads.billing_application.service.ResourceVersions.Resource;
+import com.sribalajiads.billing_application.util.IdWatermark;
+import com.sribalajiads.billing_application.util.NGramIndex;
+import com.sribalajiads.billing_application.util.StreamingQueries;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-memory search index over user names and emails for the admin directory, so a search never scans the users table.
+ * Names and emails each have an NGramIndex. A one-word search is answered tier by tier, best tier first, and stops
+ * as soon as it has enough users: exact email, word prefix of the name, word prefix of the email, substring of the
+ * name, substring of the email, and only if all of those find nobody, names within a small edit distance.
+ * A search of several words keeps users matching every word, ranked by the sum of the per-word tiers.
+ * Within a tier users come in the order they were indexed, which is id order after a restart.
+ *
+ * Loaded from the users table at startup. Admin changes and bulk imports on this node are applied when they commit;
+ * users created on other nodes are picked up by polling for new ids, and role or status changes on other nodes
+ * arrive as UserChangedEvents from the change log.
+ */
+@Service
+public class UserSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private static final int MAX_TERMS = 4;
+    private static final int MAX_TERM_LENGTH = 64;
+
+    // Per-word scores for multi-word searches, in tier order
+    private static final int EXACT_EMAIL = 100;
+    private static final int NAME_PREFIX = 60;
+    private static final int EMAIL_PREFIX = 55;
+    private static final int NAME_SUBSTRING = 30;
+    private static final int EMAIL_SUBSTRING = 25;
+
+    private record Entry(long id, String name, String email, String lowerName, String lowerEmail,
+                         int roleMask, boolean active, long securityVersion) {
+    }
+
+    private record Hit(Entry entry, int score) {
+    }
+
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparingLong(hit -> hit.entry().id());
+
+    @Autowired UserRepository userRepository;
+    @Autowired StreamingQueries streamingQueries;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired ResourceVersions resourceVersions;
+
+    // Guarded by lock: searches share it, changes take it exclusively
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NGramIndex names = new NGramIndex();
+    private final NGramIndex emails = new NGramIndex();
+    private final Map<String, Integer> slotsByEmail = new HashMap<>();
+    // Every distinct word seen in a name, for fuzzy matching; it only grows, and a stale word just matches nobody
+    private final NGramIndex vocabulary = new NGramIndex();
+    private final List<String> words = new ArrayList<>();
+    private final Set<String> knownWords = new HashSet<>();
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private Entry[] entries = new Entry[1024];
+    private int size;
+
+    // Pollers only
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private final IdWatermark watermark = new IdWatermark(1000);
+
+    @PostConstruct
+    void load() {
+        pollLock.lock();
+        try {
+            // Watermark first: users created during the load are picked up again by the first poll
+            watermark.reset(userRepository.findMaxId());
+            streamingQueries.query("select id, name, email, role_mask, active, security_version from users order by id",
+                    rs -> put(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getInt(4), rs.getBoolean(5), rs.getLong(6)));
+            logger.info("Loaded {} users into the search index ({} name grams, {} email grams)",
+                    size(), names.grams(), emails.grams());
+        } finally {
+            pollLock.unlock();
+        }
+        Gauge.builder("billing.users.search.indexed", this, UserSearchIndex::size)
+                .description("Users held in the admin search index")
+                .register(meterRegistry);
+    }
+
+    // Call after the user has been saved; the index changes once the transaction commits
+    public void userSaved(User user) {
+        long id = user.getId();
+        String name = user.getName();
+        String email = user.getEmail();
+        int roleMask = ERole.mask(user.getRoles());
+        boolean active = user.isActive();
+        long securityVersion = user.getSecurityVersion();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(id, name, email, roleMask, active, securityVersion);
+                }
+            });
+        } else {
+            put(id, name, email, roleMask, active, securityVersion);
+        }
+    }
+
+    // Role or status changed on another node; changes made here are already applied, so their versions match
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        Entry current = entry(event.userId());
+        if (current != null && current.securityVersion() >= event.securityVersion()) {
+            return;
+        }
+        userRepository.findById(event.userId()).ifPresent(user -> put(user.getId(), user.getName(), user.getEmail(),
+                ERole.mask(user.getRoles()), user.isActive(), user.getSecurityVersion()));
+    }
+
+    @Scheduled(fixedDelayString = "${billing.users.search.poll-interval:2s}")
+    public void poll() {
+        pollLock.lock();
+        try {
+            watermark.poll((afterId, limit) -> userRepository.findSearchRowsAfter(afterId, Limit.of(limit)),
+                    row -> (Long) row[0], row -> {
+                        long id = (Long) row[0];
+                        // Only adds: a row read before a local change committed must not undo it
+                        if (entry(id) == null) {
+                            put(id, (String) row[1], (String) row[2], (Integer) row[3], (Boolean) row[4], (Long) row[5]);
+                            resourceVersions.changed(Resource.USERS);
+                        }
+                    });
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    // Idempotent; an older security version than the one held is ignored
+    public void put(long id, String name, String email, int roleMask, boolean active, long securityVersion) {
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        String lowerEmail = email.toLowerCase(Locale.ROOT);
+        Entry entry = new Entry(id, name, email, lowerName, lowerEmail, roleMask, active, securityVersion);
+
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.get(id);
+            if (slot == null) {
+                if (size == entries.length) {
+                    entries = Arrays.copyOf(entries, size * 2);
+                }
+                slot = size++;
+                slots.put(id, slot);
+            } else {
+                Entry old = entries[slot];
+                if (old.securityVersion() > securityVersion) {
+                    return;
+                }
+                names.remove(slot, old.lowerName());
+                emails.remove(slot, old.lowerEmail());
+                slotsByEmail.remove(old.lowerEmail());
+            }
+            names.add(slot, lowerName);
+            emails.add(slot, lowerEmail);
+            for (String word : lowerName.split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty() && knownWords.add(word)) {
+                    vocabulary.add(words.size(), word);
+                    words.add(word);
+                }
+            }
+            slotsByEmail.put(lowerEmail, slot);
+            entries[slot] = entry;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Up to limit users matching every whitespace-separated word of the query, best first. */
+    public List<UserSummary> search(String query, ERole role, Boolean active, int limit) {
+        List<String> terms = terms(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        int roleBit = role == null ? 0 : role.bit();
+        Predicate<Entry> filter = entry -> (roleBit == 0 || (entry.roleMask() & roleBit) != 0)
+                && (active == null || entry.active() == active);
+
+        lock.readLock().lock();
+        try {
+            List<Entry> found = terms.size() == 1
+                    ? searchWord(terms.get(0), filter, limit)
+                    : searchWords(terms, filter, limit);
+            return found.stream()
+                    .map(entry -> new UserSummary(entry.id(), entry.name(), entry.email(), entry.active(), entry.roleMask()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Entry entry(long id) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slots.get(id);
+            return slot == null ? null : entries[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Entry> searchWord(String term, Predicate<Entry> filter, int limit) {
+        Map<Integer, Entry> found = new LinkedHashMap<>();
+        Integer exact = slotsByEmail.get(term);
+        if (exact != null && filter.test(entries[exact])) {
+            found.put(exact, entries[exact]);
+        }
+        collect(found, limit, names.startingWord(term), filter, entry -> startsWord(entry.lowerName(), term));
+        collect(found, limit, emails.startingWord(term), filter, entry -> startsWord(entry.lowerEmail(), term));
+        if (term.length() >= 3) {
+            collect(found, limit, names.containing(term), filter, entry -> entry.lowerName().contains(term));
+            collect(found, limit, emails.containing(term), filter, entry -> entry.lowerEmail().contains(term));
+        }
+        if (found.isEmpty() && term.length() >= 4) {
+            return similarNames(term, filter, limit);
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    // Walks candidates in slot order until the result is full
+    private void collect(Map<Integer, Entry> found, int limit, int[] candidates, Predicate<Entry> filter, Predicate<Entry> matches) {
+        for (int i = 0; i < candidates.length && found.size() < limit; i++) {
+            Entry entry = entries[candidates[i]];
+            if (!found.containsKey(candidates[i]) && filter.test(entry) && matches.test(entry)) {
+                found.put(candidates[i], entry);
+            }
+        }
+    }
+
+    // Names with a word (or word prefix) within one edit of the term, two for long terms; closest first. The edit
+    // distance is only worked out for distinct name words, then users are collected through those words
+    private List<Entry> similarNames(String term, Predicate<Entry> filter, int limit) {
+        int allowed = term.length() >= 8 ? 2 : 1;
+        // Each edit touches at most three of the term's trigrams, so a close word still shares the rest
+        int minShared = Math.max(1, term.length() - 2 - 3 * allowed);
+        List<List<String>> byDistance = new ArrayList<>();
+        for (int distance = 0; distance <= allowed; distance++) {
+            byDistance.add(new ArrayList<>());
+        }
+        for (int wordId : vocabulary.similar(term, minShared)) {
+            String word = words.get(wordId);
+            int distance = prefixDistance(term, word, allowed);
+            if (distance <= allowed) {
+                byDistance.get(distance).add(word);
+            }
+        }
+
+        Map<Integer, Entry> found = new LinkedHashMap<>();
+        for (List<String> closeWords : byDistance) {
+            for (String word : closeWords) {
+                collect(found, limit, names.startingWord(word), filter, entry -> startsWord(entry.lowerName(), word));
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    private List<Entry> searchWords(List<String> terms, Predicate<Entry> filter, int limit) {
+        // Only a term that is a whole email can outrank a name with a word starting with every term, so when those
+        // fill the page there is nothing left to score
+        if (terms.stream().noneMatch(term -> term.indexOf('@') >= 0)) {
+            int[] prefixed = null;
+            for (String term : terms) {
+                int[] termPrefixed = names.startingWord(term);
+                prefixed = prefixed == null ? termPrefixed : NGramIndex.intersection(prefixed, termPrefixed);
+            }
+            Map<Integer, Entry> found = new LinkedHashMap<>();
+            collect(found, limit, prefixed, filter, entry -> terms.stream().allMatch(term -> startsWord(entry.lowerName(), term)));
+            if (found.size() == limit) {
+                return new ArrayList<>(found.values());
+            }
+        }
+
+        int[] candidates = null;
+        for (String term : terms) {
+            // Substring candidates already include every word-prefix match
+            int[] termCandidates = NGramIndex.union(names.containing(term), emails.containing(term));
+            candidates = candidates == null ? termCandidates : NGramIndex.intersection(candidates, termCandidates);
+        }
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        for (int slot : candidates) {
+            Entry entry = entries[slot];
+            if (!filter.test(entry)) {
+                continue;
+            }
+            int score = 0;
+            for (String term : terms) {
+                int termScore = score(entry, term);
+                if (termScore == 0) {
+                    score = 0;
+                    break;
+                }
+                score += termScore;
+            }
+            if (score > 0) {
+                offer(best, new Hit(entry, score), limit);
+            }
+        }
+        return sorted(best);
+    }
+
+    private static int score(Entry entry, String term) {
+        if (entry.lowerEmail().equals(term)) {
+            return EXACT_EMAIL;
+        }
+        if (startsWord(entry.lowerName(), term)) {
+            return NAME_PREFIX;
+        }
+        if (startsWord(entry.lowerEmail(), term)) {
+            return EMAIL_PREFIX;
+        }
+        if (term.length() >= 3 && entry.lowerName().contains(term)) {
+            return NAME_SUBSTRING;
+        }
+        if (term.length() >= 3 && entry.lowerEmail().contains(term)) {
+            return EMAIL_SUBSTRING;
+        }
+        return 0;
+    }
+
+    private static boolean startsWord(String text, String term) {
+        for (int at = text.indexOf(term); at >= 0; at = text.indexOf(term, at + 1)) {
+            if (at == 0 || !Character.isLetterOrDigit(text.charAt(at - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Smallest edit distance between the term and any prefix of the word, or allowed + 1 if it exceeds allowed
+    private static int prefixDistance(String term, String word, int allowed) {
+        int[] previous = new int[word.length() + 1];
+        int[] current = new int[word.length() + 1];
+        for (int j = 0; j <= word.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= term.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= word.length(); j++) {
+                int cost = term.charAt(i - 1) == word.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > allowed) {
+                return allowed + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int distance = allowed + 1;
+        for (int value : previous) {
+            distance = Math.min(distance, value);
+        }
+        return distance;
+    }
+
+    // Keeps the best limit hits: the heap's head is the worst one held
+    private static void offer(PriorityQueue<Hit> best, Hit hit, int limit) {
+        best.add(hit);
+        if (best.size() > limit) {
+            best.poll();
+        }
+    }
+
+    private static List<Entry> sorted(PriorityQueue<Hit> best) {
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(RANKING);
+        return hits.stream().map(Hit::entry).toList();
+    }
+
+    private static List<String> terms(String query) {
+        if (query == null) {
+            return List.of();
+        }
+        return Arrays.stream(query.toLowerCase(Locale.ROOT).trim().split("\\s+"))
+                .filter(term -> !term.isEmpty())
+                .map(term -> term.length() > MAX_TERM_LENGTH ? term.substring(0, MAX_TERM_LENGTH) : term)
+                .distinct()
+                .limit(MAX_TERMS)
+                .toList();
+    }
+}
@@ -2,34 +2,45 @@ package com.sribalajiads.billing_application.util;
 
 import com.sribalajiads.billing_application.model.*;
 import com.sribalajiads.billing_application.repository.*;
+import com.sribalajiads.billing_application.service.RoleCounterService;
+import com.sribalajiads.billing_application.service.RoleRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
-import java.util.Collections;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.Set;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
 
     @Autowired UserRepository userRepository;
-    @Autowired RoleRepository roleRepository;
+    @Autowired RoleRegistry roleRegistry;
+    @Autowired RoleCounterService roleCounterService;
+    @Autowired RoleMaskMigration roleMaskMigration;
     @Autowired PasswordEncoder encoder;
 
     @Override
+    @Transactional
     public void run(String... args) throws Exception {
-        // Seed Roles
-        for (ERole eRole : ERole.values()) {
-            if (roleRepository.findByName(eRole).isEmpty()) {
-                roleRepository.save(new Role(eRole));
-            }
-        }
+        // Seed Roles (also fills the in-memory role registry)
+        roleRegistry.seed();
+
+        // Fold the old user_roles join table into users.role_mask, while it is still mirrored
+        roleMaskMigration.migrate();
+
+        // Seed the per-role active user counters from existing data
+        roleCounterService.seedMissing();
 
         // Seed Initial Admin
         if (!userRepository.existsByEmail("admin@sribalajiads.com")) {
             User admin = new User("Nithin Thota", "admin@sribalajiads.com", encoder.encode("Admin@123"));
-            Role adminRole = roleRepository.findByName(ERole.ROLE_ADMIN).get();
-            admin.setRoles(Collections.singleton(adminRole));
+            admin.setRoles(Set.of(ERole.ROLE_ADMIN));
             userRepository.save(admin);
+            roleMaskMigration.mirror(Map.of(admin.getId(), admin.getRoles()));
+            roleCounterService.applyChange(Set.of(), false, Set.of(ERole.ROLE_ADMIN), true);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.sribalajiads.billing_application.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Day-granular occupancy calendar keyed by epoch day. Keeps a booking count per day, so overlapping bookings
+ * can be removed independently, and a bitset of occupied days, so a range check reads 64 days per word.
+ * The covered span grows in whole words as bookings arrive. Not thread-safe; callers guard it.
+ */
+public class DayOccupancy {
+
+    private long baseDay;            // epoch day of bit 0; always a multiple of 64
+    private long[] occupied = new long[0];
+    private int[] counts = new int[0];
+
+    public void add(long fromDay, long toDay) {
+        cover(fromDay, toDay);
+        for (long day = fromDay; day <= toDay; day++) {
+            int i = (int) (day - baseDay);
+            if (counts[i]++ == 0) {
+                occupied[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    public void remove(long fromDay, long toDay) {
+        for (long day = Math.max(fromDay, baseDay); day <= toDay && day < end(); day++) {
+            int i = (int) (day - baseDay);
+            if (counts[i] > 0 && --counts[i] == 0) {
+                occupied[i >>> 6] &= ~(1L << i);
+            }
+        }
+    }
+
+    public boolean isFree(long fromDay, long toDay) {
+        return firstOccupied(fromDay, toDay) < 0;
+    }
+
+    // First occupied day in [fromDay, toDay], or -1 if the whole range is free
+    public long firstOccupied(long fromDay, long toDay) {
+        long from = Math.max(fromDay, baseDay);
+        long to = Math.min(toDay, end() - 1);
+        if (from > to) {
+            return -1;
+        }
+        int first = (int) (from - baseDay);
+        int last = (int) (to - baseDay);
+        for (int w = first >>> 6; w <= last >>> 6; w++) {
+            long word = occupied[w];
+            if (w == first >>> 6) {
+                word &= -1L << first;
+            }
+            if (w == last >>> 6) {
+                word &= -1L >>> (63 - (last & 63));
+            }
+            if (word != 0) {
+                return baseDay + ((long) w << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return -1;
+    }
+
+    // Maximal free stretches inside [fromDay, toDay], as {start, end} pairs of epoch days
+    public List<long[]> freeRanges(long fromDay, long toDay) {
+        List<long[]> ranges = new ArrayList<>();
+        long start = fromDay;
+        while (start <= toDay) {
+            long busy = firstOccupied(start, toDay);
+            if (busy < 0) {
+                ranges.add(new long[]{start, toDay});
+                break;
+            }
+            if (busy > start) {
+                ranges.add(new long[]{start, busy - 1});
+            }
+            start = firstFree(busy, toDay);
+            if (start < 0) {
+                break;
+            }
+        }
+        return ranges;
+    }
+
+    // First free day in [fromDay, toDay], or -1 if every day is occupied; days outside the covered span are free
+    public long firstFree(long fromDay, long toDay) {
+        if (fromDay < baseDay || fromDay >= end()) {
+            return fromDay <= toDay ? fromDay : -1;
+        }
+        long to = Math.min(toDay, end() - 1);
+        int first = (int) (fromDay - baseDay);
+        int last = (int) (to - baseDay);
+        for (int w = first >>> 6; w <= last >>> 6; w++) {
+            long word = ~occupied[w];
+            if (w == first >>> 6) {
+                word &= -1L << first;
+            }
+            if (w == last >>> 6) {
+                word &= -1L >>> (63 - (last & 63));
+            }
+            if (word != 0) {
+                return baseDay + ((long) w << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return to < toDay ? to + 1 : -1;
+    }
+
+    private long end() {
+        return baseDay + counts.length;
+    }
+
+    private void cover(long fromDay, long toDay) {
+        if (counts.length == 0) {
+            baseDay = Math.floorDiv(fromDay, 64) * 64;
+            int words = (int) ((toDay - baseDay) / 64) + 1;
+            occupied = new long[words];
+            counts = new int[words * 64];
+            return;
+        }
+        if (fromDay < baseDay) {
+            long newBase = Math.floorDiv(fromDay, 64) * 64;
+            int shiftWords = (int) ((baseDay - newBase) / 64);
+            long[] newOccupied = new long[occupied.length + shiftWords];
+            System.arraycopy(occupied, 0, newOccupied, shiftWords, occupied.length);
+            int[] newCounts = new int[newOccupied.length * 64];
+            System.arraycopy(counts, 0, newCounts, shiftWords * 64, counts.length);
+            occupied = newOccupied;
+            counts = newCounts;
+            baseDay = newBase;
+        }
+        if (toDay >= end()) {
+            int words = (int) ((toDay - baseDay) / 64) + 1;
+            occupied = Arrays.copyOf(occupied, words);
+            counts = Arrays.copyOf(counts, words * 64);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.sribalajiads.billing_application.util;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cursor for pollers that follow a table by its auto-increment id, so changes made on other nodes arrive
+ * without a message broker. Ids are handed out at insert but rows become visible at commit, so a row can
+ * commit after one with a higher id; each poll therefore starts LOOKBACK_IDS below the highest id seen and
+ * reads forward a page at a time. Rows inside that window are handed over again, so handlers must be
+ * idempotent or remember the ids they applied; ids at or below windowStart() never come back and can be
+ * forgotten. Not thread-safe; callers poll under their own lock.
+ */
+public class IdWatermark {
+
+    private static final int LOOKBACK_IDS = 100;
+
+    @FunctionalInterface
+    public interface PageQuery<T> {
+        // Up to limit rows with an id above afterId, in id order
+        List<T> rowsAfter(long afterId, int limit);
+    }
+
+    private final int pageSize;
+    private long lastSeenId = -1;
+
+    public IdWatermark(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    // Rows up to this id are already reflected, e.g. by a load that read the table after taking its max id
+    public void reset(long maxId) {
+        lastSeenId = maxId;
+    }
+
+    public boolean isSet() {
+        return lastSeenId >= 0;
+    }
+
+    // Ids above this can still show up; ids at or below it will not be handed over again
+    public long windowStart() {
+        return Math.max(0, lastSeenId - LOOKBACK_IDS);
+    }
+
+    public <T> void poll(PageQuery<T> query, ToLongFunction<T> idOf, Consumer<T> handler) {
+        long cursor = windowStart();
+        List<T> rows;
+        do {
+            rows = query.rowsAfter(cursor, pageSize);
+            for (T row : rows) {
+                handler.accept(row);
+                cursor = idOf.applyAsLong(row);
+                lastSeenId = Math.max(lastSeenId, cursor);
+            }
+        } while (rows.size() == pageSize);
+    }
+}
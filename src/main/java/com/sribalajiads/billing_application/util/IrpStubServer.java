@@ -0,0 +1,156 @@
+package com.sribalajiads.billing_application.util;
+
+import com.sribalajiads.billing_application.service.InvoiceNumberService;
+import com.sribalajiads.billing_application.service.IrpClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the IRP, for development and tests without network access. Enable with
+ * billing.einvoice.stub.enabled=true; it listens on the loopback interface and IrpClient uses it when no
+ * billing.einvoice.irp-url is set. It derives the IRN from GSTIN, financial year and document number like the
+ * real portal, answers repeats with error 2150, and can add latency or fail the first calls to exercise retries.
+ */
+@Component
+@ConditionalOnProperty(name = "billing.einvoice.stub.enabled", havingValue = "true")
+public class IrpStubServer {
+    private static final Logger logger = LoggerFactory.getLogger(IrpStubServer.class);
+
+    private static final String GSTIN_PATTERN = "\\d{2}[0-9A-Z]{13}";
+
+    private final int port;
+    private final Duration latency;
+    private final AtomicInteger callsToFail;
+    private final JsonMapper jsonMapper;
+
+    private final Map<String, IrpClient.Result> registered = new ConcurrentHashMap<>();
+    private final AtomicLong ackNumbers = new AtomicLong(112010000000001L);
+    private final AtomicLong calls = new AtomicLong();
+    private HttpServer server;
+
+    public IrpStubServer(@Value("${billing.einvoice.stub.port:0}") int port,
+                         @Value("${billing.einvoice.stub.latency:0ms}") Duration latency,
+                         @Value("${billing.einvoice.stub.fail-first-calls:0}") int failFirstCalls,
+                         JsonMapper jsonMapper) {
+        this.port = port;
+        this.latency = latency;
+        this.callsToFail = new AtomicInteger(failFirstCalls);
+        this.jsonMapper = jsonMapper;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/einvoice/batch", this::handleBatch);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        logger.info("IRP stub listening on {}", getBaseUrl());
+    }
+
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            calls.incrementAndGet();
+            if (!latency.isZero()) {
+                Thread.sleep(latency);
+            }
+            if (callsToFail.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            List<IrpClient.Document> documents;
+            try (InputStream body = exchange.getRequestBody()) {
+                documents = jsonMapper.readValue(body, new TypeReference<List<IrpClient.Document>>() { });
+            }
+            List<IrpClient.Result> results = new ArrayList<>(documents.size());
+            for (IrpClient.Document document : documents) {
+                results.add(register(document));
+            }
+
+            byte[] response = jsonMapper.writeValueAsBytes(results);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private IrpClient.Result register(IrpClient.Document document) {
+        if (document.buyerGstin() != null && !document.buyerGstin().matches(GSTIN_PATTERN)) {
+            return error(document, "3028", "GSTIN is invalid");
+        }
+        BigDecimal expectedTotal = document.taxable().add(document.cgst()).add(document.sgst()).add(document.igst());
+        if (expectedTotal.compareTo(document.total()) != 0) {
+            return error(document, "2172", "Total invoice value does not match the item values");
+        }
+
+        String irn = irn(document);
+        IrpClient.Result fresh = new IrpClient.Result(document.docNo(), irn,
+                String.valueOf(ackNumbers.getAndIncrement()), LocalDateTime.now(), null, null);
+        IrpClient.Result existing = registered.putIfAbsent(irn, fresh);
+        if (existing != null) {
+            return new IrpClient.Result(document.docNo(), existing.irn(), existing.ackNo(), existing.ackDate(),
+                    IrpClient.DUPLICATE_IRN, "Duplicate IRN");
+        }
+        return fresh;
+    }
+
+    private static IrpClient.Result error(IrpClient.Document document, String code, String message) {
+        return new IrpClient.Result(document.docNo(), null, null, null, code, message);
+    }
+
+    // SHA-256 of seller GSTIN, financial year, document type and number, as the IRP computes it
+    private static String irn(IrpClient.Document document) {
+        String key = document.sellerGstin() + InvoiceNumberService.financialYear(document.docDate()) + "INV" + document.docNo();
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,50 @@
+package com.sribalajiads.billing_application.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets with one bucket per exact key, for limits where one key must never throttle another (per account).
+ * Same cell rate algorithm as StripedRateLimiter. A bucket is dropped once it has been idle long enough to be
+ * full again, so forgetting it changes nothing; past maxKeys the least recently used buckets go first.
+ */
+public class KeyedRateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+    private final long intervalNanos;
+    private final long burstNanos;
+
+    public KeyedRateLimiter(int capacity, int refillPerMinute, long maxKeys) {
+        if (capacity < 1 || refillPerMinute < 1) {
+            throw new IllegalArgumentException("Capacity and refill rate must be positive");
+        }
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / refillPerMinute;
+        this.burstNanos = intervalNanos * (capacity - 1);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(burstNanos + intervalNanos))
+                .build();
+    }
+
+    // Takes a token for the key; returns 0 on success, otherwise nanos until a token will be available
+    public long tryAcquire(String key) {
+        // A new bucket starts full
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(System.nanoTime() - burstNanos - intervalNanos));
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = bucket.get();
+            long start = arrival - now > 0 ? arrival : now;
+            long wait = start - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.sribalajiads.billing_application.util;
+
+import java.util.*;
+
+/**
+ * Inverted index from character n-grams to the documents containing them, for substring and word-prefix search.
+ * Documents are small ints handed out by the caller; each posting list is a sorted int array.
+ *
+ * Text is indexed as every trigram plus the first one to PREFIX_LENGTH characters of each word, so a word-prefix
+ * lookup is a single posting list and a substring lookup intersects the term's trigrams. Results are candidates:
+ * a superset of the real matches (trigrams may sit in different places), so callers check the text itself.
+ * Not thread-safe.
+ */
+public class NGramIndex {
+
+    private static final char WORD_START = '\u0001';
+    private static final int PREFIX_LENGTH = 6;
+    private static final int[] NONE = new int[0];
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private int docLimit; // One past the highest document ever added
+
+    public void add(int doc, String text) {
+        docLimit = Math.max(docLimit, doc + 1);
+        for (String gram : grams(text)) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(doc);
+        }
+    }
+
+    // Must be given the same text the document was added with
+    public void remove(int doc, String text) {
+        for (String gram : grams(text)) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(doc) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    /** Documents that may have a word starting with the term, in ascending order. */
+    public int[] startingWord(String term) {
+        int wordLength = 0;
+        while (wordLength < term.length() && Character.isLetterOrDigit(term.charAt(wordLength))) {
+            wordLength++;
+        }
+        if (wordLength == 0) {
+            return term.length() >= 3 ? intersect(trigrams(term)) : NONE;
+        }
+        String prefix = term.substring(0, Math.min(wordLength, PREFIX_LENGTH));
+        List<String> grams = new ArrayList<>();
+        grams.add(WORD_START + prefix);
+        if (term.length() > prefix.length()) {
+            grams.addAll(trigrams(term));
+        }
+        return intersect(grams);
+    }
+
+    /** Documents that may contain the term, in ascending order; terms under three characters only match word starts. */
+    public int[] containing(String term) {
+        return term.length() >= 3 ? intersect(trigrams(term)) : startingWord(term);
+    }
+
+    /**
+     * Documents sharing at least minShared (one or more) of the term's trigrams, in ascending order; the candidates
+     * for a fuzzy match. A single-character edit changes at most three trigrams of the term.
+     */
+    public int[] similar(String term, int minShared) {
+        byte[] shared = new byte[docLimit];
+        int found = 0;
+        for (String gram : new HashSet<>(trigrams(term))) {
+            Postings list = postings.get(gram);
+            if (list != null) {
+                for (int i = 0; i < list.size; i++) {
+                    if (++shared[list.docs[i]] == minShared) {
+                        found++;
+                    }
+                }
+            }
+        }
+        int[] result = new int[found];
+        for (int doc = 0, next = 0; next < found; doc++) {
+            if (shared[doc] >= minShared) {
+                result[next++] = doc;
+            }
+        }
+        return result;
+    }
+
+    public int grams() {
+        return postings.size();
+    }
+
+    /** Merges two ascending document arrays, dropping duplicates. */
+    public static int[] union(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            int next = j == b.length || (i < a.length && a[i] <= b[j]) ? a[i] : b[j];
+            if (i < a.length && a[i] == next) {
+                i++;
+            }
+            if (j < b.length && b[j] == next) {
+                j++;
+            }
+            merged[n++] = next;
+        }
+        return Arrays.copyOf(merged, n);
+    }
+
+    /** Documents in both ascending arrays. */
+    public static int[] intersection(int[] a, int[] b) {
+        int[] common = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                common[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(common, n);
+    }
+
+    // Intersects from the shortest list, so the work is bounded by the rarest gram
+    private int[] intersect(List<String> grams) {
+        List<Postings> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return NONE;
+            }
+            lists.add(list);
+        }
+        if (lists.isEmpty()) {
+            return NONE;
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        Postings shortest = lists.get(0);
+        int[] result = Arrays.copyOf(shortest.docs, shortest.size);
+        int size = result.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            size = retain(result, size, lists.get(i));
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>(trigrams(text));
+        int wordStart = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inWord && wordStart < 0) {
+                wordStart = i;
+            } else if (!inWord && wordStart >= 0) {
+                for (int end = wordStart + 1; end <= Math.min(i, wordStart + PREFIX_LENGTH); end++) {
+                    grams.add(WORD_START + text.substring(wordStart, end));
+                }
+                wordStart = -1;
+            }
+        }
+        return grams;
+    }
+
+    private static List<String> trigrams(String text) {
+        List<String> trigrams = new ArrayList<>(Math.max(0, text.length() - 2));
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(text.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    // Keeps the docs in result[0..size) that are also in the list; both are sorted. Gallops ahead from the last
+    // position, so a short result against a long list costs little more than the short side
+    private static int retain(int[] result, int size, Postings list) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < size && from < list.size; i++) {
+            int bound = 1;
+            while (from + bound < list.size && list.docs[from + bound] < result[i]) {
+                bound <<= 1;
+            }
+            int at = Arrays.binarySearch(list.docs, from + bound / 2, Math.min(from + bound + 1, list.size), result[i]);
+            if (at >= 0) {
+                result[kept++] = result[i];
+                from = at + 1;
+            } else {
+                from = -at - 1;
+            }
+        }
+        return kept;
+    }
+
+    private static class Postings {
+        int[] docs = new int[2];
+        int size;
+
+        // Documents are usually added in ascending order, which makes this an append
+        void add(int doc) {
+            int at = size > 0 && docs[size - 1] < doc ? -size - 1 : Arrays.binarySearch(docs, 0, size, doc);
+            if (at >= 0) {
+                return;
+            }
+            int insert = -at - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            System.arraycopy(docs, insert, docs, insert + 1, size - insert);
+            docs[insert] = doc;
+            size++;
+        }
+
+        boolean remove(int doc) {
+            int at = Arrays.binarySearch(docs, 0, size, doc);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(docs, at + 1, docs, at, size - at - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.sribalajiads.billing_application.util;
+
+import com.sribalajiads.billing_application.model.ERole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Roles used to live in the user_roles join table, and nodes still on the previous build read them from there.
+ * While billing.users.roles.mirror-join-table is on, every role change made here is written to that table as well,
+ * and startup folds the table into users.role_mask, which picks up changes made by older nodes. A rolling deploy
+ * or a rollback therefore sees the same roles on every node. Once every node runs this build, turn the property
+ * off and drop the table (db/upgrade/drop-user-roles.sql); role_mask is then the only copy.
+ */
+@Component
+public class RoleMaskMigration {
+    private static final Logger logger = LoggerFactory.getLogger(RoleMaskMigration.class);
+
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    private final boolean mirrorJoinTable;
+    private volatile boolean joinTablePresent;
+
+    public RoleMaskMigration(@Value("${billing.users.roles.mirror-join-table:true}") boolean mirrorJoinTable) {
+        this.mirrorJoinTable = mirrorJoinTable;
+    }
+
+    @Transactional
+    public void migrate() {
+        if (!mirrorJoinTable) {
+            joinTablePresent = false;
+            return;
+        }
+        Long legacyRows;
+        try {
+            legacyRows = jdbcTemplate.queryForObject("select count(*) from user_roles", Long.class);
+        } catch (DataAccessException e) {
+            joinTablePresent = false;
+            return; // Created after the switch to role_mask: there is no join table
+        }
+        joinTablePresent = true;
+        if (legacyRows == null || legacyRows == 0) {
+            return;
+        }
+
+        // user_roles has one row per (user, role), so summing the role bits is the same as OR-ing them
+        StringBuilder bits = new StringBuilder("case r.name");
+        for (ERole role : ERole.values()) {
+            bits.append(" when '").append(role.name()).append("' then ").append(role.bit());
+        }
+        bits.append(" else 0 end");
+        int users = jdbcTemplate.update("update users set role_mask = (select coalesce(sum(" + bits + "), 0) " +
+                "from user_roles ur join roles r on r.id = ur.role_id where ur.user_id = users.id) " +
+                "where exists (select 1 from user_roles ur where ur.user_id = users.id)");
+        logger.info("Folded {} user_roles rows into role_mask for {} users", legacyRows, users);
+    }
+
+    // Call in the transaction that saved the roles; does nothing once the join table is no longer mirrored
+    public void mirror(Map<Long, Set<ERole>> rolesByUser) {
+        if (!joinTablePresent || rolesByUser.isEmpty()) {
+            return;
+        }
+        List<Object[]> deletes = new ArrayList<>(rolesByUser.size());
+        List<Object[]> inserts = new ArrayList<>();
+        rolesByUser.forEach((userId, roles) -> {
+            deletes.add(new Object[]{userId});
+            for (ERole role : roles) {
+                inserts.add(new Object[]{userId, role.name()});
+            }
+        });
+        jdbcTemplate.batchUpdate("delete from user_roles where user_id = ?", deletes);
+        jdbcTemplate.batchUpdate("insert into user_roles (user_id, role_id) select ?, id from roles where name = ?", inserts);
+    }
+}
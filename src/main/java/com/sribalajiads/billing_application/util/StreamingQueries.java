@@ -0,0 +1,65 @@
+package com.sribalajiads.billing_application.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Runs forward-only queries whose rows are handed to a callback as they come off the JDBC cursor,
+ * so large result sets are never held in memory. On MySQL this switches Connector/J into its
+ * row-by-row streaming mode; other databases get a moderate fetch size.
+ */
+@Component
+public class StreamingQueries {
+
+    private static final int DEFAULT_FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public StreamingQueries(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(isMySql(dataSource) ? Integer.MIN_VALUE : DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * If the callback throws (e.g. the client of an export went away), the statement is cancelled before
+     * the exception propagates: closing a streaming MySQL result set otherwise reads every remaining row.
+     */
+    public void query(String sql, RowCallbackHandler handler, Object... args) {
+        jdbcTemplate.query(sql, new ArgumentPreparedStatementSetter(args), rs -> {
+            try {
+                while (rs.next()) {
+                    handler.processRow(rs);
+                }
+            } catch (RuntimeException e) {
+                cancelQuietly(rs.getStatement());
+                throw e;
+            }
+            return null;
+        });
+    }
+
+    private static void cancelQuietly(java.sql.Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException | RuntimeException ignored) {
+            // The original failure is the one worth reporting
+        }
+    }
+
+    private static boolean isMySql(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, metaData -> metaData.getDatabaseProductName());
+            return product != null && product.toLowerCase().contains("mysql");
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.sribalajiads.billing_application.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token buckets for an unbounded key space (client IPs) in fixed memory: keys hash onto a power-of-two
+ * number of stripes, and keys that collide share a bucket, so heavy use of one key also throttles the keys on
+ * its stripe. Fine for a generous per-IP limit; per-account limits use KeyedRateLimiter instead.
+ * Each stripe is one long holding its "theoretical arrival time" (the generic cell rate algorithm),
+ * so taking a token is a single CAS with no locks and no per-key allocation.
+ */
+public class StripedRateLimiter {
+
+    private final AtomicLongArray stripes;
+    private final int mask;
+    private final long intervalNanos;
+    private final long burstNanos;
+
+    public StripedRateLimiter(int requestedStripes, int capacity, int refillPerMinute) {
+        if (capacity < 1 || refillPerMinute < 1) {
+            throw new IllegalArgumentException("Capacity and refill rate must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(2, requestedStripes) - 1) << 1;
+        this.stripes = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / refillPerMinute;
+        this.burstNanos = intervalNanos * (capacity - 1);
+
+        // Start every stripe full
+        long now = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            stripes.set(i, now - burstNanos - intervalNanos);
+        }
+    }
+
+    // Takes a token for the key; returns 0 on success, otherwise nanos until a token will be available
+    public long tryAcquire(String key) {
+        int index = spread(key.hashCode()) & mask;
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = stripes.get(index);
+            long start = arrival - now > 0 ? arrival : now;
+            long wait = start - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (stripes.compareAndSet(index, arrival, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        return hash ^ (hash >>> 16);
+    }
+}
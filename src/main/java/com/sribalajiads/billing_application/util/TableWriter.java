@@ -0,0 +1,31 @@
+package com.sribalajiads.billing_application.util;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+
+// Row-at-a-time sink for exports; implementations keep only a fixed-size buffer
+public interface TableWriter {
+
+    void header(List<String> names) throws IOException;
+
+    void row(Object[] values) throws IOException;
+
+    // Completes the file and flushes it; does not close the underlying stream
+    void finish() throws IOException;
+
+    // Text form shared by both formats: plain decimals, ISO dates and date-times
+    static String text(Object value) {
+        if (value == null) {
+            return "";
+        } else if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        } else if (value instanceof java.sql.Date date) {
+            return date.toLocalDate().toString();
+        } else if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        return value.toString();
+    }
+}
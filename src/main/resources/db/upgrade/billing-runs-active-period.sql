@@ -0,0 +1,8 @@
+-- One running billing run per month (MySQL). Run before starting a build that sets billing_runs.active_period.
+-- The key allows any number of NULLs, so only RUNNING rows take a slot; if a month has two RUNNING rows,
+-- mark all but one FAILED first or the update below fails on the new key.
+alter table billing_runs
+    add column active_period varchar(7) null,
+    add constraint uk_billing_runs_active_period unique (active_period);
+
+update billing_runs set active_period = period where status = 'RUNNING';
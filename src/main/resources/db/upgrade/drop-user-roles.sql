@@ -0,0 +1,4 @@
+-- Last step of the move from the user_roles join table to users.role_mask (MySQL).
+-- Run only after every node runs a build that reads role_mask and has been restarted with
+-- billing.users.roles.mirror-join-table=false; nodes on older builds read their roles from this table.
+drop table if exists user_roles;
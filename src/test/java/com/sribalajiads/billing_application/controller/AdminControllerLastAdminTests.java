@@ -0,0 +1,119 @@
+package com.sribalajiads.billing_application.controller;
+
+import com.sribalajiads.billing_application.dto.SignupRequest;
+import com.sribalajiads.billing_application.dto.UpdateRoleRequest;
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.repository.RoleActiveCountRepository;
+import com.sribalajiads.billing_application.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AdminControllerLastAdminTests {
+
+    private static final int EXTRA_ADMINS = 7;
+    private static final String SEEDED_ADMIN = "admin@sribalajiads.com";
+
+    @Autowired AdminController adminController;
+    @Autowired UserRepository userRepository;
+    @Autowired RoleActiveCountRepository countRepository;
+
+    @Test
+    void parallelDemotionsAlwaysLeaveOneActiveAdmin() throws Exception {
+        runAsAdmin(() -> {
+            for (int i = 0; i < EXTRA_ADMINS; i++) {
+                SignupRequest request = new SignupRequest();
+                request.setName("Admin " + i);
+                request.setEmail("admin" + i + "@example.com");
+                request.setPassword("secret123");
+                request.setRole(Set.of("ROLE_ADMIN"));
+                assertThat(adminController.registerUser(request).getStatusCode().is2xxSuccessful()).isTrue();
+            }
+            return null;
+        });
+        List<User> admins = userRepository.findAll().stream()
+                .filter(user -> user.isActive() && user.getRoles().contains(ERole.ROLE_ADMIN))
+                .toList();
+        assertThat(countRepository.findById(ERole.ROLE_ADMIN).orElseThrow().getActiveCount()).isEqualTo(admins.size());
+
+        // Every admin is demoted or deactivated at the same moment; half go through each endpoint
+        ExecutorService pool = Executors.newFixedThreadPool(admins.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ResponseEntity<?>>> results = new ArrayList<>();
+        for (int i = 0; i < admins.size(); i++) {
+            Long id = admins.get(i).getId();
+            boolean demote = i % 2 == 0;
+            results.add(pool.submit(() -> runAsAdmin(() -> {
+                start.await();
+                if (demote) {
+                    UpdateRoleRequest request = new UpdateRoleRequest();
+                    request.setRoles(Set.of("ROLE_PLANNER"));
+                    return adminController.updateUserRoles(id, request);
+                }
+                return adminController.toggleUserStatus(id);
+            })));
+        }
+        start.countDown();
+
+        int succeeded = 0;
+        for (Future<ResponseEntity<?>> result : results) {
+            if (result.get(60, TimeUnit.SECONDS).getStatusCode().is2xxSuccessful()) {
+                succeeded++;
+            }
+        }
+        pool.shutdown();
+
+        assertThat(succeeded).isEqualTo(admins.size() - 1);
+        assertThat(userRepository.countActiveByRole(ERole.ROLE_ADMIN)).isEqualTo(1);
+        assertThat(countRepository.findById(ERole.ROLE_ADMIN).orElseThrow().getActiveCount()).isEqualTo(1);
+        assertThat(countRepository.findById(ERole.ROLE_PLANNER).orElseThrow().getActiveCount())
+                .isEqualTo(userRepository.countActiveByRole(ERole.ROLE_PLANNER));
+    }
+
+    // Other test classes share this database and log in as the seeded admin: make it an active admin again and retire
+    // the extra ones, through the controller so the role counters stay in step
+    @AfterEach
+    void restoreSeededAdmin() throws Exception {
+        runAsAdmin(() -> {
+            User seeded = userRepository.findByEmail(SEEDED_ADMIN).orElseThrow();
+            if (!seeded.getRoles().contains(ERole.ROLE_ADMIN)) {
+                UpdateRoleRequest request = new UpdateRoleRequest();
+                request.setRoles(Set.of("ROLE_ADMIN"));
+                assertThat(adminController.updateUserRoles(seeded.getId(), request).getStatusCode().is2xxSuccessful()).isTrue();
+            }
+            if (!seeded.isActive()) {
+                assertThat(adminController.toggleUserStatus(seeded.getId()).getStatusCode().is2xxSuccessful()).isTrue();
+            }
+            for (User user : userRepository.findAll()) {
+                if (user.isActive() && user.getEmail().matches("admin\\d+@example\\.com")) {
+                    assertThat(adminController.toggleUserStatus(user.getId()).getStatusCode().is2xxSuccessful()).isTrue();
+                }
+            }
+            return null;
+        });
+    }
+
+    private static <T> T runAsAdmin(Callable<T> action) throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "admin@sribalajiads.com", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+        try {
+            return action.call();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
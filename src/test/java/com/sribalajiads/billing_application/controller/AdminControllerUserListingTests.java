@@ -0,0 +1,132 @@
+package com.sribalajiads.billing_application.controller;
+
+import com.sribalajiads.billing_application.dto.SignupRequest;
+import com.sribalajiads.billing_application.dto.UserPage;
+import com.sribalajiads.billing_application.dto.UserSummary;
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AdminControllerUserListingTests {
+
+    @Autowired AdminController adminController;
+    @Autowired UserRepository userRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired JsonMapper jsonMapper;
+
+    @BeforeEach
+    void runAsAdmin() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "admin@sribalajiads.com", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void pagesFollowTheCursorAndApplyTheFilters() {
+        User first = save("List One", "list-one@x.com", true, ERole.ROLE_PLANNER);
+        User second = save("List Two", "list-two@x.com", false, ERole.ROLE_PLANNER);
+        User third = save("List Three", "list-three@x.com", true, ERole.ROLE_PLANNER);
+
+        UserPage page = list(first.getId() - 1, 2, null, null);
+        assertThat(page.getUsers()).extracting(UserSummary::getId).containsExactly(first.getId(), second.getId());
+        assertThat(page.getNextCursor()).isEqualTo(second.getId());
+
+        // The page after the cursor starts right behind it; a short page is the last one
+        UserPage next = list(page.getNextCursor(), 2, null, null);
+        assertThat(next.getUsers()).extracting(UserSummary::getId).containsExactly(third.getId());
+        assertThat(next.getNextCursor()).isNull();
+
+        assertThat(list(first.getId() - 1, 50, ERole.ROLE_PLANNER, true).getUsers())
+                .extracting(UserSummary::getEmail).containsExactly("list-one@x.com", "list-three@x.com");
+        assertThat(list(first.getId() - 1, 50, null, false).getUsers())
+                .extracting(UserSummary::getEmail).containsExactly("list-two@x.com");
+        assertThat(list(first.getId() - 1, 50, ERole.ROLE_ADMIN, null).getUsers()).isEmpty();
+    }
+
+    @Test
+    void pageSizeIsCappedAtFiveHundred() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 501; i++) {
+            rows.add(new Object[]{"Bulk " + i, "bulk-" + i + "@x.com"});
+        }
+        long before = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from users", Long.class);
+        jdbcTemplate.batchUpdate("insert into users (name, email, password, active, security_version, role_mask) " +
+                "values (?, ?, 'unused', false, 0, 0)", rows);
+
+        UserPage capped = list(before, 10_000, null, null);
+        assertThat(capped.getUsers()).hasSize(500);
+        assertThat(capped.getNextCursor()).isEqualTo(capped.getUsers().get(499).getId());
+
+        // Anything below one still returns a row, so the cursor keeps moving
+        assertThat(list(before, 0, null, null).getUsers()).hasSize(1);
+        assertThat(list(before, -5, null, null).getUsers()).hasSize(1);
+    }
+
+    @Test
+    void streamWritesOneJsonObjectPerLine() throws Exception {
+        save("Stream One", "stream-one@x.com", true, ERole.ROLE_RO_CREATOR);
+        save("Stream Two", "stream-two@x.com", false, ERole.ROLE_RO_CREATOR);
+
+        ResponseEntity<StreamingResponseBody> response = adminController.streamUsers(ERole.ROLE_RO_CREATOR, true);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.parseMediaType("application/x-ndjson"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        List<String> emails = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            JsonNode user = jsonMapper.readTree(line);
+            assertThat(user.isObject()).isTrue();
+            assertThat(user.has("password")).isFalse();
+            emails.add(user.get("email").asString());
+        }
+        assertThat(emails).contains("stream-one@x.com").doesNotContain("stream-two@x.com");
+    }
+
+    // Through the controller, so the per-role active counters other tests check stay in step
+    private User save(String name, String email, boolean active, ERole role) {
+        SignupRequest request = new SignupRequest();
+        request.setName(name);
+        request.setEmail(email);
+        request.setPassword("secret123");
+        request.setRole(Set.of(role.name()));
+        assertThat(adminController.registerUser(request).getStatusCode().is2xxSuccessful()).isTrue();
+        User user = userRepository.findByEmail(email).orElseThrow();
+        if (!active) {
+            assertThat(adminController.toggleUserStatus(user.getId()).getStatusCode().is2xxSuccessful()).isTrue();
+        }
+        return user;
+    }
+
+    private UserPage list(long after, int limit, ERole role, Boolean active) {
+        return adminController.getAllUsers(after, limit, role, active, new ServletWebRequest(new MockHttpServletRequest())).getBody();
+    }
+}
@@ -0,0 +1,117 @@
+package com.sribalajiads.billing_application.controller;
+
+import com.sribalajiads.billing_application.dto.SignupRequest;
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.repository.UserRepository;
+import com.sribalajiads.billing_application.service.RevenueReadModel;
+import com.sribalajiads.billing_application.service.UserSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ConditionalGetTests {
+
+    private static final YearMonth MONTH = YearMonth.of(2026, 4);
+
+    @Autowired AdminController adminController;
+    @Autowired ReportController reportController;
+    @Autowired UserRepository userRepository;
+    @Autowired UserSearchIndex userSearchIndex;
+    @Autowired RevenueReadModel revenueReadModel;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void signInAsAdmin() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "admin@sribalajiads.com", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void usersAnswerNotModifiedUntilAnAdminChange() {
+        ResponseEntity<?> first = adminController.getAllUsers(0, 50, null, null, request(null));
+        String etag = first.getHeaders().getETag();
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(etag).startsWith("\"users-");
+        assertThat(first.getHeaders().getCacheControl()).contains("no-cache");
+
+        ResponseEntity<?> unchanged = adminController.getAllUsers(0, 50, null, null, request(etag));
+        assertThat(unchanged.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(unchanged.getBody()).isNull();
+
+        SignupRequest signup = new SignupRequest();
+        signup.setName("Etag Reader");
+        signup.setEmail("etag.reader@example.com");
+        signup.setPassword("secret123");
+        signup.setRole(Set.of("ROLE_PLANNER"));
+        assertThat(adminController.registerUser(signup).getStatusCode().is2xxSuccessful()).isTrue();
+
+        ResponseEntity<?> changed = adminController.getAllUsers(0, 50, null, null, request(etag));
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changed.getHeaders().getETag()).isNotEqualTo(etag);
+
+        // A user created on another node moves the ETag once the search poll notices it
+        etag = changed.getHeaders().getETag();
+        userRepository.save(new User("Etag Remote", "etag.remote@example.com", "x"));
+        assertThat(adminController.getAllUsers(0, 50, null, null, request(etag)).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        userSearchIndex.poll();
+        assertThat(adminController.getAllUsers(0, 50, null, null, request(etag)).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void rolesAreServedOnceAndThenRevalidated() {
+        ResponseEntity<List<String>> first = adminController.getRoles(request(null));
+        assertThat(first.getBody()).contains("ROLE_ADMIN", "ROLE_PLANNER");
+
+        ResponseEntity<List<String>> again = adminController.getRoles(request(first.getHeaders().getETag()));
+        assertThat(again.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void revenueReportsFollowSummaryWritesFromOtherNodes() {
+        revenueReadModel.pollForChanges();
+        String etag = reportController.getMonthly(MONTH, MONTH, request(null)).getHeaders().getETag();
+        assertThat(reportController.getOwners(MONTH, MONTH, request(etag)).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        jdbcTemplate.update("insert into revenue_summary (period, client_name, owner, invoice_count, taxable_amount, cgst, sgst, " +
+                "igst, total_amount, updated_by, updated_at) values ('2026-04', 'Acme', 'planner', 1, 100, 9, 9, 0, 118, 'other-node', now())");
+        revenueReadModel.pollForChanges();
+
+        ResponseEntity<?> changed = reportController.getMonthly(MONTH, MONTH, request(etag));
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changed.getBody()).asList().hasSize(1);
+        jdbcTemplate.update("delete from revenue_summary where updated_by = 'other-node'");
+    }
+
+    private static WebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
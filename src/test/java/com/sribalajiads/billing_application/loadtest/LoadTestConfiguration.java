@@ -0,0 +1,122 @@
+package com.sribalajiads.billing_application.loadtest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Test-only wiring for the load test: wraps the DataSource so every statement execution is counted
+ * (and optionally delayed by loadtest.dbLatencyMillis to stand in for a network round trip to MySQL), and tags each request thread with the endpoint label the load generator sends in {@link #ENDPOINT_HEADER}.
+ */
+@TestConfiguration
+class LoadTestConfiguration {
+
+    static final String ENDPOINT_HEADER = "X-Load-Endpoint";
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    static final long DB_LATENCY_MILLIS = Long.getLong("loadtest.dbLatencyMillis", 0);
+
+    @Bean
+    static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)
+                        ? new CountingDataSource(dataSource) : bean;
+            }
+        };
+    }
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    OncePerRequestFilter endpointLabelFilter() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                String endpoint = request.getHeader(ENDPOINT_HEADER);
+                QueryCounter.bind(endpoint != null ? endpoint : request.getMethod() + " " + request.getRequestURI());
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    QueryCounter.unbind();
+                }
+            }
+        };
+    }
+
+    static class CountingDataSource extends DelegatingDataSource {
+
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return countingConnection(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return countingConnection(super.getConnection(username, password));
+        }
+
+        private static Connection countingConnection(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (result instanceof CallableStatement statement) {
+                            return countingStatement(statement, CallableStatement.class);
+                        } else if (result instanceof PreparedStatement statement) {
+                            return countingStatement(statement, PreparedStatement.class);
+                        } else if (result instanceof Statement statement) {
+                            return countingStatement(statement, Statement.class);
+                        }
+                        return result;
+                    });
+        }
+
+        private static Object countingStatement(Statement statement, Class<? extends Statement> type) {
+            return Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        if (EXECUTE_METHODS.contains(method.getName())) {
+                            QueryCounter.recordQuery();
+                            if (DB_LATENCY_MILLIS > 0) {
+                                Thread.sleep(DB_LATENCY_MILLIS);
+                            }
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.sribalajiads.billing_application.loadtest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load test: boots the whole application on a random port against an in-memory H2 database
+ * in MySQL mode, logs in through /api/auth/login and drives a weighted mix of requests from a pool of
+ * client threads. Per-endpoint latency percentiles, throughput and JDBC statement counts are written as JSON
+ * so runs can be compared across releases.
+ *
+ * Not part of the normal build; run with {@code mvn test -Ploadtest}. Settings (system properties):
+ * loadtest.concurrency, loadtest.warmupSeconds, loadtest.durationSeconds, loadtest.users,
+ * loadtest.mix (e.g. "read=60,list=25,roles=10,toggle=5"), loadtest.dbLatencyMillis, loadtest.report and
+ * loadtest.virtualThreads. Running the same settings with loadtest.virtualThreads=false and =true compares
+ * request handling on Tomcat's platform-thread pool against virtual threads; at high concurrency with
+ * a non-zero dbLatencyMillis the platform pool saturates first.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.threads.virtual.enabled=${loadtest.virtualThreads:false}",
+                // Keeps the authenticated read off the connection pool so it measures the auth path alone
+                "management.health.db.enabled=false"
+        })
+@Import(LoadTestConfiguration.class)
+class LoadTestHarnessTests {
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestHarnessTests.class);
+
+    private static final String ADMIN_EMAIL = "admin@sribalajiads.com";
+    private static final String ADMIN_PASSWORD = "Admin@123";
+    private static final String USER_PASSWORD = "loadtest123";
+    private static final String READER_EMAIL = "load-reader@example.com";
+
+    @LocalServerPort int port;
+    @Autowired JsonMapper jsonMapper;
+    @Autowired MeterRegistry meterRegistry;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(5)).build();
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 5);
+    private final int durationSeconds = Integer.getInteger("loadtest.durationSeconds", 20);
+    private final int userCount = Integer.getInteger("loadtest.users", 200);
+    private final Map<String, Integer> mix = parseMix(System.getProperty("loadtest.mix", "read=60,list=25,roles=10,toggle=5"));
+    private final boolean virtualThreads = Boolean.getBoolean("loadtest.virtualThreads");
+    private final Path reportPath = Path.of(System.getProperty("loadtest.report",
+            "target/loadtest/loadtest-report-" + (virtualThreads ? "virtual" : "platform") + ".json"));
+
+    private String adminToken;
+    private String userToken;
+    private List<Long> userIds;
+
+    @BeforeEach
+    void seedUsers() throws Exception {
+        adminToken = login(ADMIN_EMAIL, ADMIN_PASSWORD);
+
+        // The reading user is not a planner, so the role and status writes below never lock it out
+        StringBuilder csv = new StringBuilder("name,email,password,roles\n")
+                .append("Load Reader,").append(READER_EMAIL).append(",").append(USER_PASSWORD).append(",ROLE_RO_CREATOR\n");
+        for (int i = 0; i < userCount; i++) {
+            csv.append("Load User ").append(i).append(",load").append(i).append("@example.com,")
+                    .append(USER_PASSWORD).append(",ROLE_PLANNER\n");
+        }
+        send("import", HttpRequest.newBuilder(uri("/api/admin/users/import"))
+                .header("Authorization", "Bearer " + adminToken)
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv.toString())).build());
+
+        userIds = new ArrayList<>();
+        Long after = 0L;
+        while (after != null) {
+            JsonNode page = jsonMapper.readTree(send("list", get("/api/admin/users?limit=500&role=ROLE_PLANNER&after=" + after, adminToken)).body());
+            page.get("users").forEach(user -> userIds.add(user.get("id").asLong()));
+            after = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asLong();
+        }
+        userToken = login(READER_EMAIL, USER_PASSWORD);
+    }
+
+    @Test
+    void mixedTraffic() throws Exception {
+        runPhase(warmupSeconds);
+        QueryCounter.reset();
+
+        long started = System.nanoTime();
+        Map<String, EndpointStats> stats = runPhase(durationSeconds);
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        Map<String, Long> queries = QueryCounter.snapshot();
+        writeReport(stats, queries, elapsedSeconds);
+
+        stats.values().forEach(endpoint -> assertThat(endpoint.serverErrors)
+                .as("5xx responses from %s", endpoint.name).isZero());
+    }
+
+    private Map<String, EndpointStats> runPhase(int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        // Client threads mostly wait on the socket, so they are virtual regardless of the server's mode
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<Map<String, EndpointStats>>> results = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            results.add(workers.submit(() -> drive(deadline)));
+        }
+
+        Map<String, EndpointStats> merged = new TreeMap<>();
+        for (Future<Map<String, EndpointStats>> result : results) {
+            result.get().forEach((name, endpoint) -> merged.computeIfAbsent(name, EndpointStats::new).add(endpoint));
+        }
+        workers.shutdown();
+        return merged;
+    }
+
+    // One client thread: picks requests by weight until the deadline, recording latency per endpoint
+    private Map<String, EndpointStats> drive(long deadline) throws Exception {
+        Map<String, EndpointStats> stats = new HashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+
+        while (System.nanoTime() < deadline) {
+            String endpoint = pick(random.nextInt(totalWeight));
+            HttpRequest request = switch (endpoint) {
+                case "read" -> get("/actuator/health", userToken);
+                case "list" -> get("/api/admin/users?limit=50", adminToken);
+                case "roles" -> HttpRequest.newBuilder(uri("/api/admin/update-role/" + randomUser(random)))
+                        .header("Authorization", "Bearer " + adminToken)
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(random.nextBoolean()
+                                ? "{\"roles\":[\"ROLE_PLANNER\"]}"
+                                : "{\"roles\":[\"ROLE_PLANNER\",\"ROLE_RO_CREATOR\"]}")).build();
+                case "toggle" -> HttpRequest.newBuilder(uri("/api/admin/toggle-status/" + randomUser(random)))
+                        .header("Authorization", "Bearer " + adminToken)
+                        .method("PATCH", HttpRequest.BodyPublishers.noBody()).build();
+                default -> throw new IllegalArgumentException("Unknown endpoint in loadtest.mix: " + endpoint);
+            };
+
+            long start = System.nanoTime();
+            HttpResponse<String> response = send(endpoint, request);
+            stats.computeIfAbsent(endpoint, EndpointStats::new).record(System.nanoTime() - start, response.statusCode());
+        }
+        return stats;
+    }
+
+    private void writeReport(Map<String, EndpointStats> stats, Map<String, Long> queries, double elapsedSeconds) throws Exception {
+        Map<String, Object> endpoints = new TreeMap<>();
+        stats.forEach((name, endpoint) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            long queryCount = queries.getOrDefault(name, 0L);
+            entry.put("requests", endpoint.latencies.getTotalCount());
+            entry.put("errors", endpoint.errors);
+            entry.put("statuses", endpoint.statuses);
+            entry.put("throughputPerSecond", endpoint.latencies.getTotalCount() / elapsedSeconds);
+            entry.put("p50Ms", millis(endpoint.latencies.getValueAtPercentile(50)));
+            entry.put("p95Ms", millis(endpoint.latencies.getValueAtPercentile(95)));
+            entry.put("p99Ms", millis(endpoint.latencies.getValueAtPercentile(99)));
+            entry.put("maxMs", millis(endpoint.latencies.getMaxValue()));
+            entry.put("dbQueries", queryCount);
+            entry.put("dbQueriesPerRequest", (double) queryCount / Math.max(1, endpoint.latencies.getTotalCount()));
+            endpoints.put(name, entry);
+        });
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", Map.of(
+                "concurrency", concurrency,
+                "warmupSeconds", warmupSeconds,
+                "durationSeconds", durationSeconds,
+                "users", userCount,
+                "mix", mix,
+                "dbLatencyMillis", LoadTestConfiguration.DB_LATENCY_MILLIS,
+                "threads", virtualThreads ? "virtual" : "platform"));
+        report.put("elapsedSeconds", elapsedSeconds);
+        report.put("totalThroughputPerSecond",
+                stats.values().stream().mapToLong(e -> e.latencies.getTotalCount()).sum() / elapsedSeconds);
+        report.put("endpoints", endpoints);
+        report.put("backgroundDbQueries", queries.getOrDefault(QueryCounter.BACKGROUND, 0L));
+        Timer pinned = meterRegistry.find("billing.threads.virtual.pinned").timer();
+        report.put("virtualThreadPinnedEvents", pinned != null ? pinned.count() : 0);
+
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        jsonMapper.writerWithDefaultPrettyPrinter().writeValue(reportPath.toFile(), report);
+        logger.info("Load test report written to {}", reportPath.toAbsolutePath());
+    }
+
+    private String login(String email, String password) throws Exception {
+        HttpResponse<String> response = send("login", HttpRequest.newBuilder(uri("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}")).build());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return jsonMapper.readTree(response.body()).get("token").asString();
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest request) throws Exception {
+        HttpRequest labelled = HttpRequest.newBuilder(request, (name, value) -> true)
+                .header(LoadTestConfiguration.ENDPOINT_HEADER, endpoint).build();
+        return client.send(labelled, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token).GET().build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private long randomUser(ThreadLocalRandom random) {
+        return userIds.get(random.nextInt(userIds.size()));
+    }
+
+    private String pick(int roll) {
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty loadtest.mix");
+    }
+
+    private static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=");
+            weights.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static class EndpointStats {
+        final String name;
+        final Histogram latencies = new Histogram(TimeUnit.SECONDS.toNanos(60), 3);
+        final Map<Integer, Long> statuses = new TreeMap<>();
+        long errors;
+        long serverErrors;
+
+        EndpointStats(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, int status) {
+            latencies.recordValue(Math.min(nanos, latencies.getHighestTrackableValue()));
+            statuses.merge(status, 1L, Long::sum);
+            if (status >= 400) {
+                errors++;
+            }
+            if (status >= 500) {
+                serverErrors++;
+            }
+        }
+
+        void add(EndpointStats other) {
+            latencies.add(other.latencies);
+            other.statuses.forEach((status, count) -> statuses.merge(status, count, Long::sum));
+            errors += other.errors;
+            serverErrors += other.serverErrors;
+        }
+    }
+}
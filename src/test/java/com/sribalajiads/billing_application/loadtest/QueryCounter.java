@@ -0,0 +1,41 @@
+package com.sribalajiads.billing_application.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts JDBC statement executions per endpoint label; the label is bound to the request thread by LoadTestConfiguration
+final class QueryCounter {
+
+    static final String BACKGROUND = "background";
+
+    private static final ThreadLocal<String> currentEndpoint = new ThreadLocal<>();
+    private static final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+    private QueryCounter() {
+    }
+
+    static void bind(String endpoint) {
+        currentEndpoint.set(endpoint);
+    }
+
+    static void unbind() {
+        currentEndpoint.remove();
+    }
+
+    static void recordQuery() {
+        String endpoint = currentEndpoint.get();
+        counts.computeIfAbsent(endpoint != null ? endpoint : BACKGROUND, key -> new LongAdder()).increment();
+    }
+
+    static void reset() {
+        counts.clear();
+    }
+
+    static Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counts.forEach((endpoint, count) -> snapshot.put(endpoint, count.sum()));
+        return snapshot;
+    }
+}
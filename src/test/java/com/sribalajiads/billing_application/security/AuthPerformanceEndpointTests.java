@@ -0,0 +1,46 @@
+package com.sribalajiads.billing_application.security;
+
+import com.sribalajiads.billing_application.controller.AuthController;
+import com.sribalajiads.billing_application.dto.JwtResponse;
+import com.sribalajiads.billing_application.dto.LoginRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AuthPerformanceEndpointTests {
+
+    @Autowired AuthController authController;
+    @Autowired JwtUtils jwtUtils;
+    @Autowired AuthPerformanceEndpoint endpoint;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reportsLoginStagesAndInvalidTokens() {
+        LoginRequest login = new LoginRequest();
+        login.setEmail("admin@sribalajiads.com");
+        login.setPassword("Admin@123");
+        JwtResponse response = (JwtResponse) authController.authenticateUser(login, new MockHttpServletRequest()).getBody();
+
+        assertThat(jwtUtils.parseJwtClaims(response.getToken())).isNotNull();
+        assertThat(jwtUtils.parseJwtClaims(response.getToken() + "x")).isNull();
+        assertThat(jwtUtils.parseJwtClaims("not-a-token")).isNull();
+
+        Map<String, Object> report = endpoint.authPerformance();
+        Map<String, Map<String, Object>> password = (Map<String, Map<String, Object>>) report.get("password");
+        Map<String, Map<String, Object>> jwt = (Map<String, Map<String, Object>>) report.get("jwt");
+        Map<String, Double> invalidTokens = (Map<String, Double>) report.get("invalidTokens");
+        Map<String, Object> crypto = (Map<String, Object>) ((Map<String, Object>) report.get("breakdown")).get("crypto");
+
+        assertThat((long) password.get("matches").get("count")).isGreaterThanOrEqualTo(1);
+        assertThat((long) jwt.get("verified").get("count")).isGreaterThanOrEqualTo(1);
+        assertThat(invalidTokens.get("signature")).isGreaterThanOrEqualTo(1);
+        assertThat(invalidTokens.get("malformed")).isGreaterThanOrEqualTo(1);
+        assertThat((double) crypto.get("ms")).isPositive();
+    }
+}
@@ -0,0 +1,77 @@
+package com.sribalajiads.billing_application.security;
+
+import com.sribalajiads.billing_application.controller.AdminController;
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.repository.UserRepository;
+import com.sribalajiads.billing_application.security.services.SecurityVersionRegistry;
+import com.sribalajiads.billing_application.security.services.UserDetailsImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AuthTokenFilterTests {
+
+    @Autowired AuthTokenFilter authTokenFilter;
+    @Autowired JwtUtils jwtUtils;
+    @Autowired SecurityVersionRegistry securityVersionRegistry;
+    @Autowired UserRepository userRepository;
+    @Autowired AdminController adminController;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void aFreshTokenIsTrustedWithoutLoadingTheUser() throws Exception {
+        User user = userRepository.save(new User("Fresh Token", "fresh-token@x.com", "hash"));
+        String token = jwtUtils.generateJwtToken(UserDetailsImpl.build(user));
+        securityVersionRegistry.advance(user.getId(), user.getSecurityVersion()); // as the login did
+
+        // A principal built from the claims carries no password hash; one loaded from the database does
+        UserDetailsImpl principal = (UserDetailsImpl) authenticate(token).getPrincipal();
+        assertThat(principal.getId()).isEqualTo(user.getId());
+        assertThat(principal.getPassword()).isNull();
+    }
+
+    @Test
+    void aTokenOlderThanTheKnownSecurityVersionIsCheckedAgainstTheDatabase() throws Exception {
+        User user = userRepository.save(new User("Stale Token", "stale-token@x.com", "hash"));
+        String token = jwtUtils.generateJwtToken(UserDetailsImpl.build(user));
+        securityVersionRegistry.advance(user.getId(), user.getSecurityVersion() + 1); // a change seen on another node
+
+        UserDetailsImpl principal = (UserDetailsImpl) authenticate(token).getPrincipal();
+        assertThat(principal.getId()).isEqualTo(user.getId());
+        assertThat(principal.getPassword()).isEqualTo("hash");
+    }
+
+    @Test
+    void aDeactivatedUsersTokenIsRefused() throws Exception {
+        User user = userRepository.save(new User("Deactivated", "deactivated@x.com", "hash"));
+        String token = jwtUtils.generateJwtToken(UserDetailsImpl.build(user));
+        securityVersionRegistry.advance(user.getId(), user.getSecurityVersion());
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("admin@sribalajiads.com", null, "ROLE_ADMIN"));
+        adminController.toggleUserStatus(user.getId());
+        SecurityContextHolder.clearContext();
+
+        assertThat(authenticate(token)).isNull();
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
+        request.addHeader("Authorization", "Bearer " + token);
+        authTokenFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
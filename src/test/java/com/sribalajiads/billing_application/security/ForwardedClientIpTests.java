@@ -0,0 +1,46 @@
+package com.sribalajiads.billing_application.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Requests arrive from the loopback address, which the default internal-proxies trust like the load balancer.
+// The test application.properties replaces the main one, so the forwarded-header setting is repeated here
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.forward-headers-strategy=native",
+        "billing.security.login.ip.capacity=2",
+        "billing.security.login.ip.refill-per-minute=1",
+        "billing.security.bcrypt.strength=5"
+})
+class ForwardedClientIpTests {
+
+    @LocalServerPort int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void clientsBehindTheProxyHaveTheirOwnLoginBuckets() throws Exception {
+        assertThat(login("203.0.113.10", "first@x.com")).isNotEqualTo(429);
+        assertThat(login("203.0.113.10", "second@x.com")).isNotEqualTo(429);
+        assertThat(login("203.0.113.10", "third@x.com")).isEqualTo(429);
+
+        // Same proxy, another client
+        assertThat(login("203.0.113.20", "fourth@x.com")).isNotEqualTo(429);
+    }
+
+    private int login(String forwardedFor, String email) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .header("X-Forwarded-For", forwardedFor)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + email + "\",\"password\":\"guess123\"}"))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,46 @@
+package com.sribalajiads.billing_application.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class JwtUtilsTests {
+
+    @Autowired JwtUtils jwtUtils;
+    @Autowired AutowireCapableBeanFactory beanFactory;
+
+    @Test
+    void aCachedTokenIsRefusedOnceItExpires() throws InterruptedException {
+        JwtUtils shortLived = new JwtUtils(Duration.ofSeconds(1), 100, Duration.ofMinutes(10));
+        beanFactory.autowireBean(shortLived);
+
+        String token = shortLived.generateJwtToken("expiring@x.com");
+        assertThat(shortLived.parseJwtClaims(token)).isNotNull();
+        assertThat(shortLived.parseJwtClaims(token)).isNotNull(); // now from the cache
+
+        // exp is stored in whole seconds, so wait past the next second boundary
+        Thread.sleep(2_000);
+        assertThat(shortLived.parseJwtClaims(token)).isNull();
+    }
+
+    @Test
+    void aTamperedTokenIsNotServedFromTheCache() {
+        String token = jwtUtils.generateJwtToken("tampered@x.com");
+        assertThat(jwtUtils.parseJwtClaims(token)).isNotNull();
+
+        String[] parts = token.split("\\.");
+        String otherPayload = jwtUtils.generateJwtToken("intruder@x.com").split("\\.")[1];
+        assertThat(jwtUtils.parseJwtClaims(parts[0] + "." + otherPayload + "." + parts[2])).isNull();
+
+        // Change a signature character that carries no padding bits
+        char[] signature = parts[2].toCharArray();
+        signature[10] = signature[10] == 'A' ? 'B' : 'A';
+        assertThat(jwtUtils.parseJwtClaims(parts[0] + "." + parts[1] + "." + new String(signature))).isNull();
+    }
+}
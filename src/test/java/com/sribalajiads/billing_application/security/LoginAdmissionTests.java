@@ -0,0 +1,64 @@
+package com.sribalajiads.billing_application.security;
+
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "billing.security.login.email.capacity=2",
+        "billing.security.bcrypt.strength=5"
+})
+class LoginAdmissionTests {
+
+    @Autowired LoginAdmission loginAdmission;
+    @Autowired UserRepository userRepository;
+
+    @Test
+    void repeatedAttemptsForOneEmailAreThrottledBeforeTheHashCheck() {
+        String email = "stuffed@x.com";
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> loginAdmission.authenticate(email, "guess", "10.0.0.1"))
+                    .isInstanceOf(BadCredentialsException.class);
+        }
+
+        // Different IP, same email: still limited, and the email key ignores case
+        assertThatThrownBy(() -> loginAdmission.authenticate("Stuffed@X.com", "guess", "10.0.0.2"))
+                .isInstanceOfSatisfying(LoginRejectedException.class, e -> {
+                    assertThat(e.getReason()).isEqualTo(LoginRejectedException.Reason.EMAIL);
+                    assertThat(e.getRetryAfter().toSeconds()).isPositive();
+                });
+    }
+
+    @Test
+    void throttlingOneEmailLeavesOthersAlone() {
+        // "an" and "c0" have the same String hash, so a striped limiter would put them in one bucket
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> loginAdmission.authenticate("an@x.com", "guess", "10.0.1.1"))
+                    .isInstanceOf(BadCredentialsException.class);
+        }
+        assertThatThrownBy(() -> loginAdmission.authenticate("an@x.com", "guess", "10.0.1.2"))
+                .isInstanceOf(LoginRejectedException.class);
+
+        assertThatThrownBy(() -> loginAdmission.authenticate("c0@x.com", "guess", "10.0.1.3"))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void passwordStoredAtALowerCostIsRehashedOnLogin() {
+        User user = new User("Legacy", "legacy@x.com", new BCryptPasswordEncoder(4).encode("secret1"));
+        userRepository.save(user);
+
+        loginAdmission.authenticate("legacy@x.com", "secret1", "10.0.0.3");
+
+        String stored = userRepository.findByEmail("legacy@x.com").orElseThrow().getPassword();
+        assertThat(stored).startsWith("$2a$05$");
+        assertThat(new BCryptPasswordEncoder().matches("secret1", stored)).isTrue();
+    }
+}
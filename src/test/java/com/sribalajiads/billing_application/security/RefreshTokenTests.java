@@ -0,0 +1,48 @@
+package com.sribalajiads.billing_application.security;
+
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.repository.UserRepository;
+import com.sribalajiads.billing_application.security.services.RefreshTokenService;
+import com.sribalajiads.billing_application.security.services.TokenRevocationIndex;
+import com.sribalajiads.billing_application.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class RefreshTokenTests {
+
+    @Autowired RefreshTokenService refreshTokenService;
+    @Autowired TokenRevocationIndex revocationIndex;
+    @Autowired JwtUtils jwtUtils;
+    @Autowired UserRepository userRepository;
+
+    @Test
+    void reusingARotatedTokenRevokesTheWholeFamily() {
+        User user = userRepository.save(new User("Rotating", "rotating@x.com", "unused"));
+
+        String first = refreshTokenService.issue(user.getId());
+        String second = refreshTokenService.rotate(first).orElseThrow().refreshToken();
+        assertThat(second).isNotEqualTo(first);
+
+        // The old token was copied somewhere: refuse it and kill the successor too
+        assertThat(refreshTokenService.rotate(first)).isEmpty();
+        assertThat(refreshTokenService.rotate(second)).isEmpty();
+    }
+
+    @Test
+    void revokedAccessTokenIsRejectedUntilItExpires() {
+        User user = userRepository.save(new User("Leaving", "leaving@x.com", "unused"));
+        String jwt = jwtUtils.generateJwtToken(UserDetailsImpl.build(user));
+        Claims claims = jwtUtils.parseJwtClaims(jwt);
+        assertThat(claims).isNotNull();
+
+        revocationIndex.revoke(claims.getId(), claims.getExpiration());
+
+        assertThat(jwtUtils.parseJwtClaims(jwt)).isNull();
+        assertThat(jwtUtils.parseJwtClaims(jwtUtils.generateJwtToken(UserDetailsImpl.build(user)))).isNotNull();
+    }
+}
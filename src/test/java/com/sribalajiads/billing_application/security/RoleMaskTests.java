@@ -0,0 +1,99 @@
+package com.sribalajiads.billing_application.security;
+
+import com.sribalajiads.billing_application.controller.AdminController;
+import com.sribalajiads.billing_application.dto.SignupRequest;
+import com.sribalajiads.billing_application.dto.UpdateRoleRequest;
+import com.sribalajiads.billing_application.dto.UserSummary;
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.repository.UserRepository;
+import com.sribalajiads.billing_application.repository.UserStreamRepository;
+import com.sribalajiads.billing_application.security.services.UserDetailsImpl;
+import com.sribalajiads.billing_application.util.RoleMaskMigration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class RoleMaskTests {
+
+    @Autowired UserRepository userRepository;
+    @Autowired RoleMaskMigration roleMaskMigration;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired AdminController adminController;
+    @Autowired UserStreamRepository userStreamRepository;
+
+    @Test
+    void legacyJoinRowsAreFoldedIntoTheMaskAndKeptInStep() {
+        long planners = userRepository.countActiveByRole(ERole.ROLE_PLANNER);
+        User legacy = userRepository.save(new User("Legacy", "legacy@x.com", "unused"));
+        jdbcTemplate.execute("create table user_roles (user_id bigint not null, role_id integer not null, primary key (user_id, role_id))");
+        try {
+            for (ERole role : Set.of(ERole.ROLE_PLANNER, ERole.ROLE_INVOICE_CREATOR)) {
+                jdbcTemplate.update("insert into user_roles (user_id, role_id) select ?, id from roles where name = ?", legacy.getId(), role.name());
+            }
+
+            roleMaskMigration.migrate();
+            assertThat(userRepository.findById(legacy.getId()).orElseThrow().getRoles())
+                    .isEqualTo(EnumSet.of(ERole.ROLE_PLANNER, ERole.ROLE_INVOICE_CREATOR));
+
+            // The role filter runs on the mask
+            assertThat(userRepository.findSummaryPage(legacy.getId() - 1, null, ERole.ROLE_INVOICE_CREATOR, Limit.of(10)))
+                    .extracting(UserSummary::getEmail).containsExactly("legacy@x.com");
+            assertThat(userRepository.countActiveByRole(ERole.ROLE_PLANNER)).isEqualTo(planners + 1);
+            List<String> streamed = new ArrayList<>();
+            userStreamRepository.streamSummaries(true, ERole.ROLE_INVOICE_CREATOR, summary -> streamed.add(summary.getEmail()));
+            assertThat(streamed).contains("legacy@x.com").doesNotContain("admin@sribalajiads.com");
+
+            // Nodes on the previous build read the join table, so changes made here are written to it too
+            SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("admin@sribalajiads.com", null, "ROLE_ADMIN"));
+            SignupRequest signup = new SignupRequest();
+            signup.setName("Mirrored");
+            signup.setEmail("mirrored@x.com");
+            signup.setPassword("secret123");
+            signup.setRole(Set.of("ROLE_PLANNER"));
+            assertThat(adminController.registerUser(signup).getStatusCode().is2xxSuccessful()).isTrue();
+            Long mirrored = userRepository.findByEmail("mirrored@x.com").orElseThrow().getId();
+            assertThat(joinRoles(mirrored)).containsExactly("ROLE_PLANNER");
+
+            UpdateRoleRequest update = new UpdateRoleRequest();
+            update.setRoles(Set.of("ROLE_RO_CREATOR", "ROLE_INVOICE_CREATOR"));
+            assertThat(adminController.updateUserRoles(mirrored, update).getStatusCode().is2xxSuccessful()).isTrue();
+            assertThat(joinRoles(mirrored)).containsExactlyInAnyOrder("ROLE_RO_CREATOR", "ROLE_INVOICE_CREATOR");
+            assertThat(joinRoles(legacy.getId())).hasSize(2);
+        } finally {
+            SecurityContextHolder.clearContext();
+            jdbcTemplate.execute("drop table user_roles");
+            roleMaskMigration.migrate();
+        }
+    }
+
+    @Test
+    void usersWithTheSameRolesShareOneAuthorityList() {
+        User first = new User("First", "first@x.com", "unused");
+        first.setRoles(EnumSet.of(ERole.ROLE_RO_CREATOR, ERole.ROLE_PLANNER));
+        User second = new User("Second", "second@x.com", "unused");
+        second.setRoles(EnumSet.of(ERole.ROLE_PLANNER, ERole.ROLE_RO_CREATOR));
+
+        UserDetailsImpl a = UserDetailsImpl.build(first);
+        UserDetailsImpl b = UserDetailsImpl.build(second);
+        assertThat(a.getAuthorities()).isSameAs(b.getAuthorities());
+        assertThat(a.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_PLANNER", "ROLE_RO_CREATOR");
+    }
+
+    private List<String> joinRoles(Long userId) {
+        return jdbcTemplate.queryForList("select r.name from user_roles ur join roles r on r.id = ur.role_id where ur.user_id = ?",
+                String.class, userId);
+    }
+}
@@ -0,0 +1,44 @@
+package com.sribalajiads.billing_application.security.services;
+
+import com.sribalajiads.billing_application.model.UserChangeLog;
+import com.sribalajiads.billing_application.repository.UserChangeLogRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class UserChangeTrackerTests {
+
+    private static final String ADMIN_EMAIL = "admin@sribalajiads.com";
+
+    @Autowired UserChangeTracker userChangeTracker;
+    @Autowired UserChangeLogRepository changeLogRepository;
+    @Autowired UserDetailsServiceImpl userDetailsService;
+
+    @Test
+    void changeWrittenByAnotherNodeEvictsCachedUser() {
+        userChangeTracker.pollChanges();
+        UserDetails cached = userDetailsService.loadUserByUsername(ADMIN_EMAIL);
+        assertThat(userDetailsService.loadUserByUsername(ADMIN_EMAIL)).isSameAs(cached);
+
+        // Simulate another node recording a change straight into the shared table
+        UserDetailsImpl admin = (UserDetailsImpl) cached;
+        changeLogRepository.save(new UserChangeLog(admin.getId(), ADMIN_EMAIL, admin.getSecurityVersion() + 1));
+        userChangeTracker.pollChanges();
+
+        assertThat(userDetailsService.loadUserByUsername(ADMIN_EMAIL)).isNotSameAs(cached);
+    }
+
+    @Test
+    void everySpellingOfAnEmailIsEvictedTogether() {
+        UserDetails cached = userDetailsService.loadUserByUsername(" Admin@SriBalajiAds.com");
+        assertThat(userDetailsService.loadUserByUsername(ADMIN_EMAIL)).isSameAs(cached);
+
+        UserDetailsImpl admin = (UserDetailsImpl) cached;
+        userDetailsService.onUserChanged(new UserChangedEvent(admin.getId(), ADMIN_EMAIL, admin.getSecurityVersion()));
+        assertThat(userDetailsService.loadUserByUsername("ADMIN@SRIBALAJIADS.COM")).isNotSameAs(cached);
+    }
+}
@@ -0,0 +1,100 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.model.AuditAction;
+import com.sribalajiads.billing_application.model.AuditEvent;
+import com.sribalajiads.billing_application.repository.AuditEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A tiny buffer so concurrent writers keep hitting backpressure
+@SpringBootTest(properties = {
+        "billing.audit.buffer-size=16",
+        "billing.audit.batch-size=8",
+        "billing.audit.backpressure-timeout=1ms"
+})
+class AuditLogTests {
+
+    private static final int WRITERS = 8;
+    private static final int EVENTS_PER_WRITER = 250;
+
+    @Autowired AuditLog auditLog;
+    @Autowired AuditEventRepository auditEventRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentWritersLoseNothingWhenTheBufferIsFull() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            String actor = "writer" + w + "@x.com";
+            writers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < EVENTS_PER_WRITER; i++) {
+                    auditLog.record(actor, AuditAction.STATUS_CHANGED, (long) i, null, true, "event " + i);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        pool.shutdown();
+        auditLog.flush();
+
+        for (int w = 0; w < WRITERS; w++) {
+            List<AuditEvent> events = auditEventRepository.findPage(Long.MAX_VALUE, "writer" + w + "@x.com",
+                    AuditAction.STATUS_CHANGED, null, null, null, Limit.of(EVENTS_PER_WRITER + 1));
+            assertThat(events).hasSize(EVENTS_PER_WRITER);
+        }
+    }
+
+    @Test
+    void queryFiltersByTargetAndPagesNewestFirst() {
+        for (int i = 0; i < 5; i++) {
+            auditLog.record("pager@x.com", AuditAction.ROLES_CHANGED, 4242L, "target@x.com", i % 2 == 0, "change " + i);
+        }
+        auditLog.flush();
+
+        List<AuditEvent> firstPage = auditEventRepository.findPage(Long.MAX_VALUE, null, null, 4242L, null, null, Limit.of(3));
+        assertThat(firstPage).extracting(AuditEvent::getDetail).containsExactly("change 4", "change 3", "change 2");
+
+        List<AuditEvent> secondPage = auditEventRepository.findPage(firstPage.get(2).getId(), null, null, 4242L, null, null, Limit.of(3));
+        assertThat(secondPage).extracting(AuditEvent::getDetail).containsExactly("change 1", "change 0");
+    }
+
+    @Test
+    void aRowTheDatabaseRefusesIsDroppedWithoutHoldingUpItsBatch() {
+        String longEmail = "x".repeat(150) + "@x.com";
+        jdbcTemplate.execute("alter table audit_events add constraint ck_audit_test check (detail is null or detail <> 'poison')");
+        try {
+            auditLog.record("refused@x.com", AuditAction.STATUS_CHANGED, 1L, null, true, "before");
+            auditLog.record("refused@x.com", AuditAction.STATUS_CHANGED, 2L, null, true, "poison");
+            auditLog.record("refused@x.com", AuditAction.STATUS_CHANGED, 3L, null, true, "after");
+            auditLog.record(longEmail, AuditAction.LOGIN, null, longEmail, false, "BadCredentialsException");
+            auditLog.flush();
+        } finally {
+            jdbcTemplate.execute("alter table audit_events drop constraint ck_audit_test");
+        }
+
+        List<AuditEvent> events = auditEventRepository.findPage(Long.MAX_VALUE, "refused@x.com",
+                AuditAction.STATUS_CHANGED, null, null, null, Limit.of(10));
+        assertThat(events).extracting(AuditEvent::getDetail).containsExactly("after", "before");
+        List<AuditEvent> logins = auditEventRepository.findPage(Long.MAX_VALUE, longEmail.substring(0, 100),
+                AuditAction.LOGIN, null, null, null, Limit.of(10));
+        assertThat(logins).singleElement().extracting(AuditEvent::getTargetEmail).isEqualTo(longEmail.substring(0, 100));
+    }
+}
@@ -0,0 +1,70 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.dto.ReleaseOrderRequest;
+import com.sribalajiads.billing_application.dto.ReleaseOrderResult;
+import com.sribalajiads.billing_application.model.ReleaseOrderStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AvailabilityIndexTests {
+
+    @Autowired ReleaseOrderService releaseOrderService;
+    @Autowired AvailabilityIndex availabilityIndex;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void bookingsAndCancellationsAreReflectedImmediately() {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("ro@x.com", null, "ROLE_RO_CREATOR"));
+        LocalDate march = LocalDate.of(2026, 3, 1);
+
+        Long first = book("a1", "HOARDING-HYD-01", march.plusDays(4), march.plusDays(9));
+        Long second = book("a2", "HOARDING-HYD-01", march.plusDays(8), march.plusDays(14));
+        book("a3", "HOARDING-HYD-02", march, march.plusDays(30));
+
+        assertThat(availabilityIndex.isAvailable("HOARDING-HYD-01", march, march.plusDays(3))).isTrue();
+        assertThat(availabilityIndex.conflicts("HOARDING-HYD-01", march.plusDays(9), march.plusDays(9)))
+                .extracting(AvailabilityIndex.Booking::releaseOrderId).containsExactly(first, second);
+
+        List<LocalDate[]> free = availabilityIndex.freeRanges("HOARDING-HYD-01", march, march.plusDays(30));
+        assertThat(free).hasSize(2);
+        assertThat(free.get(0)).containsExactly(march, march.plusDays(3));
+        assertThat(free.get(1)).containsExactly(march.plusDays(15), march.plusDays(30));
+
+        assertThat(availabilityIndex.freeInventories(march, march.plusDays(3), "HOARDING-HYD", 10))
+                .containsExactly("HOARDING-HYD-01");
+
+        // Cancelling frees only the days no other order still holds
+        assertThat(releaseOrderService.cancel(second).getStatus()).isEqualTo(ReleaseOrderStatus.CANCELLED);
+        assertThat(availabilityIndex.isAvailable("HOARDING-HYD-01", march.plusDays(10), march.plusDays(20))).isTrue();
+        assertThat(availabilityIndex.isAvailable("HOARDING-HYD-01", march.plusDays(9), march.plusDays(20))).isFalse();
+    }
+
+    private Long book(String key, String inventory, LocalDate start, LocalDate end) {
+        ReleaseOrderRequest request = new ReleaseOrderRequest();
+        request.setIdempotencyKey(key);
+        request.setClientName("Sri Balaji Motors");
+        request.setClientStateCode("36");
+        request.setInventoryCode(inventory);
+        request.setStartDate(start);
+        request.setEndDate(end);
+        request.setAmount(new BigDecimal("1000.00"));
+        ReleaseOrderResult result = releaseOrderService.submit(request);
+        assertThat(result.getStatus()).isEqualTo(ReleaseOrderResult.Status.CREATED);
+        return result.getId();
+    }
+}
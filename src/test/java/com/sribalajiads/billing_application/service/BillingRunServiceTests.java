@@ -0,0 +1,161 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.dto.BillingRunProgress;
+import com.sribalajiads.billing_application.dto.ReleaseOrderRequest;
+import com.sribalajiads.billing_application.model.BillingRunStatus;
+import com.sribalajiads.billing_application.model.Invoice;
+import com.sribalajiads.billing_application.model.ReleaseOrderStatus;
+import com.sribalajiads.billing_application.repository.InvoiceRepository;
+import com.sribalajiads.billing_application.repository.ReleaseOrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "billing.run.chunk-size=4",
+        "billing.run.threads=3",
+        "billing.run.resume-on-startup=false",
+        "billing.invoice.gap-free-series=SBA"
+})
+class BillingRunServiceTests {
+
+    @Autowired BillingRunService billingRunService;
+    @Autowired ReleaseOrderService releaseOrderService;
+    @Autowired ReleaseOrderRepository releaseOrderRepository;
+    @Autowired InvoiceRepository invoiceRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void failedChunkRollsBackAndResumeBillsOnlyWhatIsLeft() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("billing@x.com", null, "ROLE_INVOICE_CREATOR"));
+        List<ReleaseOrderRequest> orders = new ArrayList<>();
+        for (int i = 0; i < 18; i++) {
+            orders.add(order("m" + i, i % 2 == 0 ? "36" : "29", LocalDate.of(2026, 3, 1 + i)));
+        }
+        orders.add(order("april", "36", LocalDate.of(2026, 4, 1)));
+        List<Long> ids = releaseOrderService.submitAll(orders).getResults().stream().map(r -> r.getId()).toList();
+
+        // Block one order with an invoice from another series, so its chunk fails on the unique release order
+        Long blocked = ids.get(9);
+        jdbcTemplate.update("insert into invoices (invoice_number, series, financial_year, sequence_number, invoice_date, " +
+                "release_order_id, client_name, client_state_code, taxable_amount, cgst, sgst, igst, total_amount, status, created_by, created_at) " +
+                "values ('TST/25-26/000001', 'TST', '25-26', 1, '2026-03-31', ?, 'x', '36', 1, 0, 0, 0, 1, 'ISSUED', 'test', now())", blocked);
+
+        BillingRunProgress run = billingRunService.start(YearMonth.of(2026, 3));
+        assertThat(run.getTotalChunks()).isEqualTo(5);
+        BillingRunProgress failed = await(run.getId());
+        assertThat(failed.getStatus()).isEqualTo(BillingRunStatus.FAILED);
+        assertThat(failed.getCompletedChunks()).isEqualTo(4);
+        assertThat(failed.getInvoices()).isEqualTo(14);
+        assertThat(releaseOrderRepository.findById(blocked).orElseThrow().getStatus()).isEqualTo(ReleaseOrderStatus.BOOKED);
+
+        jdbcTemplate.update("delete from invoices where series = 'TST'");
+        billingRunService.resume(run.getId());
+        BillingRunProgress completed = await(run.getId());
+        assertThat(completed.getStatus()).isEqualTo(BillingRunStatus.COMPLETED);
+        assertThat(completed.getInvoices()).isEqualTo(18);
+
+        // Numbers taken by the failed attempts were rolled back, so the series has no gaps
+        List<Invoice> invoices = invoiceRepository.findByBillingRunIdOrderBySequenceNumber(run.getId());
+        assertThat(invoices).extracting(Invoice::getSequenceNumber).containsExactlyElementsOf(LongStream.rangeClosed(1, 18).boxed().toList());
+        assertThat(invoices.get(0).getInvoiceNumber()).isEqualTo("SBA/25-26/000001");
+        assertThat(releaseOrderRepository.findById(ids.get(18)).orElseThrow().getStatus()).isEqualTo(ReleaseOrderStatus.BOOKED);
+
+        Invoice local = invoices.stream().filter(i -> i.getReleaseOrderId().equals(ids.get(0))).findFirst().orElseThrow();
+        assertThat(local.getCgst()).isEqualByComparingTo("90.00");
+        assertThat(local.getSgst()).isEqualByComparingTo("90.00");
+        assertThat(local.getTotalAmount()).isEqualByComparingTo("1180.00");
+        Invoice interState = invoices.stream().filter(i -> i.getReleaseOrderId().equals(ids.get(1))).findFirst().orElseThrow();
+        assertThat(interState.getIgst()).isEqualByComparingTo("180.00");
+        assertThat(interState.getCgst()).isZero();
+    }
+
+    @Test
+    void concurrentStartsForOneMonthCreateOneRun() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("billing@x.com", null, "ROLE_INVOICE_CREATOR"));
+        Long orderId = releaseOrderService.submit(order("july", "36", LocalDate.of(2026, 7, 1))).getId();
+        YearMonth july = YearMonth.of(2026, 7);
+
+        // Holding the order's row lock keeps the first run RUNNING while the other starts race it
+        List<Object> outcomes = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("select id from release_orders where id = ? for update", orderId);
+            ExecutorService starters = Executors.newFixedThreadPool(4);
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(starters.submit(() -> {
+                    go.await();
+                    try {
+                        return billingRunService.start(july);
+                    } catch (IllegalStateException e) {
+                        return e;
+                    }
+                }));
+            }
+            go.countDown();
+            try {
+                for (Future<Object> future : futures) {
+                    outcomes.add(future.get());
+                }
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            } finally {
+                starters.shutdown();
+            }
+        });
+
+        List<BillingRunProgress> started = outcomes.stream()
+                .filter(BillingRunProgress.class::isInstance).map(BillingRunProgress.class::cast).toList();
+        assertThat(started).hasSize(1);
+        assertThat(outcomes).filteredOn(IllegalStateException.class::isInstance).hasSize(3);
+        assertThat(await(started.get(0).getId()).getStatus()).isEqualTo(BillingRunStatus.COMPLETED);
+    }
+
+    private BillingRunProgress await(Long runId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            BillingRunProgress progress = billingRunService.progress(runId);
+            if (progress.getStatus() != BillingRunStatus.RUNNING) {
+                return progress;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Billing run " + runId + " did not finish");
+    }
+
+    private static ReleaseOrderRequest order(String key, String stateCode, LocalDate start) {
+        ReleaseOrderRequest request = new ReleaseOrderRequest();
+        request.setIdempotencyKey(key);
+        request.setClientName("Client " + key);
+        request.setClientStateCode(stateCode);
+        request.setInventoryCode("SAKSHI-VJA-P1");
+        request.setStartDate(start);
+        request.setEndDate(start);
+        request.setAmount(new BigDecimal("1000.00"));
+        return request;
+    }
+}
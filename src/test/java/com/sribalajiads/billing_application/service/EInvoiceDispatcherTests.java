@@ -0,0 +1,21 @@
+package com.sribalajiads.billing_application.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The shared test context sets neither an IRP URL nor the stub, like a production install that was never configured
+@SpringBootTest
+class EInvoiceDispatcherTests {
+
+    @Autowired EInvoiceDispatcher dispatcher;
+    @Autowired IrpClient irpClient;
+
+    @Test
+    void dispatcherStaysOffWithoutAnIrpEndpoint() {
+        assertThat(irpClient.isConfigured()).isFalse();
+        assertThat(dispatcher.isRunning()).isFalse();
+    }
+}
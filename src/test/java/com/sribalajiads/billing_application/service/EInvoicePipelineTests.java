@@ -0,0 +1,70 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.model.EInvoiceStatus;
+import com.sribalajiads.billing_application.model.EInvoiceSubmission;
+import com.sribalajiads.billing_application.repository.EInvoiceSubmissionRepository;
+import com.sribalajiads.billing_application.util.IrpStubServer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "billing.einvoice.stub.enabled=true",
+        "billing.einvoice.stub.fail-first-calls=1",
+        "billing.einvoice.batch-size=10",
+        "billing.einvoice.poll-interval=50ms",
+        "billing.einvoice.backoff=50ms"
+})
+class EInvoicePipelineTests {
+
+    @Autowired EInvoiceService eInvoiceService;
+    @Autowired EInvoiceSubmissionRepository submissionRepository;
+    @Autowired IrpStubServer irpStub;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void queuedInvoicesAreRegisteredInBatchesAndRetriedAfterPortalErrors() throws Exception {
+        List<Long> invoiceIds = new ArrayList<>();
+        for (int i = 1; i <= 25; i++) {
+            invoiceIds.add(insertInvoice(i, i == 7 ? "XX0000000000000" : "29AABCT1332L1ZT"));
+        }
+
+        assertThat(eInvoiceService.enqueue(invoiceIds)).isEqualTo(25);
+        assertThat(eInvoiceService.enqueue(invoiceIds)).isZero();
+
+        Map<EInvoiceStatus, Long> summary = null;
+        for (int i = 0; i < 200; i++) {
+            summary = eInvoiceService.summary();
+            if (summary.get(EInvoiceStatus.REGISTERED) + summary.get(EInvoiceStatus.REJECTED) == 25) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        assertThat(summary.get(EInvoiceStatus.REGISTERED)).isEqualTo(24);
+        assertThat(summary.get(EInvoiceStatus.REJECTED)).isEqualTo(1);
+
+        // The first call got a 503; its batch went through on the second attempt
+        assertThat(irpStub.getCalls()).isGreaterThanOrEqualTo(4);
+        List<EInvoiceSubmission> submissions = submissionRepository.findAll();
+        assertThat(submissions).anySatisfy(s -> assertThat(s.getAttempts()).isEqualTo(2));
+        assertThat(submissions).filteredOn(s -> s.getStatus() == EInvoiceStatus.REGISTERED)
+                .allSatisfy(s -> assertThat(s.getIrn()).hasSize(64));
+        assertThat(submissionRepository.findByInvoiceId(invoiceIds.get(6)).orElseThrow().getLastError()).startsWith("3028");
+    }
+
+    private Long insertInvoice(int number, String buyerGstin) {
+        jdbcTemplate.update("insert into invoices (invoice_number, series, financial_year, sequence_number, invoice_date, " +
+                        "release_order_id, client_name, client_gstin, client_state_code, taxable_amount, cgst, sgst, igst, " +
+                        "total_amount, status, created_by, created_at) " +
+                        "values (?, 'SBA', '25-26', ?, '2026-03-31', ?, 'Client', ?, '29', 1000, 0, 0, 180, 1180, 'ISSUED', 'test', now())",
+                String.format("SBA/25-26/%06d", number), number, number, buyerGstin);
+        return jdbcTemplate.queryForObject("select id from invoices where sequence_number = ?", Long.class, number);
+    }
+}
@@ -0,0 +1,105 @@
+package com.sribalajiads.billing_application.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "billing.export.max-concurrent=1",
+        "billing.export.buffer-size=256"
+})
+class ExportServiceTests {
+
+    private static final int INVOICES = 3000;
+
+    @Autowired ExportService exportService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seedInvoices() {
+        if (jdbcTemplate.queryForObject("select count(*) from invoices", Long.class) > 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("insert into invoices (invoice_number, series, financial_year, sequence_number, invoice_date, " +
+                        "release_order_id, client_name, client_state_code, taxable_amount, cgst, sgst, igst, total_amount, status, created_by, created_at) " +
+                        "values (?, 'SBA', '25-26', ?, ?, ?, ?, '36', 1000.00, 90.00, 90.00, 0, 1180.00, 'ISSUED', 'billing@x.com', now())",
+                java.util.stream.IntStream.rangeClosed(1, INVOICES).mapToObj(i -> new Object[]{
+                        String.format("SBA/25-26/%06d", i), i, LocalDate.of(2025, 4, 1).plusDays(i % 365), i,
+                        i == 1 ? "Thota, \"Nithin\" Ads" : "=HYPERLINK(\"x\")"}).toList());
+    }
+
+    @Test
+    void csvHonoursColumnsFiltersAndQuoting() throws IOException {
+        String csv = new String(run(exportService.invoices(ExportService.Format.CSV, "invoiceNumber,clientName,totalAmount",
+                LocalDate.of(2025, 4, 1), LocalDate.of(2025, 4, 30), null)), StandardCharsets.UTF_8);
+        String[] lines = csv.split("\r\n");
+        assertThat(lines[0]).isEqualTo("invoiceNumber,clientName,totalAmount");
+        assertThat(lines).hasSize(1 + jdbcTemplate.queryForObject(
+                "select count(*) from invoices where invoice_date between '2025-04-01' and '2025-04-30'", Integer.class));
+        assertThat(csv).contains("SBA/25-26/000001,\"Thota, \"\"Nithin\"\" Ads\",1180.00");
+        // Text that a spreadsheet would evaluate is neutralised
+        assertThat(csv).contains(",\"'=HYPERLINK(\"\"x\"\")\",");
+
+        assertThatThrownBy(() -> exportService.invoices(ExportService.Format.CSV, "invoiceNumber,password", null, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void xlsxIsAValidPackageWithEveryRow() throws IOException {
+        byte[] xlsx = run(exportService.users(ExportService.Format.XLSX, "email,active,roles", null, null, null));
+        Map<String, String> parts = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(xlsx))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                parts.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        assertThat(parts).containsKeys("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml", "xl/_rels/workbook.xml.rels", "xl/worksheets/sheet1.xml");
+        String sheet = parts.get("xl/worksheets/sheet1.xml");
+        assertThat(sheet).contains("<t xml:space=\"preserve\">roles</t>").contains("ROLE_ADMIN").contains("<c t=\"b\"><v>1</v></c>");
+        assertThat(sheet.split("<row>")).hasSize(1 + 1 + jdbcTemplate.queryForObject("select count(*) from users", Integer.class));
+    }
+
+    @Test
+    void clientDisconnectEndsTheExportAndFreesItsSlot() throws IOException {
+        StreamingResponseBody body = exportService.invoices(ExportService.Format.CSV, null, null, null, null);
+
+        // Only one export may run here, so a second is refused until the first ends
+        assertThatThrownBy(() -> exportService.invoices(ExportService.Format.CSV, null, null, null, null))
+                .isInstanceOf(IllegalStateException.class);
+
+        long[] written = {0};
+        body.writeTo(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                if (++written[0] > 4096) {
+                    throw new IOException("Broken pipe");
+                }
+            }
+        });
+        assertThat(written[0]).isLessThan(8192);
+        assertThat(run(exportService.invoices(ExportService.Format.CSV, "invoiceNumber", null, null, null))).isNotEmpty();
+    }
+
+    private static byte[] run(StreamingResponseBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,125 @@
+package com.sribalajiads.billing_application.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "billing.invoice.gap-free-series=GFR"
+})
+class InvoiceNumberServiceTests {
+
+    private static final int NODES = 4;
+    private static final int THREADS_PER_NODE = 8;
+    private static final int NUMBERS_PER_THREAD = 2_500;
+    private static final int BLOCK_SIZE = 64;
+
+    @Autowired InvoiceNumberService invoiceNumberService;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    void parallelAllocatorsOnSeveralNodesNeverHandOutTheSameNumber() throws Exception {
+        List<InvoiceNumberService> nodes = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(node());
+        }
+
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(NODES * THREADS_PER_NODE);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> threads = new ArrayList<>();
+        for (InvoiceNumberService node : nodes) {
+            for (int t = 0; t < THREADS_PER_NODE; t++) {
+                threads.add(pool.submit(() -> {
+                    start.await();
+                    long previous = 0;
+                    boolean increasing = true;
+                    for (int i = 0; i < NUMBERS_PER_THREAD; i++) {
+                        long number = node.allocate("BLK", "25-26", 1)[0];
+                        increasing &= number > previous;
+                        previous = number;
+                        seen.add(number);
+                    }
+                    return increasing;
+                }));
+            }
+        }
+        start.countDown();
+        for (Future<Boolean> thread : threads) {
+            assertThat(thread.get()).as("each thread sees increasing numbers").isTrue();
+        }
+        pool.shutdown();
+
+        int total = NODES * THREADS_PER_NODE * NUMBERS_PER_THREAD;
+        assertThat(seen).hasSize(total);
+
+        // Only the unused tail of each node's current block is skipped
+        long reserved = jdbcTemplate.queryForObject(
+                "select next_value from invoice_sequences where series = 'BLK' and financial_year = '25-26'", Long.class) - 1;
+        assertThat(reserved - total).isBetween(0L, (long) NODES * BLOCK_SIZE);
+    }
+
+    @Test
+    void gapFreeSeriesStaysConsecutiveWhenTransactionsRollBack() throws Exception {
+        invoiceNumberService.ensureSequence("GFR", "25-26");
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Set<Long> committed = ConcurrentHashMap.newKeySet();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(pool.submit(() -> {
+                for (int i = 0; i < 25; i++) {
+                    boolean rollBack = i % 5 == 0;
+                    try {
+                        long[] numbers = tx.execute(status -> {
+                            long[] taken = invoiceNumberService.allocate("GFR", "25-26", 3);
+                            if (rollBack) {
+                                throw new IllegalStateException("invoice insert failed");
+                            }
+                            return taken;
+                        });
+                        for (long number : numbers) {
+                            committed.add(number);
+                        }
+                    } catch (IllegalStateException expected) {
+                        // Numbers go back with the rollback
+                    }
+                }
+            }));
+        }
+        for (Future<?> thread : threads) {
+            thread.get();
+        }
+        pool.shutdown();
+
+        assertThat(committed).containsExactlyInAnyOrderElementsOf(LongStream.rangeClosed(1, 8 * 20 * 3).boxed().toList());
+    }
+
+    private InvoiceNumberService node() {
+        InvoiceNumberService node = new InvoiceNumberService(BLOCK_SIZE, "");
+        node.invoiceSequenceRepository = invoiceNumberService.invoiceSequenceRepository;
+        node.jdbcTemplate = jdbcTemplate;
+        node.transactionManager = transactionManager;
+        node.meterRegistry = new SimpleMeterRegistry();
+        node.init();
+        return node;
+    }
+}
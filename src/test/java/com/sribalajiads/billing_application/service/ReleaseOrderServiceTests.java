@@ -0,0 +1,107 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.dto.ReleaseOrderBatchReport;
+import com.sribalajiads.billing_application.dto.ReleaseOrderRequest;
+import com.sribalajiads.billing_application.dto.ReleaseOrderResult;
+import com.sribalajiads.billing_application.repository.ReleaseOrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "billing.ro.chunk-size=2"
+})
+class ReleaseOrderServiceTests {
+
+    @Autowired ReleaseOrderService releaseOrderService;
+    @Autowired ReleaseOrderRepository releaseOrderRepository;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void retriesAreRecognisedByKeyAndReusedKeysAreRefused() {
+        long before = releaseOrderRepository.count();
+        actAs("ro1@x.com");
+        ReleaseOrderRequest invalid = order("k-bad", "100.00");
+        invalid.setEndDate(invalid.getStartDate().minusDays(1));
+
+        // Five orders across three chunks, with one key repeated inside the batch
+        ReleaseOrderBatchReport first = releaseOrderService.submitAll(List.of(
+                order("k1", "100.00"), order("k2", "250.00"), order("k1", "100"), invalid, order("k3", "75.50")));
+        assertThat(first.getCreated()).isEqualTo(3);
+        assertThat(first.getDuplicates()).isEqualTo(1);
+        assertThat(first.getInvalid()).isEqualTo(1);
+        assertThat(first.getResults()).extracting(ReleaseOrderResult::getIndex).containsExactly(0, 1, 2, 3, 4);
+        Long k1 = first.getResults().get(0).getId();
+        assertThat(first.getResults().get(2).getId()).isEqualTo(k1);
+
+        // A client retry gets the original order back; a different order under a used key is refused
+        ReleaseOrderResult retry = releaseOrderService.submit(order("k1", "100.00"));
+        assertThat(retry.getStatus()).isEqualTo(ReleaseOrderResult.Status.DUPLICATE);
+        assertThat(retry.getId()).isEqualTo(k1);
+        assertThat(releaseOrderService.submit(order("k2", "999.00")).getStatus()).isEqualTo(ReleaseOrderResult.Status.CONFLICT);
+
+        // Keys belong to their creator
+        actAs("ro2@x.com");
+        assertThat(releaseOrderService.submit(order("k1", "100.00")).getStatus()).isEqualTo(ReleaseOrderResult.Status.CREATED);
+        assertThat(releaseOrderRepository.count()).isEqualTo(before + 4);
+    }
+
+    @Test
+    void keysThatDifferOnlyInCaseAreTheSameKey() {
+        actAs("ro3@x.com");
+        ReleaseOrderBatchReport first = releaseOrderService.submitAll(List.of(order("Case-K", "100.00"), order("case-k", "100.00")));
+        assertThat(first.getResults()).extracting(ReleaseOrderResult::getStatus)
+                .containsExactly(ReleaseOrderResult.Status.CREATED, ReleaseOrderResult.Status.DUPLICATE);
+        Long id = first.getResults().get(0).getId();
+
+        ReleaseOrderResult retry = releaseOrderService.submit(order("CASE-K", "100.00"));
+        assertThat(retry.getStatus()).isEqualTo(ReleaseOrderResult.Status.DUPLICATE);
+        assertThat(retry.getId()).isEqualTo(id);
+        assertThat(releaseOrderService.submit(order("CASE-k", "5.00")).getStatus()).isEqualTo(ReleaseOrderResult.Status.CONFLICT);
+    }
+
+    @Test
+    void datesOutsideTheBookingWindowAreInvalid() {
+        actAs("ro4@x.com");
+        ReleaseOrderRequest ancient = order("d1", "100.00");
+        ancient.setStartDate(LocalDate.of(1000, 1, 1));
+        ReleaseOrderRequest farOff = order("d2", "100.00");
+        farOff.setEndDate(LocalDate.of(9999, 12, 31));
+        ReleaseOrderRequest tooLong = order("d3", "100.00");
+        tooLong.setStartDate(LocalDate.of(2001, 1, 1));
+        tooLong.setEndDate(LocalDate.of(2098, 1, 1));
+
+        ReleaseOrderBatchReport report = releaseOrderService.submitAll(List.of(ancient, farOff, tooLong));
+        assertThat(report.getInvalid()).isEqualTo(3);
+        assertThat(report.getResults().get(2).getMessage()).contains("at most " + AvailabilityIndex.MAX_RANGE_DAYS + " days");
+    }
+
+    private static void actAs(String email) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(email, null, "ROLE_RO_CREATOR"));
+    }
+
+    private static ReleaseOrderRequest order(String key, String amount) {
+        ReleaseOrderRequest request = new ReleaseOrderRequest();
+        request.setIdempotencyKey(key);
+        request.setClientName("Sri Balaji Motors");
+        request.setClientStateCode("36");
+        request.setInventoryCode("EENADU-HYD-P3");
+        request.setStartDate(LocalDate.of(2026, 3, 1));
+        request.setEndDate(LocalDate.of(2026, 3, 7));
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
@@ -0,0 +1,113 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.dto.BillingRunProgress;
+import com.sribalajiads.billing_application.dto.ReleaseOrderRequest;
+import com.sribalajiads.billing_application.dto.RevenueTotals;
+import com.sribalajiads.billing_application.model.BillingRunStatus;
+import com.sribalajiads.billing_application.model.Invoice;
+import com.sribalajiads.billing_application.repository.InvoiceRepository;
+import com.sribalajiads.billing_application.repository.RevenueSummaryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+        "billing.run.chunk-size=3",
+        "billing.run.threads=4",
+        "billing.run.resume-on-startup=false"
+})
+class RevenueReadModelTests {
+
+    @Autowired BillingRunService billingRunService;
+    @Autowired ReleaseOrderService releaseOrderService;
+    @Autowired InvoiceService invoiceService;
+    @Autowired InvoiceRepository invoiceRepository;
+    @Autowired RevenueReadModel revenueReadModel;
+    @Autowired RevenueSummaryRepository summaryRepository;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void summaryFollowsBillingAndCancellationAndMatchesARebuild() throws Exception {
+        // Two owners booking for three clients; parallel chunks hit the same summary rows
+        for (String owner : List.of("ro1@x.com", "ro2@x.com")) {
+            actAs(owner, "ROLE_RO_CREATOR");
+            List<ReleaseOrderRequest> orders = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                orders.add(order(owner + i, "Client " + (i % 3), i % 2 == 0 ? "36" : "29"));
+            }
+            releaseOrderService.submitAll(orders);
+        }
+
+        actAs("billing@x.com", "ROLE_INVOICE_CREATOR");
+        BillingRunProgress run = await(billingRunService.start(YearMonth.of(2026, 3)).getId());
+        assertThat(run.getStatus()).isEqualTo(BillingRunStatus.COMPLETED);
+
+        List<RevenueTotals> months = summaryRepository.totalsByMonth("2026-01", "2026-12");
+        assertThat(months).hasSize(1);
+        assertThat(months.get(0).getKey()).isEqualTo("2026-03");
+        assertThat(months.get(0).getInvoiceCount()).isEqualTo(24);
+        assertThat(months.get(0).getTaxableAmount()).isEqualByComparingTo("24000.00");
+        assertThat(months.get(0).getCgst()).isEqualByComparingTo("1080.00");
+        assertThat(months.get(0).getIgst()).isEqualByComparingTo("2160.00");
+        assertThat(summaryRepository.totalsByOwner("2026-03", "2026-03"))
+                .extracting(RevenueTotals::getKey, RevenueTotals::getInvoiceCount)
+                .containsExactlyInAnyOrder(tuple("ro1@x.com", 12L), tuple("ro2@x.com", 12L));
+
+        // A cancelled invoice leaves the figures at once, and a second cancel changes nothing
+        Invoice invoice = invoiceRepository.findByBillingRunIdOrderBySequenceNumber(run.getId()).get(0);
+        invoiceService.cancel(invoice.getId());
+        invoiceService.cancel(invoice.getId());
+        RevenueTotals march = summaryRepository.totalsByMonth("2026-03", "2026-03").get(0);
+        assertThat(march.getInvoiceCount()).isEqualTo(23);
+        assertThat(march.getTotalAmount()).isEqualByComparingTo(new BigDecimal("28320.00").subtract(invoice.getTotalAmount()));
+
+        List<RevenueTotals> clientsBefore = summaryRepository.totalsByClient("2026-03", "2026-03", Limit.of(10));
+        revenueReadModel.rebuild();
+        assertThat(summaryRepository.totalsByClient("2026-03", "2026-03", Limit.of(10))).isEqualTo(clientsBefore);
+        assertThat(summaryRepository.totalsByMonth("2026-03", "2026-03").get(0)).isEqualTo(march);
+    }
+
+    private BillingRunProgress await(Long runId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            BillingRunProgress progress = billingRunService.progress(runId);
+            if (progress.getStatus() != BillingRunStatus.RUNNING) {
+                return progress;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Billing run " + runId + " did not finish");
+    }
+
+    private static void actAs(String email, String role) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(email, null, role));
+    }
+
+    private static ReleaseOrderRequest order(String key, String client, String stateCode) {
+        ReleaseOrderRequest request = new ReleaseOrderRequest();
+        request.setIdempotencyKey(key);
+        request.setClientName(client);
+        request.setClientStateCode(stateCode);
+        request.setInventoryCode("SAKSHI-VJA-P1");
+        request.setStartDate(LocalDate.of(2026, 3, 10));
+        request.setEndDate(LocalDate.of(2026, 3, 12));
+        request.setAmount(new BigDecimal("1000.00"));
+        return request;
+    }
+}
@@ -0,0 +1,72 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.controller.AdminController;
+import com.sribalajiads.billing_application.dto.SignupRequest;
+import com.sribalajiads.billing_application.dto.UpdateRoleRequest;
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class RoleRegistryTests {
+
+    @Autowired RoleRegistry roleRegistry;
+    @Autowired AdminController adminController;
+    @Autowired UserRepository userRepository;
+
+    @Test
+    void resolvesKnownNamesAndRejectsUnknownOnes() {
+        assertThat(roleRegistry.resolve(List.of("ROLE_PLANNER", "ROLE_ADMIN")))
+                .isEqualTo(EnumSet.of(ERole.ROLE_PLANNER, ERole.ROLE_ADMIN));
+        assertThat(roleRegistry.get(ERole.ROLE_PLANNER).getName()).isEqualTo(ERole.ROLE_PLANNER);
+
+        assertThatThrownBy(() -> roleRegistry.resolve(List.of("ROLE_PLANNER", "ROLE_OWNER")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Error: Role ROLE_OWNER is not found.");
+    }
+
+    @Test
+    void anUnknownRoleNameIsABadRequest() {
+        // Inactive, so saving it past the controller leaves the per-role active counters right
+        User user = new User("Unknown Role", "unknown-role@x.com", "unused");
+        user.setActive(false);
+        user.setRoles(Set.of(ERole.ROLE_PLANNER));
+        userRepository.save(user);
+
+        SignupRequest signup = new SignupRequest();
+        signup.setName("Unknown Role Signup");
+        signup.setEmail("unknown-role-signup@x.com");
+        signup.setPassword("secret123");
+        signup.setRole(Set.of("ROLE_OWNER"));
+        UpdateRoleRequest update = new UpdateRoleRequest();
+        update.setRoles(Set.of("ROLE_OWNER"));
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("admin@sribalajiads.com", null, "ROLE_ADMIN"));
+        try {
+            ResponseEntity<?> created = adminController.registerUser(signup);
+            assertThat(created.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+            assertThat(created.getBody()).isEqualTo("Error: Role ROLE_OWNER is not found.");
+            assertThat(userRepository.existsByEmail("unknown-role-signup@x.com")).isFalse();
+
+            ResponseEntity<?> updated = adminController.updateUserRoles(user.getId(), update);
+            assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+            assertThat(userRepository.findById(user.getId()).orElseThrow().getRoles()).containsExactly(ERole.ROLE_PLANNER);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
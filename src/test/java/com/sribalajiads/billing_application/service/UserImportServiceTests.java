@@ -0,0 +1,50 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.dto.BulkImportReport;
+import com.sribalajiads.billing_application.dto.ImportRowResult;
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class UserImportServiceTests {
+
+    @Autowired UserImportService userImportService;
+    @Autowired UserRepository userRepository;
+
+    @Test
+    void emailsThatDifferOnlyInCaseAreDuplicates() throws Exception {
+        userRepository.save(new User("Taken", "Taken@Import.test", "x"));
+
+        BulkImportReport report = userImportService.importCsv(body("""
+                name,email,password,roles
+                First,Case@Import.test,secret123,ROLE_PLANNER
+                Second,case@import.TEST,secret123,ROLE_PLANNER
+                Third,taken@import.test,secret123,ROLE_PLANNER
+                """));
+
+        assertThat(report.getRows()).extracting(ImportRowResult::getStatus).containsExactly(
+                ImportRowResult.Status.CREATED, ImportRowResult.Status.DUPLICATE, ImportRowResult.Status.DUPLICATE);
+        assertThat(report.getRows().get(0).getId()).isEqualTo(userRepository.findByEmail("Case@Import.test").orElseThrow().getId());
+    }
+
+    @Test
+    void malformedJsonIsTheCallersMistake() {
+        assertThatThrownBy(() -> userImportService.importJson(body("[{\"name\": \"Broken\", \"email\": ")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Error: Malformed JSON near user 1");
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,87 @@
+package com.sribalajiads.billing_application.service;
+
+import com.sribalajiads.billing_application.controller.AdminController;
+import com.sribalajiads.billing_application.dto.SignupRequest;
+import com.sribalajiads.billing_application.dto.UpdateRoleRequest;
+import com.sribalajiads.billing_application.dto.UserSummary;
+import com.sribalajiads.billing_application.model.ERole;
+import com.sribalajiads.billing_application.model.User;
+import com.sribalajiads.billing_application.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class UserSearchIndexTests {
+
+    @Autowired AdminController adminController;
+    @Autowired UserSearchIndex userSearchIndex;
+    @Autowired UserRepository userRepository;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void searchFollowsAdminChanges() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "admin@sribalajiads.com", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+        register("Ravi Kumar", "ravi.kumar@search.test", "ROLE_PLANNER");
+        register("Kumari Devi", "devi@search.test", "ROLE_RO_CREATOR");
+        register("Suresh Raavi", "suresh@search.test", "ROLE_PLANNER");
+
+        // A name word prefix ranks above an email word prefix; equal matches keep id order
+        assertThat(emails("kum", null, null)).containsExactly("ravi.kumar@search.test", "devi@search.test");
+        assertThat(emails("search.test", null, null)).containsExactly("ravi.kumar@search.test", "devi@search.test", "suresh@search.test");
+        assertThat(emails("ra kum", null, null)).containsExactly("ravi.kumar@search.test");
+        assertThat(emails("devi kum", null, null)).containsExactly("devi@search.test");
+
+        // Near misses only come back when nothing matches exactly
+        assertThat(emails("ravi", null, null)).containsExactly("ravi.kumar@search.test");
+        assertThat(emails("sureth", null, null)).containsExactly("suresh@search.test");
+
+        Long ravi = userRepository.findByEmail("ravi.kumar@search.test").orElseThrow().getId();
+        UpdateRoleRequest roles = new UpdateRoleRequest();
+        roles.setRoles(Set.of("ROLE_INVOICE_CREATOR"));
+        assertThat(adminController.updateUserRoles(ravi, roles).getStatusCode().is2xxSuccessful()).isTrue();
+        // With Ravi filtered out, "Raavi" is the closest planner
+        assertThat(emails("ravi", ERole.ROLE_PLANNER, null)).containsExactly("suresh@search.test");
+        assertThat(emails("ravi", ERole.ROLE_INVOICE_CREATOR, null)).containsExactly("ravi.kumar@search.test");
+
+        assertThat(adminController.toggleUserStatus(ravi).getStatusCode().is2xxSuccessful()).isTrue();
+        assertThat(emails("ravi", null, true)).containsExactly("suresh@search.test");
+        assertThat(emails("ravi", null, false)).containsExactly("ravi.kumar@search.test");
+    }
+
+    @Test
+    void newUsersFromOtherNodesArePickedUpByThePoll() {
+        userRepository.save(new User("Lakshmi Narayana", "lakshmi@search.test", "x"));
+        assertThat(emails("lakshmi", null, null)).isEmpty();
+
+        userSearchIndex.poll();
+        assertThat(emails("lakshmi", null, null)).containsExactly("lakshmi@search.test");
+    }
+
+    private void register(String name, String email, String role) {
+        SignupRequest request = new SignupRequest();
+        request.setName(name);
+        request.setEmail(email);
+        request.setPassword("secret123");
+        request.setRole(Set.of(role));
+        assertThat(adminController.registerUser(request).getStatusCode().is2xxSuccessful()).isTrue();
+    }
+
+    private List<String> emails(String query, ERole role, Boolean active) {
+        return userSearchIndex.search(query, role, active, 10).stream().map(UserSummary::getEmail).toList();
+    }
+}
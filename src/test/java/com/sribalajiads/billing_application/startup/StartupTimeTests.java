@@ -0,0 +1,147 @@
+package com.sribalajiads.billing_application.startup;
+
+import com.sribalajiads.billing_application.BillingApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Startup benchmark: launches the application in a fresh JVM per run, against an in-memory H2 database in
+ * MySQL mode, and measures the time from process launch to the first successful response from /api/auth/login.
+ * That first request includes whatever the context deferred, so lazy beans are not counted as free.
+ *
+ * Modes: "eager" is the default startup, "fast-start" runs with the fast-start profile. When startup.cdsJar
+ * points at the jar extracted by the cds Maven profile (and its application.jsa sits next to it),
+ * "fast-start-cds" runs the same profile from that jar with the class-data-sharing archive.
+ *
+ * Not part of the normal build; run with {@code mvn test -Pstartup}, or after {@code mvn package -Pcds}:
+ * {@code mvn test -Pstartup -Dstartup.cdsJar=target/cds/billing_application-0.0.1-SNAPSHOT.jar}.
+ * Settings (system properties): startup.runs, startup.timeoutSeconds, startup.report.
+ */
+@Tag("startup")
+class StartupTimeTests {
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimeTests.class);
+
+    private static final String LOGIN_BODY = "{\"email\":\"admin@sribalajiads.com\",\"password\":\"Admin@123\"}";
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(1)).build();
+    private final int runs = Integer.getInteger("startup.runs", 3);
+    private final int timeoutSeconds = Integer.getInteger("startup.timeoutSeconds", 120);
+    private final String cdsJar = System.getProperty("startup.cdsJar", "");
+    private final Path reportPath = Path.of(System.getProperty("startup.report", "target/startup/startup-report.json"));
+
+    @Test
+    void timeToFirstRequest() throws Exception {
+        String testClasspath = System.getProperty("java.class.path");
+        Map<String, List<String>> modes = new LinkedHashMap<>();
+        modes.put("eager", List.of("-cp", testClasspath));
+        modes.put("fast-start", List.of("-cp", testClasspath));
+        if (!cdsJar.isEmpty()) {
+            // The archive was trained on the extracted jar, which must stay first on the class path; H2 is appended
+            Path archive = Path.of(cdsJar).toAbsolutePath().resolveSibling("application.jsa");
+            assertThat(archive).as("CDS archive from mvn package -Pcds").exists();
+            modes.put("fast-start-cds", List.of("-XX:SharedArchiveFile=" + archive, "-Xlog:cds=off", "-Xlog:cds+dynamic=off",
+                    "-cp", Path.of(cdsJar).toAbsolutePath() + File.pathSeparator + h2Jar(testClasspath)));
+        }
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> mode : modes.entrySet()) {
+            List<Double> millis = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                millis.add(launch(mode.getKey(), mode.getValue(), run));
+            }
+            List<Double> sorted = millis.stream().sorted().toList();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("runsMs", millis);
+            entry.put("medianMs", sorted.get(sorted.size() / 2));
+            entry.put("minMs", sorted.get(0));
+            results.put(mode.getKey(), entry);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", Map.of("runs", runs, "java", Runtime.version().toString()));
+        report.put("timeToFirstRequest", results);
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        JsonMapper.builder().build().writerWithDefaultPrettyPrinter().writeValue(reportPath.toFile(), report);
+        logger.info("Startup report written to {}", reportPath.toAbsolutePath());
+    }
+
+    // Starts one JVM and returns the milliseconds until its first login succeeds; the process is always stopped
+    private double launch(String mode, List<String> jvmArgs, int run) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add(BillingApplication.class.getName());
+        command.add("--server.port=" + port);
+        command.add("--spring.datasource.url=jdbc:h2:mem:startup;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH");
+        command.add("--spring.datasource.username=sa");
+        command.add("--spring.datasource.password=");
+        command.add("--spring.jpa.hibernate.ddl-auto=create-drop");
+        if (mode.startsWith("fast-start")) {
+            command.add("--spring.profiles.active=fast-start");
+        }
+
+        Path log = reportPath.toAbsolutePath().resolveSibling(mode + "-" + run + ".log");
+        Files.createDirectories(log.getParent());
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            long deadline = started + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            while (System.nanoTime() < deadline) {
+                assertThat(process.isAlive()).as("%s run %d exited early, see %s", mode, run, log).isTrue();
+                if (loginSucceeds(port)) {
+                    return (System.nanoTime() - started) / 1_000_000.0;
+                }
+                Thread.sleep(10);
+            }
+            throw new AssertionError(mode + " run " + run + " did not answer within " + timeoutSeconds + "s, see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private boolean loginSucceeds(int port) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(LOGIN_BODY)).build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false; // Not listening yet
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String h2Jar(String classpath) {
+        return Arrays.stream(classpath.split(File.pathSeparator))
+                .filter(entry -> Path.of(entry).getFileName().toString().startsWith("h2-"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("H2 is not on the test class path"));
+    }
+}